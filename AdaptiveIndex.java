@@ -0,0 +1,108 @@
+// AdaptiveIndex.java
+// Difficulty-ordered question index per subject for adaptive quizzes.
+// Difficulties and student ability share one logit scale (Rasch / Elo style): P(correct) = 1 / (1 + e^(b - theta)).
+// Items start from their ItemStats history and move a little with every adaptive answer.
+
+import java.util.*;
+
+class AdaptiveIndex {
+    static final double ABILITY_K = 0.6;  // step for the student's ability estimate
+    static final double ITEM_K = 0.05;    // items have many more answers behind them, so they move slowly
+    static final double TARGET_P = 0.6;   // aim a little below the student's level
+
+    private static final class Entry {
+        final int index;    // position in the bank; also the tie-break that keeps equal ratings distinct
+        double rating;
+
+        Entry(int index, double rating) {
+            this.index = index;
+            this.rating = rating;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingDouble(e -> e.rating).thenComparingInt(e -> e.index);
+
+    private final CompactBank bank;
+    private final List<TreeSet<Entry>> bySubject;  // by the bank's subject id
+    private final Entry[] byIndex;
+
+    private AdaptiveIndex(CompactBank bank) {
+        this.bank = bank;
+        this.bySubject = new ArrayList<>(bank.subjectCount());
+        this.byIndex = new Entry[bank.size()];
+    }
+
+    /** Indexes the bank; prior difficulties come from item statistics (unseen items start at 0). */
+    static AdaptiveIndex build(CompactBank bank, ItemStats stats) {
+        AdaptiveIndex ix = new AdaptiveIndex(bank);
+        for (int s = 0; s < bank.subjectCount(); s++) ix.bySubject.add(new TreeSet<>(ORDER));
+        for (int i = 0; i < bank.size(); i++) {
+            Entry e = new Entry(i, stats == null ? 0 : stats.logitDifficulty(bank.idCode(i)));
+            ix.bySubject.get(bank.subjectId(i)).add(e);
+            ix.byIndex[i] = e;
+        }
+        return ix;
+    }
+
+    /** True if this index was built from {@code bank} (same list instance). */
+    boolean indexes(List<Question> bank) { return this.bank == bank; }
+
+    CompactBank bank() { return bank; }
+
+    synchronized int count(String subject) {
+        int s = bank.subjectId(subject);
+        return s < 0 ? 0 : bySubject.get(s).size();
+    }
+
+    synchronized double rating(Question q) { return rating(bank.indexOf(q)); }
+
+    /** Difficulty of the bank's question {@code i}; 0 for -1 (not in the bank). */
+    synchronized double rating(int i) { return i < 0 ? 0 : byIndex[i].rating; }
+
+    /**
+     * Bank index of the question of {@code subject} whose difficulty is closest to {@code target}, skipping the
+     * indices set in {@code exclude}; -1 if none is left. Walks outwards from the target, so the cost is
+     * O(log n + |exclude|) and no question is decoded.
+     */
+    synchronized int pick(String subject, double target, BitSet exclude) {
+        int s = bank.subjectId(subject);
+        if (s < 0) return -1;
+        TreeSet<Entry> set = bySubject.get(s);
+        Entry probe = new Entry(Integer.MIN_VALUE, target);
+        Iterator<Entry> up = set.tailSet(probe, true).iterator();
+        Iterator<Entry> down = set.headSet(probe, false).descendingIterator();
+        Entry hi = nextAllowed(up, exclude), lo = nextAllowed(down, exclude);
+        if (hi == null) return lo == null ? -1 : lo.index;
+        if (lo == null) return hi.index;
+        return hi.rating - target <= target - lo.rating ? hi.index : lo.index;
+    }
+
+    synchronized void update(Question q, double ability, boolean correct) { update(bank.indexOf(q), ability, correct); }
+
+    /** Moves the difficulty of question {@code i} after an answer by a student of {@code ability}; re-sorts it in O(log n). */
+    synchronized void update(int i, double ability, boolean correct) {
+        if (i < 0) return;
+        Entry e = byIndex[i];
+        TreeSet<Entry> set = bySubject.get(bank.subjectId(i));
+        set.remove(e);
+        e.rating -= ITEM_K * ((correct ? 1 : 0) - expected(ability, e.rating));
+        set.add(e);
+    }
+
+    static double expected(double ability, double difficulty) {
+        return 1.0 / (1.0 + Math.exp(difficulty - ability));
+    }
+
+    /** Difficulty to aim for so that a student of {@code ability} answers correctly with probability TARGET_P. */
+    static double targetFor(double ability) {
+        return ability - Math.log(TARGET_P / (1 - TARGET_P));
+    }
+
+    private static Entry nextAllowed(Iterator<Entry> it, BitSet exclude) {
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (!exclude.get(e.index)) return e;
+        }
+        return null;
+    }
+}
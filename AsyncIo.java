@@ -0,0 +1,114 @@
+// AsyncIo.java
+// Background executors for disk work, with progress / cancellation and results posted back to the EDT.
+
+import javax.swing.*;
+import java.awt.Component;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+final class AsyncIo {
+    private AsyncIo() {}
+
+    /** Posts continuations onto the Swing event thread. */
+    static final Executor EDT = SwingUtilities::invokeLater;
+
+    // Score / version writes stay ordered on one thread; exports and reads share a small pool.
+    private static final ExecutorService PERSISTENCE = Executors.newSingleThreadExecutor(daemon("skillnest-persist"));
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(2, daemon("skillnest-io"));
+
+    static {
+        // let queued score writes finish when the app exits right after a quiz
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            PERSISTENCE.shutdown();
+            try { PERSISTENCE.awaitTermination(5, TimeUnit.SECONDS); } catch (InterruptedException ignored) {}
+        }, "skillnest-persist-drain"));
+    }
+
+    /** Progress sink handed to long running tasks. */
+    interface Progress {
+        void update(int done, int total, String note);
+        boolean isCancelled();
+
+        /** Throws CancellationException if the user cancelled; call between units of work. */
+        default void checkCancelled() {
+            if (isCancelled()) throw new CancellationException();
+        }
+
+        Progress NONE = new Progress() {
+            public void update(int done, int total, String note) {}
+            public boolean isCancelled() { return false; }
+        };
+    }
+
+    interface Task<T> {
+        T run(Progress progress) throws Exception;
+    }
+
+    /** Ordered persistence work (score appends, deletes, version map). */
+    static <T> CompletableFuture<T> persist(Task<T> task) {
+        return submit(PERSISTENCE, task, Progress.NONE);
+    }
+
+    /** Reads and other independent work. */
+    static <T> CompletableFuture<T> read(Task<T> task) {
+        return submit(WORKERS, task, Progress.NONE);
+    }
+
+    /**
+     * Runs the task on the worker pool behind a ProgressMonitor owned by {@code parent}.
+     * The monitor only pops up if the task takes longer than half a second; its Cancel button
+     * makes {@link Progress#isCancelled()} return true.
+     */
+    static <T> CompletableFuture<T> withProgress(Component parent, String title, boolean ordered, Task<T> task) {
+        ProgressMonitor pm = new ProgressMonitor(parent, title, "", 0, 100);
+        pm.setMillisToDecideToPopup(200);
+        pm.setMillisToPopup(500);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Progress progress = new Progress() {
+            public void update(int done, int total, String note) {
+                int pct = total <= 0 ? 0 : (int) Math.min(99, (done * 100L) / total);
+                SwingUtilities.invokeLater(() -> {
+                    if (pm.isCanceled()) cancelled.set(true);
+                    pm.setNote(note);
+                    pm.setProgress(pct);
+                });
+            }
+            public boolean isCancelled() { return cancelled.get(); }
+        };
+        CompletableFuture<T> f = submit(ordered ? PERSISTENCE : WORKERS, task, progress);
+        f.whenCompleteAsync((r, ex) -> pm.close(), EDT);
+        return f;
+    }
+
+    /** {@code future.whenCompleteAsync(handler, EDT)} with CompletionException unwrapped. */
+    static <T> void onEdt(CompletableFuture<T> future, BiConsumer<T, Throwable> handler) {
+        future.whenCompleteAsync((r, ex) -> handler.accept(r, unwrap(ex)), EDT);
+    }
+
+    static Throwable unwrap(Throwable ex) {
+        while (ex instanceof CompletionException && ex.getCause() != null) ex = ex.getCause();
+        return ex;
+    }
+
+    private static <T> CompletableFuture<T> submit(ExecutorService pool, Task<T> task, Progress progress) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        pool.execute(() -> {
+            try {
+                progress.checkCancelled();
+                f.complete(task.run(progress));
+            } catch (Throwable t) {
+                f.completeExceptionally(t);
+            }
+        });
+        return f;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,193 @@
+// BankSnapshots.java
+// Immutable, versioned snapshots of the question bank (questions.json or a directory of shards) for hot reload
+// during live exams.
+// A reload parses the file off the EDT and publishes the new snapshot with a single atomic reference swap, so
+// readers never lock. A running quiz holds the snapshot it started on; a superseded snapshot is dropped (left to
+// the GC) once its last holder releases it. A WatchService thread reloads on change; refresh() checks the file
+// time as well, for file systems that do not deliver change events.
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+class BankSnapshots {
+    static final long SETTLE_MS = 300; // let an editor finish writing before the file is parsed
+
+    static final class Snapshot {
+        final long version;
+        final CompactBank bank;
+        final FileTime lastModified;
+        final long loadedAt;
+        private final AtomicInteger holders = new AtomicInteger();
+        private volatile boolean superseded;
+
+        Snapshot(long version, CompactBank bank, FileTime lastModified) {
+            this.version = version;
+            this.bank = bank;
+            this.lastModified = lastModified;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        int holders() { return holders.get(); }
+        boolean isCurrent() { return !superseded; }
+    }
+
+    private final Path file;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final Set<Snapshot> retired = ConcurrentHashMap.newKeySet(); // superseded but still held
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final Object reloadLock = new Object();                        // writers only
+    private long nextVersion = 1;
+    private volatile Thread watcher;
+
+    BankSnapshots(Path file) { this.file = file; }
+
+    /** The latest snapshot, or null before the first load. Never blocks. */
+    Snapshot current() { return current.get(); }
+
+    /** Called (on the reloading thread) after each new snapshot is published. */
+    void onPublish(Consumer<Snapshot> listener) { listeners.add(listener); }
+
+    /** Snapshots still reachable through this registry: the current one plus superseded ones still held. */
+    int live() { return retired.size() + (current.get() == null ? 0 : 1); }
+
+    /** Marks {@code s} as in use by a quiz; pair with {@link #release}. */
+    Snapshot acquire(Snapshot s) {
+        s.holders.incrementAndGet();
+        if (s.superseded) retired.add(s);
+        return s;
+    }
+
+    void release(Snapshot s) {
+        if (s.holders.decrementAndGet() == 0 && s.superseded && retired.remove(s)) {
+            System.out.println("[bank] released snapshot v" + s.version);
+            Metrics.QUESTION_BANK_SNAPSHOTS.set(live());
+        }
+    }
+
+    /** Publishes an already parsed bank (the startup pipeline's) unless a snapshot of the same file time exists. */
+    Snapshot publish(QuestionLoader.Result r) {
+        synchronized (reloadLock) {
+            Snapshot cur = current.get();
+            if (cur != null && cur.lastModified.equals(r.lastModified)) return cur;
+            return swap(cur, r);
+        }
+    }
+
+    /**
+     * The current snapshot, reloading first if questions.json changed since it was read. A file that cannot be read,
+     * or now parses to no questions, keeps the current snapshot; it only throws when there is none yet.
+     */
+    Snapshot refresh() throws IOException {
+        Snapshot cur = current.get();
+        FileTime mtime;
+        try {
+            mtime = QuestionLoader.lastModified(file);
+        } catch (IOException e) {
+            if (cur != null) return cur; // deleted or being replaced; keep serving what we have
+            throw e;
+        }
+        if (cur != null && cur.lastModified.equals(mtime)) return cur;
+        synchronized (reloadLock) {
+            cur = current.get();
+            if (cur != null && cur.lastModified.equals(mtime)) return cur;
+            QuestionLoader.Result r;
+            try {
+                r = QuestionLoader.load(file);
+            } catch (IOException e) {
+                if (cur == null) throw e;
+                System.err.println("[bank] reload failed, keeping v" + cur.version + ": " + e);
+                return cur;
+            }
+            if (r.questions.isEmpty() && cur != null && !cur.bank.isEmpty()) {
+                System.err.println("[bank] " + file + " has no questions now, keeping v" + cur.version);
+                return cur;
+            }
+            return swap(cur, r);
+        }
+    }
+
+    // caller holds reloadLock
+    private Snapshot swap(Snapshot cur, QuestionLoader.Result r) {
+        Snapshot next = new Snapshot(nextVersion++, r.questions, r.lastModified);
+        current.set(next);
+        if (cur != null) {
+            cur.superseded = true;
+            if (cur.holders.get() > 0) retired.add(cur);
+            if (cur.holders.get() == 0) retired.remove(cur); // released while we were adding it
+        }
+        Metrics.QUESTION_BANK_SNAPSHOTS.set(live());
+        System.out.println("[bank] published snapshot v" + next.version + ": " + next.bank.size() + " questions from "
+                + r.shards.size() + " file(s)" + (retired.isEmpty() ? "" : ", " + retired.size() + " older still in use"));
+        String problems = r.problemReport();
+        if (!problems.isEmpty()) System.err.print("[bank] " + problems);
+        for (Consumer<Snapshot> l : listeners) {
+            try { l.accept(next); } catch (RuntimeException e) { System.err.println("[bank] listener failed: " + e); }
+        }
+        return next;
+    }
+
+    // ===== Change watching =====
+    /** Starts a daemon thread that reloads when the file (or any shard of a bank directory) is written or replaced. */
+    void watch() {
+        if (watcher != null) return;
+        Path dir = Files.isDirectory(file) ? file.toAbsolutePath() : file.toAbsolutePath().getParent();
+        WatchService ws;
+        try {
+            ws = dir.getFileSystem().newWatchService();
+            dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("[bank] not watching " + file + " (" + e + "); changes are picked up on the next quiz start");
+            return;
+        }
+        Thread t = new Thread(() -> watchLoop(ws), "skillnest-bank-watch");
+        t.setDaemon(true);
+        watcher = t;
+        t.start();
+    }
+
+    void close() {
+        Thread t = watcher;
+        watcher = null;
+        if (t != null) t.interrupt();
+    }
+
+    private void watchLoop(WatchService ws) {
+        boolean wholeDir = Files.isDirectory(file);
+        Path name = file.getFileName();
+        try (WatchService w = ws) {
+            while (watcher == Thread.currentThread()) {
+                WatchKey key = w.take();
+                boolean ours = false;
+                for (WatchEvent<?> ev : key.pollEvents()) {
+                    ours |= wholeDir ? ev.context() instanceof Path && QuestionLoader.isShard((Path) ev.context()) : name.equals(ev.context());
+                }
+                key.reset();
+                if (!ours) continue;
+                // coalesce the burst of events a save produces, then parse once
+                Thread.sleep(SETTLE_MS);
+                WatchKey more;
+                while ((more = w.poll()) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                try {
+                    refresh();
+                } catch (IOException e) {
+                    System.err.println("[bank] reload failed: " + e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // closed
+        } catch (IOException e) {
+            System.err.println("[bank] watcher stopped: " + e);
+        }
+    }
+}
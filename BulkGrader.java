@@ -0,0 +1,283 @@
+// BulkGrader.java
+// Headless grading of answer sheets taken on paper or in another tool. The sheet CSV has a header row naming its
+// columns: roll (required), optional name / class / subject, and one column per question holding its stable id
+// (Question.id, optionally prefixed with "q"). Each row gives the option letter (A, B, ...) chosen in the bank's
+// option order; a blank cell is unanswered. The file is streamed: a reader cuts it into chunks that are graded in
+// parallel against the compact bank and written back in input order, so memory stays flat for any number of sheets.
+//
+//   java -cp out BulkGrader sheets.csv [--bank questions.json] [--out graded_scores.csv] [--subject Math]
+//                           [--timestamp 2026-05-04T09:00:00Z] [--threads <cores>] [--itemstats ~/.skillnest_itemstats]
+//
+// Writes the scores in the skillnest_scores.csv format (ready for ScoreConsolidator or the score manager) and a
+// per-question report next to it (<out>-items.csv); --itemstats also adds the answers to an ItemStats file.
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+final class BulkGrader {
+    static final int CHUNK = 4096;          // sheets per parallel task
+    static final int MAX_PROBLEMS = 20;     // malformed rows reported by line number
+    private static final int UNANSWERED = 0, CORRECT = 1, CHOICES = 2; // counts[q][..]; CHOICES + o = option o
+
+    private final CompactBank bank;
+    final int rollCol, nameCol, classCol, subjectCol, width; // also read by IntegrityAnalyzer
+    final int[] questionCols, questions; // sheet column and bank index per graded question
+    private final String subject, timestamp;
+
+    /** What a grading run read and wrote. */
+    static final class Summary {
+        long sheets, malformed, invalidAnswers, unanswered, correct, millis;
+        int questions;
+        final List<String> problems = new ArrayList<>();
+        long[][] counts; // per question: unanswered, correct, then picks per option
+
+        @Override
+        public String toString() {
+            double avg = sheets == 0 ? 0 : (double) correct / sheets;
+            return String.format("%d sheets graded on %d questions in %d ms (%.0f sheets/s), mean %.2f correct%n"
+                            + "%d malformed rows skipped, %d unanswered, %d unreadable answers (graded as unanswered)",
+                    sheets, questions, millis, sheets * 1000.0 / Math.max(1, millis), avg, malformed, unanswered, invalidAnswers);
+        }
+    }
+
+    // one graded chunk: output lines in input order plus its share of the counts
+    private static final class Graded {
+        final StringBuilder csv = new StringBuilder();
+        final List<String> problems = new ArrayList<>();
+        long sheets, malformed, invalid, unanswered, correct;
+        long[][] counts;
+    }
+
+    /**
+     * Maps the header onto the bank. {@code subject} (nullable) is written for every sheet; otherwise the sheet's
+     * subject column is used, else the questions' subject ("Mixed" when they span several).
+     */
+    BulkGrader(CompactBank bank, List<String> header, String subject, String timestamp) throws IOException {
+        this.bank = bank;
+        this.timestamp = timestamp;
+        this.width = header.size();
+        int roll = -1, name = -1, cls = -1, subj = -1;
+        List<Integer> cols = new ArrayList<>(), idx = new ArrayList<>();
+        List<String> unknown = new ArrayList<>();
+        for (int c = 0; c < header.size(); c++) {
+            String h = header.get(c).trim();
+            switch (h.toLowerCase()) {
+                case "roll": roll = c; continue;
+                case "name": name = c; continue;
+                case "class": cls = c; continue;
+                case "subject": subj = c; continue;
+                default:
+            }
+            String id = h.startsWith("q") || h.startsWith("Q") ? h.substring(1) : h;
+            int i = id.matches("-?\\d+") ? bank.findById(Integer.parseInt(id)) : -1;
+            if (i < 0) unknown.add(h);
+            else {
+                cols.add(c);
+                idx.add(i);
+            }
+        }
+        if (roll < 0) throw new IOException("Answer sheet header has no roll column");
+        if (!unknown.isEmpty()) throw new IOException("Not question ids of this bank: " + String.join(", ", unknown));
+        if (cols.isEmpty()) throw new IOException("Answer sheet header has no question columns");
+        rollCol = roll;
+        nameCol = name;
+        classCol = cls;
+        subjectCol = subj;
+        questionCols = cols.stream().mapToInt(Integer::intValue).toArray();
+        questions = idx.stream().mapToInt(Integer::intValue).toArray();
+        this.subject = subject != null ? subject : subj >= 0 ? null : questionsSubject();
+    }
+
+    private String questionsSubject() {
+        String s = bank.subject(questions[0]);
+        for (int i : questions) if (!bank.subject(i).equals(s)) return "Mixed";
+        return s;
+    }
+
+    /** Grades every sheet of {@code in} (after its header) into {@code out}, using {@code threads} workers. */
+    Summary grade(BufferedReader in, Writer out, int threads) throws IOException {
+        long t0 = System.nanoTime();
+        Summary sum = new Summary();
+        sum.questions = questions.length;
+        sum.counts = new long[questions.length][CHOICES + Question.MAX_OPTIONS];
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "skillnest-grader");
+            t.setDaemon(true);
+            return t;
+        });
+        ArrayDeque<Future<Graded>> inFlight = new ArrayDeque<>();
+        try {
+            out.write(ScoreStore.HEADER + "\n");
+            long lineNo = 1; // header
+            List<String> chunk = new ArrayList<>(CHUNK);
+            String ln;
+            while (true) {
+                ln = in.readLine();
+                if (ln != null) {
+                    chunk.add(ln);
+                    if (chunk.size() < CHUNK) continue;
+                }
+                if (!chunk.isEmpty()) {
+                    List<String> lines = chunk;
+                    long first = lineNo + 1;
+                    lineNo += lines.size();
+                    inFlight.add(pool.submit(() -> gradeChunk(lines, first)));
+                    chunk = new ArrayList<>(CHUNK);
+                }
+                // bounded read-ahead; results are written in input order
+                while (!inFlight.isEmpty() && (ln == null || inFlight.size() >= 2 * threads)) drain(inFlight.poll(), out, sum);
+                if (ln == null) break;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        sum.millis = (System.nanoTime() - t0) / 1_000_000;
+        return sum;
+    }
+
+    private static void drain(Future<Graded> f, Writer out, Summary sum) throws IOException {
+        Graded g;
+        try {
+            g = f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Grading interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Grading failed: " + e.getCause(), e.getCause());
+        }
+        out.write(g.csv.toString());
+        sum.sheets += g.sheets;
+        sum.malformed += g.malformed;
+        sum.invalidAnswers += g.invalid;
+        sum.unanswered += g.unanswered;
+        sum.correct += g.correct;
+        for (String p : g.problems) if (sum.problems.size() < MAX_PROBLEMS) sum.problems.add(p);
+        for (int q = 0; q < g.counts.length; q++) {
+            for (int k = 0; k < g.counts[q].length; k++) sum.counts[q][k] += g.counts[q][k];
+        }
+    }
+
+    private Graded gradeChunk(List<String> lines, long firstLine) {
+        Graded g = new Graded();
+        g.counts = new long[questions.length][CHOICES + Question.MAX_OPTIONS];
+        for (int k = 0; k < lines.size(); k++) {
+            String ln = lines.get(k);
+            if (ln.trim().isEmpty()) continue;
+            List<String> f = ScoreStore.splitCsvLine(ln);
+            String roll = f.size() == width ? f.get(rollCol).trim() : null;
+            if (roll == null || roll.isEmpty()) {
+                g.malformed++;
+                g.problems.add("line " + (firstLine + k) + ": " + (roll == null ? f.size() + " fields, expected " + width : "no roll"));
+                continue;
+            }
+            int score = 0;
+            for (int q = 0; q < questions.length; q++) {
+                int chosen = option(f.get(questionCols[q]));
+                if (chosen >= bank.optionCount(questions[q])) {
+                    g.invalid++;
+                    chosen = -1;
+                }
+                if (chosen < 0) {
+                    g.unanswered++;
+                    g.counts[q][UNANSWERED]++;
+                    continue;
+                }
+                g.counts[q][CHOICES + chosen]++;
+                if (chosen == bank.correctIndex(questions[q])) {
+                    score++;
+                    g.counts[q][CORRECT]++;
+                }
+            }
+            g.sheets++;
+            g.correct += score;
+            g.csv.append(ScoreStore.toCsvLine(roll, field(f, nameCol), field(f, classCol),
+                    subject != null ? subject : field(f, subjectCol), String.valueOf(score), String.valueOf(questions.length), timestamp)).append('\n');
+        }
+        return g;
+    }
+
+    private static String field(List<String> f, int col) { return col < 0 ? "" : f.get(col).trim(); }
+
+    // "B" / "b" -> 1; blank -> -1; anything else -> MAX_OPTIONS (unreadable)
+    static int option(String cell) {
+        String s = cell.trim();
+        if (s.isEmpty()) return -1;
+        char c = s.length() == 1 ? Character.toUpperCase(s.charAt(0)) : 0;
+        return c >= 'A' && c < 'A' + Question.MAX_OPTIONS ? c - 'A' : Question.MAX_OPTIONS;
+    }
+
+    // ===== Item report =====
+    void writeItems(Summary sum, Path file) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder h = new StringBuilder("QuestionId,Subject,Question,Correct,Attempts,PercentCorrect,Unanswered");
+            for (int o = 0; o < Question.MAX_OPTIONS; o++) h.append(',').append((char) ('A' + o));
+            bw.write(h + "\n");
+            for (int q = 0; q < questions.length; q++) {
+                int i = questions[q];
+                long[] c = sum.counts[q];
+                List<String> fields = new ArrayList<>(Arrays.asList(String.valueOf(bank.idCode(i)), bank.subject(i), bank.question(i),
+                        String.valueOf((char) ('A' + bank.correctIndex(i))), String.valueOf(sum.sheets),
+                        String.format("%.1f", sum.sheets == 0 ? 0 : 100.0 * c[CORRECT] / sum.sheets), String.valueOf(c[UNANSWERED])));
+                for (int o = 0; o < Question.MAX_OPTIONS; o++) fields.add(o < bank.optionCount(i) ? String.valueOf(c[CHOICES + o]) : "");
+                bw.write(ScoreStore.toCsvLine(fields.toArray(new String[0])) + "\n");
+            }
+        }
+    }
+
+    // adds the sheets' answers to an ItemStats file (loaded first, so earlier counts are kept)
+    void mergeItemStats(Summary sum, Path file) throws IOException {
+        ItemStats stats = new ItemStats(file);
+        stats.load();
+        for (int q = 0; q < questions.length; q++) {
+            long[] c = sum.counts[q];
+            stats.recordCounts(bank.get(questions[q]), c[UNANSWERED], Arrays.copyOfRange(c, CHOICES, c.length));
+        }
+        stats.save();
+    }
+
+    // ===== Command line =====
+    public static void main(String[] args) throws IOException {
+        Path sheets = null, bankFile = Paths.get("questions.json"), out = Paths.get("graded_scores.csv"), itemStats = null;
+        String subject = null, timestamp = ZonedDateTime.now().toString();
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--bank": bankFile = Paths.get(args[++i]); break;
+                case "--out": out = Paths.get(args[++i]); break;
+                case "--subject": subject = args[++i]; break;
+                case "--timestamp": timestamp = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--itemstats": itemStats = Paths.get(args[++i]); break;
+                default: sheets = Paths.get(args[i]);
+            }
+        }
+        if (sheets == null) {
+            System.err.println("usage: java BulkGrader sheets.csv[.gz] [--bank questions.json] [--out graded_scores.csv] [--subject S]"
+                    + " [--timestamp ISO] [--threads N] [--itemstats file]");
+            System.exit(2);
+        }
+        CompactBank bank = QuestionLoader.load(bankFile).questions;
+        InputStream raw = QuestionLoader.isGzip(sheets) ? QuestionLoader.inflate(sheets) : Files.newInputStream(sheets);
+        String name = out.getFileName().toString();
+        Path items = out.resolveSibling((name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name) + "-items.csv");
+        BulkGrader grader;
+        Summary sum;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(raw, StandardCharsets.UTF_8), QuestionLoader.GZIP_BUFFER);
+             BufferedWriter bw = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            String header = br.readLine();
+            if (header == null) throw new IOException(sheets + " is empty");
+            grader = new BulkGrader(bank, ScoreStore.splitCsvLine(header), subject, timestamp);
+            sum = grader.grade(br, bw, threads);
+        }
+        grader.writeItems(sum, items);
+        if (itemStats != null) grader.mergeItemStats(sum, itemStats);
+        System.out.println(sum);
+        for (String p : sum.problems) System.out.println("  " + p);
+        if (sum.malformed > sum.problems.size()) System.out.println("  ... " + (sum.malformed - sum.problems.size()) + " more");
+        System.out.println("[grade] wrote " + out + " and " + items + (itemStats == null ? "" : ", updated " + itemStats));
+    }
+}
@@ -0,0 +1,225 @@
+// CompactBank.java
+// Memory-compact, read-only question bank. Subjects are dictionary-encoded; all question, option and explanation
+// text lives in one byte arena (Latin-1 when the bank is pure ASCII, UTF-8 otherwise) addressed by an offset
+// table, with any number of options per question. Question objects are only materialized by get(i).
+//
+// Per question the arena holds consecutive fields [question, explanation, option 0 .. option k-1];
+// fieldStart[firstField[i] + f] is where field f starts and the next entry is where it ends.
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+final class CompactBank extends AbstractList<Question> implements RandomAccess {
+    static final CompactBank EMPTY = new Builder().build();
+
+    private final String[] subjects;
+    private final short[] subjectOf;
+    private final byte[] arena;
+    private final Charset charset;
+    private final int[] fieldStart;
+    private final int[] firstField;   // size n + 1
+    private final byte[] correct;
+    private final int[] idCodes;      // Question.idCode per question
+    private final int[] idTable;      // open addressing on idCode: slot -> index + 1, 0 = empty
+    private final short[] groupOf;    // subject id -> id of its first case-insensitive spelling
+    private final Map<String, Integer> groupIds = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final int[][] bySubject;  // question indices per group id, in bank order (empty for other ids)
+
+    private CompactBank(Builder b) {
+        int n = b.n;
+        subjects = b.subjects.toArray(new String[0]);
+        subjectOf = Arrays.copyOf(b.subjectOf, n);
+        arena = Arrays.copyOf(b.arena, b.arenaLen);
+        charset = b.ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+        fieldStart = Arrays.copyOf(b.fieldStart, b.fields + 1);
+        fieldStart[b.fields] = b.arenaLen;
+        firstField = Arrays.copyOf(b.firstField, n + 1);
+        firstField[n] = b.fields;
+        correct = Arrays.copyOf(b.correct, n);
+        idCodes = Arrays.copyOf(b.idCodes, n);
+
+        idTable = new int[Integer.highestOneBit(Math.max(4, n * 2 - 1)) << 1];
+        int mask = idTable.length - 1;
+        for (int i = 0; i < n; i++) {
+            int slot = mix(idCodes[i]) & mask;
+            while (idTable[slot] != 0) slot = (slot + 1) & mask;
+            idTable[slot] = i + 1;
+        }
+
+        // "Maths" and "maths" keep their own spelling in get(i) but are one subject for lookups
+        groupOf = new short[subjects.length];
+        for (int s = 0; s < subjects.length; s++) groupOf[s] = (short) (int) groupIds.computeIfAbsent(subjects[s], k -> groupIds.size());
+        int[] counts = new int[subjects.length];
+        for (int i = 0; i < n; i++) counts[subjectId(i)]++;
+        bySubject = new int[subjects.length][];
+        for (int s = 0; s < subjects.length; s++) bySubject[s] = new int[counts[s]];
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < n; i++) bySubject[subjectId(i)][counts[subjectId(i)]++] = i;
+    }
+
+    @Override
+    public int size() { return subjectOf.length; }
+
+    @Override
+    public Question get(int i) {
+        int k = optionCount(i);
+        String[] opts = new String[k];
+        for (int o = 0; o < k; o++) opts[o] = field(i, 2 + o);
+        return new Question(subjects[subjectOf[i]], field(i, 0), opts, correct[i], field(i, 1));
+    }
+
+    String subject(int i) { return subjects[subjectOf[i]]; }
+    String question(int i) { return field(i, 0); }
+    String explanation(int i) { return field(i, 1); }
+    int optionCount(int i) { return firstField[i + 1] - firstField[i] - 2; }
+    String option(int i, int o) { return field(i, 2 + o); }
+    int correctIndex(int i) { return correct[i]; }
+    int idCode(int i) { return idCodes[i]; }
+
+    /** Subject id of question {@code i}; spellings that differ only in case share one id, below subjectCount(). */
+    int subjectId(int i) { return groupOf[subjectOf[i]]; }
+    int subjectCount() { return subjects.length; }
+
+    /** Subject id for a subject name (case-insensitive), or -1. */
+    int subjectId(String subject) {
+        Integer g = subject == null ? null : groupIds.get(subject);
+        return g == null ? -1 : g;
+    }
+
+    /** Indices of the subject's questions in bank order (shared array; do not modify). */
+    int[] indicesOf(String subject) {
+        int s = subjectId(subject);
+        return s < 0 ? new int[0] : bySubject[s];
+    }
+
+    /** First question with this {@link Question#idCode}, or -1. */
+    int findById(int idCode) {
+        int mask = idTable.length - 1;
+        for (int slot = mix(idCode) & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            int i = idTable[slot] - 1;
+            if (idCodes[i] == idCode) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Question)) return -1;
+        Question q = (Question) o;
+        int id = Question.idCode(q), mask = idTable.length - 1;
+        for (int slot = mix(id) & mask; idTable[slot] != 0; slot = (slot + 1) & mask) {
+            int i = idTable[slot] - 1;
+            if (idCodes[i] == id && get(i).equals(q)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) { return indexOf(o) >= 0; }
+
+    /** Bytes held by this bank's arrays (excluding the subject strings), for reporting. */
+    long footprintBytes() {
+        long b = arena.length + (subjectOf.length + groupOf.length) * 2L + correct.length + (fieldStart.length + firstField.length + idCodes.length + idTable.length) * 4L;
+        for (int[] s : bySubject) b += s.length * 4L + 16;
+        return b;
+    }
+
+    private String field(int i, int f) {
+        int k = firstField[i] + f;
+        return new String(arena, fieldStart[k], fieldStart[k + 1] - fieldStart[k], charset);
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    // ===== Builder =====
+    static final class Builder implements QuestionLoader.Sink {
+        private final List<String> subjects = new ArrayList<>();
+        private final Map<String, Integer> subjectIds = new HashMap<>();
+        private short[] subjectOf = new short[64];
+        private byte[] correct = new byte[64];
+        private int[] idCodes = new int[64];
+        private int[] firstField = new int[65];
+        private int[] fieldStart = new int[64 * 6];
+        private byte[] arena = new byte[64 * 256];
+        private int n, fields, arenaLen;
+        private boolean ascii = true;
+        private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+        @Override
+        public void add(String subject, String question, String[] options, int correctIndex, String explanation) {
+            if (options.length > Question.MAX_OPTIONS) throw new IllegalArgumentException("More than " + Question.MAX_OPTIONS + " options");
+            if (n == subjectOf.length) grow(capacity(subjectOf.length, n + 1L));
+            subjectOf[n] = subjectId(subject);
+            correct[n] = (byte) correctIndex;
+            idCodes[n] = Objects.hash(subject, question);
+            firstField[n] = fields;
+            text(question);
+            text(explanation == null ? "" : explanation);
+            for (String o : options) text(o == null ? "" : o);
+            n++;
+        }
+
+        int size() { return n; }
+
+        /** Appends everything {@code other} holds with bulk copies; its subjects are mapped onto this dictionary. */
+        void append(Builder other) {
+            if (n + (long) other.n > subjectOf.length) grow(capacity(subjectOf.length, (long) n + other.n));
+            if (fields + (long) other.fields + 1 > fieldStart.length) fieldStart = Arrays.copyOf(fieldStart, capacity(fieldStart.length, (long) fields + other.fields + 1));
+            if (arenaLen + (long) other.arenaLen > arena.length) arena = Arrays.copyOf(arena, capacity(arena.length, (long) arenaLen + other.arenaLen));
+            short[] sid = new short[other.subjects.size()];
+            for (int s = 0; s < sid.length; s++) sid[s] = subjectId(other.subjects.get(s));
+            for (int i = 0; i < other.n; i++) {
+                subjectOf[n + i] = sid[other.subjectOf[i]];
+                firstField[n + i] = other.firstField[i] + fields;
+            }
+            System.arraycopy(other.correct, 0, correct, n, other.n);
+            System.arraycopy(other.idCodes, 0, idCodes, n, other.n);
+            for (int f = 0; f < other.fields; f++) fieldStart[fields + f] = other.fieldStart[f] + arenaLen;
+            System.arraycopy(other.arena, 0, arena, arenaLen, other.arenaLen);
+            n += other.n;
+            fields += other.fields;
+            arenaLen += other.arenaLen;
+            ascii &= other.ascii;
+        }
+
+        CompactBank build() { return new CompactBank(this); }
+
+        private short subjectId(String subject) {
+            Integer sid = subjectIds.get(subject);
+            if (sid == null) {
+                if (subjects.size() == Short.MAX_VALUE) throw new IllegalStateException("Too many subjects");
+                sid = subjects.size();
+                subjects.add(subject);
+                subjectIds.put(subject, sid);
+            }
+            return (short) (int) sid;
+        }
+
+        // doubles (so repeated appends stay linear) but at least to needed; an array past MAX_ARRAY cannot be built
+        private static int capacity(int current, long needed) {
+            if (needed > MAX_ARRAY) throw new IllegalStateException("Question bank too large (" + needed + " slots, max " + MAX_ARRAY + ")");
+            return (int) Math.min(MAX_ARRAY, Math.max(needed, 2L * current));
+        }
+
+        private void grow(int cap) {
+            subjectOf = Arrays.copyOf(subjectOf, cap);
+            correct = Arrays.copyOf(correct, cap);
+            idCodes = Arrays.copyOf(idCodes, cap);
+            firstField = Arrays.copyOf(firstField, cap + 1);
+        }
+
+        private void text(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (ascii && b.length != s.length()) ascii = false;
+            if (fields + 1 >= fieldStart.length) fieldStart = Arrays.copyOf(fieldStart, capacity(fieldStart.length, fields + 2L));
+            if (arenaLen + (long) b.length > arena.length) arena = Arrays.copyOf(arena, capacity(arena.length, (long) arenaLen + b.length));
+            fieldStart[fields++] = arenaLen;
+            System.arraycopy(b, 0, arena, arenaLen, b.length);
+            arenaLen += b.length;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+// DedupAnalyzer.java
+// Finds near-duplicate questions (question + options text) in the bank without comparing every pair.
+// Each question becomes a set of 5-character shingles of its normalized words; a 64-value MinHash signature is
+// split into 16 bands of 4 rows and questions sharing any band hash are candidates (LSH). Candidates are verified
+// with the exact Jaccard similarity of their shingle sets and joined into clusters (single linkage).
+//
+//   java -cp out DedupAnalyzer [questions.json] [--threshold 0.8] [--show 50]
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+final class DedupAnalyzer {
+    private DedupAnalyzer() {}
+
+    static final double DEFAULT_THRESHOLD = 0.8;
+    static final int SHINGLE = 5;
+    static final int BANDS = 16, ROWS = 4, HASHES = BANDS * ROWS;
+    static final int MAX_QUESTIONS = 1 << 24; // band keys hold the index in 24 bits; also keeps n * HASHES an int
+    private static final int SMALL_BUCKET = 32; // larger buckets are only chained, not compared pairwise
+    private static final double SLACK = 0.25;   // ~4 standard errors of a 64-value MinHash estimate
+
+    private static final long[] A = new long[HASHES], B = new long[HASHES];
+    static {
+        SplittableRandom rnd = new SplittableRandom(0x5EED_D00DL);
+        for (int i = 0; i < HASHES; i++) {
+            A[i] = rnd.nextLong() | 1;
+            B[i] = rnd.nextLong();
+        }
+    }
+
+    /** Clusters of near-duplicates over one bank; questions not in any cluster are unique. */
+    static final class Clusters {
+        final CompactBank bank;
+        final double threshold;
+        final long candidatePairs, verifiedPairs, millis;
+        private final int[] clusterOf;   // bank index -> cluster id, -1 = unique
+        private final int[][] members;   // cluster id -> bank indices in bank order, largest clusters first
+
+        Clusters(CompactBank bank, double threshold, int[] clusterOf, int[][] members, long candidatePairs, long verifiedPairs, long millis) {
+            this.bank = bank;
+            this.threshold = threshold;
+            this.clusterOf = clusterOf;
+            this.members = members;
+            this.candidatePairs = candidatePairs;
+            this.verifiedPairs = verifiedPairs;
+            this.millis = millis;
+        }
+
+        int count() { return members.length; }
+        int clusterOf(int bankIndex) { return clusterOf[bankIndex]; }
+        int[] members(int cluster) { return members[cluster]; }
+
+        /** Questions that could be dropped without losing any distinct item. */
+        int redundant() {
+            int n = 0;
+            for (int[] m : members) n += m.length - 1;
+            return n;
+        }
+
+        /** The other questions in {@code q}'s cluster (empty if it is unique or not in this bank). */
+        List<Question> matesOf(Question q) {
+            int i = bank.indexOf(q);
+            if (i < 0 || clusterOf[i] < 0) return Collections.emptyList();
+            List<Question> out = new ArrayList<>();
+            for (int m : members[clusterOf[i]]) if (m != i) out.add(bank.get(m));
+            return out;
+        }
+
+        /** Keeps the first question of each cluster in {@code ordered}, dropping its later near-duplicates. */
+        List<Question> onePerCluster(List<Question> ordered) {
+            Set<Integer> seen = new HashSet<>();
+            List<Question> out = new ArrayList<>(ordered.size());
+            for (Question q : ordered) {
+                int i = bank.indexOf(q);
+                if (i < 0 || clusterOf[i] < 0 || seen.add(clusterOf[i])) out.add(q);
+            }
+            return out;
+        }
+
+        /** Questions of {@code subject} left after {@link #onePerCluster}. */
+        int distinctCount(String subject) {
+            Set<Integer> seen = new HashSet<>();
+            int n = 0;
+            for (int i : bank.indicesOf(subject)) if (clusterOf[i] < 0 || seen.add(clusterOf[i])) n++;
+            return n;
+        }
+    }
+
+    // ===== Analysis =====
+    static Clusters analyze(CompactBank bank, double threshold) {
+        long t0 = System.nanoTime();
+        int n = bank.size();
+        if (n > MAX_QUESTIONS) throw new IllegalArgumentException("Too many questions to compare (" + n + ", max " + MAX_QUESTIONS + ")");
+        int[] sig = new int[n * HASHES];
+        IntStream.range(0, n).parallel().forEach(i -> minHash(shingles(bank, i), sig, i * HASHES));
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+        long candidates = 0, verified = 0;
+        long[] keyed = new long[n];
+        for (int band = 0; band < BANDS; band++) {
+            // (40-bit band hash, 24-bit index) sorted, so each bucket is a run of equal hashes
+            for (int i = 0; i < n; i++) {
+                long h = 0x9E3779B97F4A7C15L * (band + 1);
+                for (int r = 0; r < ROWS; r++) h = SeededOrder.mix(h, sig[i * HASHES + band * ROWS + r]);
+                keyed[i] = (h & 0xFF_FFFF_FFFFL) << 24 | i;
+            }
+            Arrays.sort(keyed);
+            for (int start = 0, end; start < n; start = end) {
+                long bucket = keyed[start] >>> 24;
+                for (end = start + 1; end < n && keyed[end] >>> 24 == bucket; end++) { /* run */ }
+                int size = end - start;
+                for (int a = start; a < end; a++) {
+                    int from = size <= SMALL_BUCKET ? start : Math.max(start, a - 1);
+                    for (int b = from; b < a; b++) {
+                        int x = (int) (keyed[a] & 0xFFFFFF), y = (int) (keyed[b] & 0xFFFFFF);
+                        candidates++;
+                        if (find(parent, x) == find(parent, y)) continue;
+                        if (estimate(sig, x, y) < threshold - SLACK) continue; // clearly below; skip the exact check
+                        verified++;
+                        if (jaccard(shingles(bank, x), shingles(bank, y)) >= threshold) parent[find(parent, x)] = find(parent, y);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (root != i) groups.computeIfAbsent(root, r -> new ArrayList<>(List.of(r))).add(i);
+        }
+        List<int[]> list = new ArrayList<>();
+        for (List<Integer> g : groups.values()) list.add(g.stream().mapToInt(Integer::intValue).sorted().toArray());
+        list.sort(Comparator.<int[]>comparingInt(m -> -m.length).thenComparingInt(m -> m[0]));
+        int[] clusterOf = new int[n];
+        Arrays.fill(clusterOf, -1);
+        int[][] members = list.toArray(new int[0][]);
+        for (int c = 0; c < members.length; c++) for (int i : members[c]) clusterOf[i] = c;
+        return new Clusters(bank, threshold, clusterOf, members, candidates, verified, (System.nanoTime() - t0) / 1_000_000L);
+    }
+
+    /** Sorted distinct shingle hashes of the question's normalized question + options text. */
+    static long[] shingles(CompactBank bank, int i) {
+        StringBuilder sb = new StringBuilder(256);
+        normalize(bank.question(i), sb);
+        for (int o = 0; o < bank.optionCount(i); o++) normalize(bank.option(i, o), sb);
+        int count = Math.max(1, sb.length() - SHINGLE + 1);
+        long[] out = new long[count];
+        for (int k = 0; k < count; k++) {
+            long h = 0;
+            for (int c = k; c < Math.min(sb.length(), k + SHINGLE); c++) h = h * 0x100000001B3L + sb.charAt(c);
+            out[k] = SeededOrder.mix(h, 0);
+        }
+        Arrays.sort(out);
+        int d = 0;
+        for (int k = 0; k < count; k++) if (k == 0 || out[k] != out[k - 1]) out[d++] = out[k];
+        return Arrays.copyOf(out, d);
+    }
+
+    // same words as QuestionSearch.tokens, each followed by one space
+    private static void normalize(String text, StringBuilder sb) {
+        for (int k = 0; k < text.length(); k++) {
+            char ch = text.charAt(k);
+            if (Character.isLetterOrDigit(ch)) sb.append(Character.toLowerCase(ch));
+            else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+        }
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') sb.append(' ');
+    }
+
+    static double jaccard(long[] a, long[] b) {
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) { common++; i++; j++; }
+            else if (a[i] < b[j]) i++;
+            else j++;
+        }
+        return common / (double) (a.length + b.length - common);
+    }
+
+    // fraction of equal signature values: an unbiased estimate of the Jaccard similarity
+    private static double estimate(int[] sig, int x, int y) {
+        int same = 0;
+        for (int h = 0; h < HASHES; h++) if (sig[x * HASHES + h] == sig[y * HASHES + h]) same++;
+        return same / (double) HASHES;
+    }
+
+    private static void minHash(long[] shingles, int[] sig, int at) {
+        Arrays.fill(sig, at, at + HASHES, Integer.MAX_VALUE);
+        for (long x : shingles) {
+            for (int h = 0; h < HASHES; h++) {
+                int v = (int) ((A[h] * x + B[h]) >>> 33);
+                if (v < sig[at + h]) sig[at + h] = v;
+            }
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // ===== Report tool =====
+    public static void main(String[] args) throws Exception {
+        Path file = Paths.get("questions.json");
+        double threshold = DEFAULT_THRESHOLD;
+        int show = 50;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threshold": threshold = Double.parseDouble(args[++i]); break;
+                case "--show": show = Integer.parseInt(args[++i]); break;
+                default: file = Paths.get(args[i]);
+            }
+        }
+        CompactBank bank = QuestionLoader.load(file).questions;
+        Clusters c = analyze(bank, threshold);
+        System.out.printf("%d questions, %d near-duplicate clusters (Jaccard >= %.2f), %d redundant questions%n",
+                bank.size(), c.count(), threshold, c.redundant());
+        System.out.printf("%d candidate pairs from %d bands x %d rows, %d verified, %d ms%n%n",
+                c.candidatePairs, BANDS, ROWS, c.verifiedPairs, c.millis);
+        for (int k = 0; k < Math.min(show, c.count()); k++) {
+            int[] m = c.members(k);
+            long[] rep = shingles(bank, m[0]);
+            System.out.printf("Cluster %d (%d questions)%n", k + 1, m.length);
+            for (int i : m) {
+                System.out.printf("  %5.2f  #%-6d %-10s id=%-11d %s%n", jaccard(rep, shingles(bank, i)), i + 1, bank.subject(i),
+                        bank.idCode(i), abbreviate(bank.question(i), 90));
+            }
+            System.out.println();
+        }
+        if (c.count() > show) System.out.println("... " + (c.count() - show) + " more clusters (use --show)");
+    }
+
+    private static String abbreviate(String s, int len) { return s.length() <= len ? s : s.substring(0, len - 3) + "..."; }
+}
@@ -0,0 +1,159 @@
+// EdtWatchdog.java
+// Detects Swing event-thread stalls: posts heartbeats to the EDT and samples its stack when one is late.
+//
+// System properties:
+//   skillnest.edt.watchdog=false      disable (enabled by default)
+//   skillnest.edt.thresholdMs=200     a dispatch longer than this counts as a stall
+//   skillnest.edt.reportSec=60        how often the report file is rewritten
+//   skillnest.edt.report=<path>       report file (default ~/skillnest_edt_stalls.txt)
+
+import javax.swing.*;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+class EdtWatchdog {
+    private final long thresholdNanos;
+    private final long sampleIntervalMs;
+    private final long reportIntervalMs;
+    private final Path reportFile;
+
+    private volatile Thread edt;
+    // nanoTime at which the pending heartbeat was posted, 0 when none is outstanding
+    private final AtomicLong pendingSince = new AtomicLong();
+    private final Map<String, FrameStats> byTopFrame = new ConcurrentHashMap<>();
+    private final AtomicLong totalStalls = new AtomicLong();
+    private final AtomicLong totalStallMillis = new AtomicLong();
+    private final long startedAt = System.currentTimeMillis();
+
+    private Thread worker;
+
+    EdtWatchdog(long thresholdMs, long reportIntervalMs, Path reportFile) {
+        this.thresholdNanos = thresholdMs * 1_000_000L;
+        this.sampleIntervalMs = Math.max(5, thresholdMs / 4);
+        this.reportIntervalMs = reportIntervalMs;
+        this.reportFile = reportFile;
+    }
+
+    /** Starts the watchdog configured from system properties; returns null when disabled. */
+    static EdtWatchdog startFromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("skillnest.edt.watchdog", "true"))) return null;
+        long threshold = Long.getLong("skillnest.edt.thresholdMs", 200L);
+        long reportSec = Long.getLong("skillnest.edt.reportSec", 60L);
+        String report = System.getProperty("skillnest.edt.report",
+                System.getProperty("user.home") + File.separator + "skillnest_edt_stalls.txt");
+        EdtWatchdog w = new EdtWatchdog(threshold, reportSec * 1000L, Paths.get(report));
+        w.start();
+        return w;
+    }
+
+    void start() {
+        worker = new Thread(this::run, "skillnest-edt-watchdog");
+        worker.setDaemon(true);
+        worker.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::writeReport, "skillnest-edt-report"));
+    }
+
+    private void run() {
+        long nextReport = System.currentTimeMillis() + reportIntervalMs;
+        long stallStart = 0;          // pendingSince value of the stall being sampled
+        String stallFrame = null;     // top frame seen in the latest sample of that stall
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long posted = pendingSince.get();
+                long now = System.nanoTime();
+                if (posted == 0) {
+                    if (stallStart != 0) {
+                        // heartbeat came back: the stall is over
+                        record(stallFrame, now - stallStart);
+                        stallStart = 0;
+                        stallFrame = null;
+                    }
+                    postHeartbeat();
+                } else if (now - posted > thresholdNanos) {
+                    stallStart = posted;
+                    String frame = sampleTopFrame();
+                    if (frame != null) stallFrame = frame;
+                }
+                if (System.currentTimeMillis() >= nextReport) {
+                    writeReport();
+                    nextReport = System.currentTimeMillis() + reportIntervalMs;
+                }
+                Thread.sleep(sampleIntervalMs);
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void postHeartbeat() {
+        long posted = System.nanoTime();
+        pendingSince.set(posted);
+        SwingUtilities.invokeLater(() -> {
+            if (edt == null) edt = Thread.currentThread();
+            pendingSince.compareAndSet(posted, 0);
+        });
+    }
+
+    // First application frame on the EDT, falling back to the raw top frame.
+    private String sampleTopFrame() {
+        Thread t = edt;
+        if (t == null) return null;
+        StackTraceElement[] st = t.getStackTrace();
+        if (st.length == 0) return null;
+        for (StackTraceElement e : st) {
+            String c = e.getClassName();
+            if (c.startsWith("java.") || c.startsWith("javax.") || c.startsWith("sun.") || c.startsWith("jdk.")
+                    || c.startsWith("com.sun.")) continue;
+            return e.getClassName() + "." + e.getMethodName() + ":" + e.getLineNumber();
+        }
+        return st[0].getClassName() + "." + st[0].getMethodName();
+    }
+
+    private void record(String frame, long nanos) {
+        long ms = nanos / 1_000_000L;
+        totalStalls.incrementAndGet();
+        totalStallMillis.addAndGet(ms);
+        FrameStats fs = byTopFrame.computeIfAbsent(frame == null ? "<unknown>" : frame, k -> new FrameStats());
+        fs.add(ms);
+    }
+
+    void writeReport() {
+        List<Map.Entry<String, FrameStats>> entries = new ArrayList<>(byTopFrame.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().totalMs.get(), a.getValue().totalMs.get()));
+        try (BufferedWriter bw = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            bw.write("SkillNest EDT stall report — " + ZonedDateTime.now() + "\n");
+            bw.write("Uptime: " + (System.currentTimeMillis() - startedAt) / 1000 + "s   threshold: "
+                    + thresholdNanos / 1_000_000L + "ms\n");
+            bw.write("Stalls: " + totalStalls.get() + "   total stalled: " + totalStallMillis.get() + "ms\n\n");
+            bw.write(String.format("%8s %10s %8s  %s%n", "count", "total ms", "max ms", "top frame"));
+            for (Map.Entry<String, FrameStats> e : entries) {
+                FrameStats fs = e.getValue();
+                bw.write(String.format("%8d %10d %8d  %s%n", fs.count.get(), fs.totalMs.get(), fs.maxMs.get(), e.getKey()));
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to write EDT stall report: " + e.getMessage());
+        }
+    }
+
+    long stallCount() { return totalStalls.get(); }
+
+    private static class FrameStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalMs = new AtomicLong();
+        final AtomicLong maxMs = new AtomicLong();
+
+        void add(long ms) {
+            count.incrementAndGet();
+            totalMs.addAndGet(ms);
+            maxMs.accumulateAndGet(ms, Math::max);
+        }
+    }
+}
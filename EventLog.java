@@ -0,0 +1,248 @@
+// EventLog.java
+// Append-only binary log of every quiz interaction (start, show, select, next, back, time-out, finish, quit, resume).
+// Callers on the EDT only write into a lock-free ring buffer; a daemon thread drains it to disk in batches.
+//
+// File: "SNEV" + format byte, then 32-byte big-endian records:
+//   long sessionId | long epochMillis | int questionId | int elapsedMs (on this question)
+//   | short questionIndex | byte type | byte displayed | byte original | 3 bytes padding   (-1 = none)
+//
+//   java -cp out EventLog [file]                 list sessions
+//   java -cp out EventLog [file] <sessionIdHex>  print one session's events
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+class EventLog {
+    static final byte START = 1, SHOW = 2, SELECT = 3, NEXT = 4, BACK = 5, TIMEOUT = 6, FINISH = 7, QUIT = 8, RESUME = 9;
+    private static final String[] TYPE_NAMES = {"?", "START", "SHOW", "SELECT", "NEXT", "BACK", "TIMEOUT", "FINISH", "QUIT", "RESUME"};
+
+    static final int RECORD_BYTES = 32;
+    private static final byte[] MAGIC = {'S', 'N', 'E', 'V', 1};
+    private static final int CAPACITY = 1 << 14;        // records; producers drop (and count) when it is full
+    private static final int BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+    private static final SecureRandom IDS = new SecureRandom();
+
+    // ===== Ring buffer (multi-producer, single consumer) =====
+    // Slot i is free for ticket t when seq[i] == t and readable when seq[i] == t + 1.
+    private final long[] slots = new long[CAPACITY * 4];
+    private final AtomicLongArray seq = new AtomicLongArray(CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head;                                  // consumer side, guarded by drain()'s lock
+
+    private final Path file;
+    private FileChannel channel;
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH * RECORD_BYTES);
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    EventLog(Path file) {
+        this.file = file;
+        for (int i = 0; i < CAPACITY; i++) seq.set(i, i);
+        drainer = new Thread(this::drainLoop, "skillnest-eventlog");
+        drainer.setDaemon(true);
+        drainer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "skillnest-eventlog-flush"));
+    }
+
+    Path file() { return file; }
+
+    long dropped() { return dropped.get(); }
+
+    static long newSessionId() {
+        long id;
+        do { id = IDS.nextLong(); } while (id == 0);
+        return id;
+    }
+
+    /** Records one event without blocking; returns false (and counts a drop) if the buffer is full. */
+    boolean record(long sessionId, byte type, int questionIndex, int questionId, int displayed, int original, long elapsedMs) {
+        long ticket;
+        for (;;) {
+            ticket = tail.get();
+            long s = seq.get(slot(ticket));
+            if (s == ticket) {
+                if (tail.compareAndSet(ticket, ticket + 1)) break;
+            } else if (s < ticket) {
+                if (dropped.getAndIncrement() == 0) System.err.println("Event log buffer full; dropping events");
+                return false;
+            }
+        }
+        int base = slot(ticket) * 4;
+        slots[base] = sessionId;
+        slots[base + 1] = System.currentTimeMillis();
+        slots[base + 2] = ((long) questionId << 32) | (Math.min(elapsedMs, Integer.MAX_VALUE) & 0xFFFFFFFFL);
+        slots[base + 3] = ((long) (questionIndex & 0xFFFF) << 48) | ((long) (type & 0xFF) << 40)
+                | ((long) (displayed & 0xFF) << 32) | ((long) (original & 0xFF) << 24);
+        seq.lazySet(slot(ticket), ticket + 1); // publish
+        if ((ticket & (BATCH - 1)) == BATCH - 1) LockSupport.unpark(drainer); // a full batch is waiting
+        return true;
+    }
+
+    /** Writes everything recorded so far; used before replaying and at exit. */
+    void flush() {
+        try {
+            while (drain() > 0) { /* keep going until the buffer is empty */ }
+            synchronized (this) {
+                if (channel != null) channel.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Event log write failed: " + e);
+        }
+    }
+
+    void close() {
+        closed = true;
+        flush();
+        synchronized (this) {
+            try { if (channel != null) channel.close(); } catch (IOException ignored) {}
+            channel = null;
+        }
+    }
+
+    private void drainLoop() {
+        while (!closed) {
+            try {
+                if (drain() == 0) LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } catch (IOException e) {
+                System.err.println("Event log write failed: " + e);
+                LockSupport.parkNanos(IDLE_PARK_NANOS * 10);
+            }
+        }
+    }
+
+    // moves up to one batch from the ring to the file; returns the number of records written
+    private synchronized int drain() throws IOException {
+        batch.clear();
+        int n = 0;
+        while (n < BATCH) {
+            int i = slot(head);
+            if (seq.get(i) != head + 1) break;
+            int base = i * 4;
+            for (int k = 0; k < 4; k++) batch.putLong(slots[base + k]);
+            seq.lazySet(i, head + CAPACITY); // free for the ticket one lap ahead
+            head++;
+            n++;
+        }
+        if (n == 0) return 0;
+        batch.flip();
+        if (channel == null) channel = openForAppend(file);
+        while (batch.hasRemaining()) channel.write(batch);
+        return n;
+    }
+
+    // a record torn by a crash is cut off, so the records written after it stay aligned
+    private static FileChannel openForAppend(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        long size = ch.size();
+        if (size < MAGIC.length) {
+            ch.truncate(0);
+            ch.write(ByteBuffer.wrap(MAGIC), 0);
+            size = MAGIC.length;
+        } else {
+            long whole = MAGIC.length + (size - MAGIC.length) / RECORD_BYTES * RECORD_BYTES;
+            if (whole != size) {
+                System.err.println("Event log: dropping a torn record (" + (size - whole) + " bytes) at the end of " + file);
+                ch.truncate(whole);
+                size = whole;
+            }
+        }
+        ch.position(size);
+        return ch;
+    }
+
+    private static int slot(long ticket) { return (int) (ticket & (CAPACITY - 1)); }
+
+    // ===== Reading =====
+    static final class Event {
+        final long sessionId, epochMillis;
+        final int questionId, elapsedMs, questionIndex, displayed, original;
+        final byte type;
+
+        Event(long sessionId, long epochMillis, int questionId, int elapsedMs, int questionIndex, byte type, int displayed, int original) {
+            this.sessionId = sessionId;
+            this.epochMillis = epochMillis;
+            this.questionId = questionId;
+            this.elapsedMs = elapsedMs;
+            this.questionIndex = questionIndex;
+            this.type = type;
+            this.displayed = displayed;
+            this.original = original;
+        }
+
+        String typeName() { return type > 0 && type < TYPE_NAMES.length ? TYPE_NAMES[type] : "?" + type; }
+    }
+
+    interface EventVisitor {
+        void visit(Event e) throws IOException;
+    }
+
+    /** Streams every complete record in the file (a torn last record is ignored). */
+    static void scan(Path file, EventVisitor visitor) throws IOException {
+        if (Files.notExists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a SkillNest event log: " + file);
+            byte[] rec = new byte[RECORD_BYTES];
+            ByteBuffer bb = ByteBuffer.wrap(rec);
+            while (true) {
+                try { in.readFully(rec); } catch (EOFException eof) { return; }
+                bb.clear();
+                long sid = bb.getLong(), ts = bb.getLong();
+                int qid = bb.getInt(), elapsed = bb.getInt();
+                int idx = bb.getShort() & 0xFFFF;
+                byte type = bb.get();
+                int displayed = bb.get(), original = bb.get();
+                visitor.visit(new Event(sid, ts, qid, elapsed, idx, type, displayed, original));
+            }
+        }
+    }
+
+    static List<Event> readSession(Path file, long sessionId) throws IOException {
+        List<Event> out = new ArrayList<>();
+        scan(file, e -> { if (e.sessionId == sessionId) out.add(e); });
+        return out;
+    }
+
+    static String formatId(long sessionId) { return String.format("%016x", sessionId); }
+
+    static long parseId(String hex) { return Long.parseUnsignedLong(hex.trim(), 16); }
+
+    // ===== Reader tool =====
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(System.getProperty("user.home"), ".skillnest_events.bin");
+        String session = null;
+        for (String a : args) {
+            if (a.matches("[0-9a-fA-F]{16}")) session = a;
+            else file = Paths.get(a);
+        }
+        if (session == null) {
+            Map<Long, long[]> sessions = new LinkedHashMap<>(); // id -> {events, first ts, last ts}
+            scan(file, e -> {
+                long[] s = sessions.computeIfAbsent(e.sessionId, k -> new long[]{0, e.epochMillis, 0});
+                s[0]++;
+                s[2] = e.epochMillis;
+            });
+            System.out.printf("%-16s %8s  %-24s %s%n", "session", "events", "started", "duration");
+            for (Map.Entry<Long, long[]> e : sessions.entrySet()) {
+                long[] s = e.getValue();
+                System.out.printf("%s %8d  %-24s %ds%n", formatId(e.getKey()), s[0], Instant.ofEpochMilli(s[1]), (s[2] - s[1]) / 1000);
+            }
+            return;
+        }
+        for (Event e : readSession(file, parseId(session))) {
+            System.out.printf("%s  %-7s q#%-3d id=%-11d displayed=%-2d original=%-2d %6d ms%n", Instant.ofEpochMilli(e.epochMillis),
+                    e.typeName(), e.questionIndex + 1, e.questionId, e.displayed, e.original, e.elapsedMs);
+        }
+    }
+}
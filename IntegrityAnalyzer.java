@@ -0,0 +1,380 @@
+// IntegrityAnalyzer.java
+// Flags pairs of students whose answers agree far more than independent work explains, without comparing every
+// pair. Answers are kept in the bank's original option order (the session's shuffle undone), as bit planes per
+// student: answered, wrong and the 3-bit chosen option per question, so a pair is compared with a few word ops.
+// Candidates come from LSH: a 60-value MinHash of each student's set of wrong answers (question, option) split into
+// 20 bands of 3 rows, so pairs sharing most of their wrong answers meet in some band. Each candidate is scored by
+// the identical-incorrect statistic: on the questions both got wrong, the count of identical wrong options against
+// the count expected from the cohort's own wrong-option frequencies (z-score, then the exact Poisson-binomial tail p).
+// With n students there are n(n-1)/2 comparisons, so a pair is flagged only when p x comparisons, the number of
+// pairs at least this extreme the cohort should produce by chance alone, is at most --max-chance.
+//
+//   java -cp out IntegrityAnalyzer sheets.csv [--bank questions.json] [--max-chance 1] [--show 30] [--csv pairs.csv]
+//   java -cp out IntegrityAnalyzer --events [~/.skillnest_events.bin] [--bank questions.json] ...
+//
+// sheets.csv is a BulkGrader answer sheet (one exam). With --events every finished quiz session in the event log
+// is a student, named by its session id (EventLog lists them); sessions only meet on the questions they shared.
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+final class IntegrityAnalyzer {
+    private IntegrityAnalyzer() {}
+
+    static final int BANDS = 20, ROWS = 3, HASHES = BANDS * ROWS;
+    static final int MAX_STUDENTS = 1 << 24; // band keys hold the index in 24 bits; also keeps n * HASHES an int
+    static final int MIN_WRONG = 3;             // fewer wrong answers carry too little evidence to index
+    static final double DEFAULT_MAX_CHANCE = 1.0;
+    static final double PREFILTER_Z = 2.0;      // the exact tail is only computed above this
+    private static final int SMALL_BUCKET = 64; // larger buckets are only chained, not compared pairwise
+    private static final int PLANES = 5, ANSWERED = 0, WRONG = 1, OPTION = 2; // OPTION..OPTION+2 = option bits
+
+    private static final long[] A = new long[HASHES], B = new long[HASHES];
+    static {
+        SplittableRandom rnd = new SplittableRandom(0x1A7E_C0DEL);
+        for (int i = 0; i < HASHES; i++) {
+            A[i] = rnd.nextLong() | 1;
+            B[i] = rnd.nextLong();
+        }
+    }
+
+    /** One exam's answers: students x questions, in original option order. */
+    static final class Cohort {
+        final CompactBank bank;
+        final int[] questions;              // bank index per column
+        final List<String> students = new ArrayList<>();
+        final int words;
+        private long[] bits = new long[0];  // per student PLANES x words
+        private final long[][] picks;       // per column, per option: students who chose it
+
+        Cohort(CompactBank bank, int[] questions) {
+            this.bank = bank;
+            this.questions = questions;
+            this.words = (questions.length + 63) >>> 6;
+            this.picks = new long[questions.length][Question.MAX_OPTIONS];
+        }
+
+        int size() { return students.size(); }
+
+        /** Adds one student; {@code chosen[k]} is the original option index for column k, -1 = unanswered. */
+        void add(String student, int[] chosen) {
+            int s = students.size();
+            students.add(student);
+            if ((s + 1) * PLANES * words > bits.length) bits = Arrays.copyOf(bits, Math.max(PLANES * words * 64, bits.length * 2));
+            int base = s * PLANES * words;
+            for (int k = 0; k < questions.length; k++) {
+                int o = chosen[k];
+                if (o < 0 || o >= bank.optionCount(questions[k]) || o >= Question.MAX_OPTIONS) continue;
+                long bit = 1L << k, w = k >>> 6;
+                bits[base + ANSWERED * words + (int) w] |= bit;
+                if (o != bank.correctIndex(questions[k])) bits[base + WRONG * words + (int) w] |= bit;
+                for (int b = 0; b < 3; b++) if ((o >> b & 1) != 0) bits[base + (OPTION + b) * words + (int) w] |= bit;
+                picks[k][o]++;
+            }
+        }
+
+        int chosen(int s, int k) {
+            int base = s * PLANES * words + (k >>> 6);
+            long bit = 1L << k;
+            if ((bits[base + ANSWERED * words] & bit) == 0) return -1;
+            int o = 0;
+            for (int b = 0; b < 3; b++) if ((bits[base + (OPTION + b) * words] & bit) != 0) o |= 1 << b;
+            return o;
+        }
+
+        int wrongCount(int s) {
+            int n = 0;
+            for (int w = 0; w < words; w++) n += Long.bitCount(bits[(s * PLANES + WRONG) * words + w]);
+            return n;
+        }
+
+        /** Chance that two independent students who both got column k wrong picked the same wrong option. */
+        double sameWrongChance(int k) {
+            int correct = bank.correctIndex(questions[k]);
+            long wrong = 0, pairs = 0;
+            for (int o = 0; o < picks[k].length; o++) {
+                if (o == correct) continue;
+                wrong += picks[k][o];
+                pairs += picks[k][o] * (picks[k][o] - 1);
+            }
+            return wrong < 2 ? 1 : pairs / (double) (wrong * (wrong - 1));
+        }
+    }
+
+    /** One scored pair of students. */
+    static final class Pair {
+        final int a, b;
+        final int bothAnswered, identical, bothWrong, identicalWrong;
+        final double expected, z;
+        double p = 1, chance; // tail probability, p x comparisons (set by analyze)
+
+        Pair(int a, int b, int bothAnswered, int identical, int bothWrong, int identicalWrong, double expected, double z) {
+            this.a = a;
+            this.b = b;
+            this.bothAnswered = bothAnswered;
+            this.identical = identical;
+            this.bothWrong = bothWrong;
+            this.identicalWrong = identicalWrong;
+            this.expected = expected;
+            this.z = z;
+        }
+    }
+
+    /** Pairs within the chance limit, most suspicious first. */
+    static final class Report {
+        final Cohort cohort;
+        final List<Pair> pairs;
+        final double maxChance;
+        final int indexed;           // students with at least MIN_WRONG wrong answers
+        final long comparisons, candidates, millis;
+
+        Report(Cohort cohort, List<Pair> pairs, double maxChance, int indexed, long comparisons, long candidates, long millis) {
+            this.cohort = cohort;
+            this.pairs = pairs;
+            this.maxChance = maxChance;
+            this.indexed = indexed;
+            this.comparisons = comparisons;
+            this.candidates = candidates;
+            this.millis = millis;
+        }
+    }
+
+    // ===== Analysis =====
+    static Report analyze(Cohort c, double maxChance) {
+        long t0 = System.nanoTime();
+        int[] ids = IntStream.range(0, c.size()).filter(s -> c.wrongCount(s) >= MIN_WRONG).toArray();
+        int n = ids.length;
+        if (n > MAX_STUDENTS) throw new IllegalArgumentException("Too many answer sheets to compare (" + n + ", max " + MAX_STUDENTS + ")");
+        int[] sig = new int[n * HASHES];
+        IntStream.range(0, n).parallel().forEach(i -> minHash(c, ids[i], sig, i * HASHES));
+
+        // candidate pairs from every band, (a << 32 | b) with a < b, sorted and unique
+        long[] cand = new long[1024];
+        int cn = 0;
+        long[] keyed = new long[n];
+        for (int band = 0; band < BANDS; band++) {
+            // (40-bit band hash, 24-bit index) sorted, so each bucket is a run of equal hashes
+            for (int i = 0; i < n; i++) {
+                long h = 0x9E3779B97F4A7C15L * (band + 1);
+                for (int r = 0; r < ROWS; r++) h = SeededOrder.mix(h, sig[i * HASHES + band * ROWS + r]);
+                keyed[i] = (h & 0xFF_FFFF_FFFFL) << 24 | i;
+            }
+            Arrays.sort(keyed);
+            for (int start = 0, end; start < n; start = end) {
+                long bucket = keyed[start] >>> 24;
+                for (end = start + 1; end < n && keyed[end] >>> 24 == bucket; end++) { /* run */ }
+                int size = end - start;
+                for (int x = start; x < end; x++) {
+                    int from = size <= SMALL_BUCKET ? start : Math.max(start, x - 1);
+                    for (int y = from; y < x; y++) {
+                        int p = ids[(int) (keyed[x] & 0xFFFFFF)], q = ids[(int) (keyed[y] & 0xFFFFFF)];
+                        if (cn == cand.length) cand = Arrays.copyOf(cand, cn * 2);
+                        cand[cn++] = (long) Math.min(p, q) << 32 | Math.max(p, q);
+                    }
+                }
+            }
+        }
+        Arrays.sort(cand, 0, cn);
+        int unique = 0;
+        for (int i = 0; i < cn; i++) if (i == 0 || cand[i] != cand[i - 1]) cand[unique++] = cand[i];
+
+        double[] chance = new double[c.questions.length];
+        for (int k = 0; k < chance.length; k++) chance[k] = c.sameWrongChance(k);
+        long[] pairs = Arrays.copyOf(cand, unique);
+        long comparisons = Math.max(1, (long) n * (n - 1) / 2);
+        List<Pair> flagged = Collections.synchronizedList(new ArrayList<>());
+        Arrays.stream(pairs).parallel().forEach(key -> {
+            Pair p = score(c, (int) (key >>> 32), (int) key, chance);
+            if (p.z < PREFILTER_Z) return;
+            p.p = upperTail(c, p, chance);
+            p.chance = p.p * comparisons;
+            if (p.chance <= maxChance) flagged.add(p);
+        });
+        List<Pair> ranked = new ArrayList<>(flagged);
+        ranked.sort(Comparator.comparingDouble((Pair p) -> p.p).thenComparingDouble(p -> -p.z)
+                .thenComparingInt(p -> p.a).thenComparingInt(p -> p.b));
+        return new Report(c, ranked, maxChance, n, comparisons, unique, (System.nanoTime() - t0) / 1_000_000L);
+    }
+
+    /** Compares two students over the questions both answered. */
+    static Pair score(Cohort c, int a, int b, double[] chance) {
+        int w = c.words, pa = a * PLANES * w, pb = b * PLANES * w;
+        long[] bits = c.bits;
+        int bothAnswered = 0, identical = 0, bothWrong = 0, identicalWrong = 0;
+        double expected = 0, variance = 0;
+        for (int k = 0; k < w; k++) {
+            long answered = bits[pa + ANSWERED * w + k] & bits[pb + ANSWERED * w + k];
+            long differ = 0;
+            for (int o = 0; o < 3; o++) differ |= bits[pa + (OPTION + o) * w + k] ^ bits[pb + (OPTION + o) * w + k];
+            long same = answered & ~differ;
+            long wrong = bits[pa + WRONG * w + k] & bits[pb + WRONG * w + k];
+            bothAnswered += Long.bitCount(answered);
+            identical += Long.bitCount(same);
+            bothWrong += Long.bitCount(wrong);
+            identicalWrong += Long.bitCount(wrong & same);
+            for (long m = wrong; m != 0; m &= m - 1) {
+                double pi = chance[k * 64 + Long.numberOfTrailingZeros(m)];
+                expected += pi;
+                variance += pi * (1 - pi);
+            }
+        }
+        double z = variance > 0 ? (identicalWrong - expected) / Math.sqrt(variance) : 0;
+        return new Pair(a, b, bothAnswered, identical, bothWrong, identicalWrong, expected, z);
+    }
+
+    /** P(at least p.identicalWrong identical wrong answers) for independent students: a Poisson-binomial tail. */
+    static double upperTail(Cohort c, Pair p, double[] chance) {
+        double[] dist = new double[p.bothWrong + 1]; // dist[m] = P(m identical so far)
+        dist[0] = 1;
+        int seen = 0;
+        for (int k = 0; k < c.questions.length; k++) {
+            int a = c.chosen(p.a, k), b = c.chosen(p.b, k), correct = c.bank.correctIndex(c.questions[k]);
+            if (a < 0 || b < 0 || a == correct || b == correct) continue;
+            double pi = chance[k];
+            seen++;
+            for (int m = seen; m >= 1; m--) dist[m] = dist[m] * (1 - pi) + dist[m - 1] * pi;
+            dist[0] *= 1 - pi;
+        }
+        double tail = 0;
+        for (int m = p.identicalWrong; m <= p.bothWrong; m++) tail += dist[m];
+        return Math.min(1, tail);
+    }
+
+    // MinHash of the student's wrong answers as (column, option) tokens
+    private static void minHash(Cohort c, int s, int[] sig, int at) {
+        Arrays.fill(sig, at, at + HASHES, Integer.MAX_VALUE);
+        for (int k = 0; k < c.questions.length; k++) {
+            int o = c.chosen(s, k);
+            if (o < 0 || o == c.bank.correctIndex(c.questions[k])) continue;
+            long x = SeededOrder.mix(c.bank.idCode(c.questions[k]), o);
+            for (int h = 0; h < HASHES; h++) {
+                int v = (int) ((A[h] * x + B[h]) >>> 33);
+                if (v < sig[at + h]) sig[at + h] = v;
+            }
+        }
+    }
+
+    // ===== Inputs =====
+    /** A BulkGrader answer sheet: one exam, students named by roll. */
+    static Cohort fromAnswerSheets(Path sheets, CompactBank bank) throws IOException {
+        InputStream raw = QuestionLoader.isGzip(sheets) ? QuestionLoader.inflate(sheets) : Files.newInputStream(sheets);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(raw, StandardCharsets.UTF_8), QuestionLoader.GZIP_BUFFER)) {
+            String header = br.readLine();
+            if (header == null) throw new IOException(sheets + " is empty");
+            BulkGrader layout = new BulkGrader(bank, ScoreStore.splitCsvLine(header), "", "");
+            Cohort c = new Cohort(bank, layout.questions);
+            int[] chosen = new int[layout.questions.length];
+            String ln;
+            while ((ln = br.readLine()) != null) {
+                if (ln.trim().isEmpty()) continue;
+                List<String> f = ScoreStore.splitCsvLine(ln);
+                if (f.size() != layout.width || f.get(layout.rollCol).trim().isEmpty()) continue; // BulkGrader reports these
+                for (int k = 0; k < chosen.length; k++) chosen[k] = BulkGrader.option(f.get(layout.questionCols[k]));
+                c.add(f.get(layout.rollCol).trim(), chosen);
+            }
+            return c;
+        }
+    }
+
+    /** Finished sessions of an event log; each answer is its last selection, in original option order. */
+    static Cohort fromEventLog(Path log, CompactBank bank) throws IOException {
+        Map<Long, Map<Integer, Integer>> answers = new LinkedHashMap<>(); // session -> question id -> original option
+        Set<Long> finished = new HashSet<>();
+        EventLog.scan(log, e -> {
+            if (e.type == EventLog.SELECT && e.original >= 0) {
+                answers.computeIfAbsent(e.sessionId, k -> new HashMap<>()).put(e.questionId, e.original);
+            } else if (e.type == EventLog.FINISH) {
+                finished.add(e.sessionId);
+            }
+        });
+        answers.keySet().retainAll(finished);
+        TreeSet<Integer> columns = new TreeSet<>();
+        for (Map<Integer, Integer> m : answers.values()) {
+            for (int qid : m.keySet()) {
+                int i = bank.findById(qid);
+                if (i >= 0) columns.add(i); // questions edited or removed since are skipped
+            }
+        }
+        int[] questions = columns.stream().mapToInt(Integer::intValue).toArray();
+        Map<Integer, Integer> columnOf = new HashMap<>();
+        for (int k = 0; k < questions.length; k++) columnOf.put(bank.idCode(questions[k]), k);
+        Cohort c = new Cohort(bank, questions);
+        int[] chosen = new int[questions.length];
+        for (Map.Entry<Long, Map<Integer, Integer>> s : answers.entrySet()) {
+            Arrays.fill(chosen, -1);
+            for (Map.Entry<Integer, Integer> a : s.getValue().entrySet()) {
+                Integer k = columnOf.get(a.getKey());
+                if (k != null) chosen[k] = a.getValue();
+            }
+            c.add(EventLog.formatId(s.getKey()), chosen);
+        }
+        return c;
+    }
+
+    // ===== Report tool =====
+    public static void main(String[] args) throws IOException {
+        Path input = null, bankFile = Paths.get("questions.json"), csv = null;
+        boolean events = false;
+        double maxChance = DEFAULT_MAX_CHANCE;
+        int show = 30;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--bank": bankFile = Paths.get(args[++i]); break;
+                case "--events": events = true; break;
+                case "--max-chance": maxChance = Double.parseDouble(args[++i]); break;
+                case "--show": show = Integer.parseInt(args[++i]); break;
+                case "--csv": csv = Paths.get(args[++i]); break;
+                default: input = Paths.get(args[i]);
+            }
+        }
+        if (input == null && events) input = Paths.get(System.getProperty("user.home"), ".skillnest_events.bin");
+        if (input == null) {
+            System.err.println("usage: java IntegrityAnalyzer (sheets.csv | --events [log]) [--bank questions.json] [--max-chance 1] [--show 30] [--csv pairs.csv]");
+            System.exit(2);
+        }
+        CompactBank bank = QuestionLoader.load(bankFile).questions;
+        Cohort c = events ? fromEventLog(input, bank) : fromAnswerSheets(input, bank);
+        Report r = analyze(c, maxChance);
+        System.out.printf("%d students, %d questions; %d with >= %d wrong answers indexed%n", c.size(), c.questions.length, r.indexed, MIN_WRONG);
+        System.out.printf("%d candidate pairs from %d bands x %d rows (of %d comparisons), %d ms%n",
+                r.candidates, BANDS, ROWS, r.comparisons, r.millis);
+        System.out.printf("%d pairs expected at most %.2f time(s) by chance in this cohort%n%n", r.pairs.size(), maxChance);
+        System.out.printf("%-4s %-16s %-16s %9s %8s %6s %11s %9s %9s  %s%n", "#", "student", "student", "p", "chance", "z",
+                "same wrong", "expected", "same all", "shared wrong answers");
+        for (int k = 0; k < Math.min(show, r.pairs.size()); k++) {
+            Pair p = r.pairs.get(k);
+            System.out.printf("%-4d %-16s %-16s %9.2e %8.3f %6.2f %5d / %-3d %9.2f %5d / %-3d %s%n", k + 1, c.students.get(p.a), c.students.get(p.b),
+                    p.p, p.chance, p.z, p.identicalWrong, p.bothWrong, p.expected, p.identical, p.bothAnswered, abbreviate(sharedWrong(c, p), 50));
+        }
+        if (r.pairs.size() > show) System.out.println("... " + (r.pairs.size() - show) + " more pairs (use --show or --csv)");
+        if (csv != null) {
+            try (BufferedWriter bw = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+                bw.write("StudentA,StudentB,P,Chance,Z,IdenticalWrong,BothWrong,Expected,Identical,BothAnswered,SharedWrong\n");
+                for (Pair p : r.pairs) {
+                    bw.write(ScoreStore.toCsvLine(c.students.get(p.a), c.students.get(p.b), String.format("%.3e", p.p),
+                            String.format("%.4f", p.chance), String.format("%.3f", p.z),
+                            String.valueOf(p.identicalWrong), String.valueOf(p.bothWrong), String.format("%.3f", p.expected),
+                            String.valueOf(p.identical), String.valueOf(p.bothAnswered), sharedWrong(c, p)) + "\n");
+                }
+            }
+            System.out.println("[integrity] wrote " + csv);
+        }
+    }
+
+    // "q<id>:C" for each identical wrong answer
+    private static String sharedWrong(Cohort c, Pair p) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < c.questions.length; k++) {
+            int o = c.chosen(p.a, k);
+            if (o < 0 || o != c.chosen(p.b, k) || o == c.bank.correctIndex(c.questions[k])) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append('q').append(c.bank.idCode(c.questions[k])).append(':').append((char) ('A' + o));
+        }
+        return sb.toString();
+    }
+
+    private static String abbreviate(String s, int len) { return s.length() <= len ? s : s.substring(0, len - 3) + "..."; }
+}
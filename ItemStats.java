@@ -0,0 +1,251 @@
+// ItemStats.java
+// Per-question answer statistics: attempts / correct, option-choice distribution and a time-to-answer histogram.
+// Counters are LongAdders keyed by Question.id, updated as each answer is given or changed (QuizSession undoes the
+// previous count of a question it records again); the whole table is small enough to rewrite on every save
+// (varint binary, ~/.skillnest_itemstats). Editing a question resets its row.
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+class ItemStats {
+    private static final int MAGIC = 0x534E4953; // "SNIS"
+    private static final int FORMAT = 1;
+    static final int MAX_OPTIONS = Question.MAX_OPTIONS;
+    // upper bounds (seconds) of the time-to-answer buckets; the last bucket is everything above
+    static final int[] BUCKET_SECONDS = {2, 5, 10, 15, 20, 30, 45, 60};
+
+    static final class Item {
+        final String subject, label;
+        final long version;  // first 64 bits of Question.contentHash
+        final LongAdder attempts = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final LongAdder unanswered = new LongAdder();
+        final LongAdder totalMillis = new LongAdder();
+        final LongAdder[] choices = adders(MAX_OPTIONS);
+        final LongAdder[] latency = adders(BUCKET_SECONDS.length + 1);
+
+        Item(String subject, String label, long version) {
+            this.subject = subject;
+            this.label = label;
+            this.version = version;
+        }
+
+        /** Upper bound of the bucket holding the median answer time, in seconds; -1 = above the last bound. */
+        int medianSeconds() {
+            long total = 0;
+            for (LongAdder a : latency) total += a.sum();
+            long seen = 0;
+            for (int b = 0; b < latency.length; b++) {
+                seen += latency[b].sum();
+                if (total > 0 && seen * 2 >= total) return b < BUCKET_SECONDS.length ? BUCKET_SECONDS[b] : -1;
+            }
+            return 0;
+        }
+    }
+
+    /** One line of the "hardest questions" report. */
+    static final class Row {
+        final String subject, label;
+        final long attempts, correct, unanswered;
+        final int medianSeconds, topWrongOption;
+        final long topWrongCount;
+
+        Row(Item it) {
+            subject = it.subject;
+            label = it.label;
+            attempts = it.attempts.sum();
+            correct = it.correct.sum();
+            unanswered = it.unanswered.sum();
+            medianSeconds = it.medianSeconds();
+            int top = -1;
+            long topN = 0;
+            for (int o = 0; o < MAX_OPTIONS; o++) {
+                long n = it.choices[o].sum();
+                if (n > topN) { top = o; topN = n; }
+            }
+            topWrongOption = top;
+            topWrongCount = topN;
+        }
+
+        // smoothed so one lucky or unlucky attempt does not top the list
+        double difficulty() { return 1.0 - (correct + 1.0) / (attempts + 2.0); }
+    }
+
+    private final Path file;
+    private final ConcurrentHashMap<String, Item> items = new ConcurrentHashMap<>();
+
+    ItemStats(Path file) { this.file = file; }
+
+    /**
+     * Records the answer to one question. {@code chosenOriginal} is the original option index
+     * (-1 = unanswered / timed out), so the distribution is independent of the on-screen shuffle.
+     */
+    void record(Question q, int chosenOriginal, long spentMillis) {
+        long version = version(q);
+        Item it = items.compute(Question.id(q), (k, cur) ->
+                cur != null && cur.version == version ? cur : new Item(q.subject, label(q.question), version));
+        add(it, q, chosenOriginal, spentMillis, 1);
+    }
+
+    /** Takes back an earlier {@link #record} with the same arguments (the answer was changed or timed again). */
+    void undo(Question q, int chosenOriginal, long spentMillis) {
+        Item it = items.get(Question.id(q));
+        if (it != null && it.version == version(q)) add(it, q, chosenOriginal, spentMillis, -1);
+    }
+
+    private static void add(Item it, Question q, int chosenOriginal, long spentMillis, int n) {
+        it.attempts.add(n);
+        if (chosenOriginal < 0) it.unanswered.add(n);
+        else if (chosenOriginal == q.correctIndex) it.correct.add(n);
+        else if (chosenOriginal < MAX_OPTIONS) it.choices[chosenOriginal].add(n);
+        it.totalMillis.add(n * spentMillis);
+        it.latency[bucket(spentMillis)].add(n);
+    }
+
+    /**
+     * Adds answers collected without timings (graded answer sheets): {@code choices[o]} is how often original option
+     * o was picked, the correct one included. Answer times are left alone.
+     */
+    void recordCounts(Question q, long unanswered, long[] choices) {
+        long version = version(q);
+        Item it = items.compute(Question.id(q), (k, cur) ->
+                cur != null && cur.version == version ? cur : new Item(q.subject, label(q.question), version));
+        long answered = 0;
+        for (int o = 0; o < choices.length; o++) {
+            answered += choices[o];
+            if (o == q.correctIndex) it.correct.add(choices[o]);
+            else if (o < MAX_OPTIONS) it.choices[o].add(choices[o]);
+        }
+        it.attempts.add(answered + unanswered);
+        it.unanswered.add(unanswered);
+    }
+
+    /** Questions with at least {@code minAttempts} attempts, hardest first. */
+    List<Row> hardest(int limit, int minAttempts) {
+        List<Row> rows = new ArrayList<>();
+        for (Item it : items.values()) if (it.attempts.sum() >= minAttempts) rows.add(new Row(it));
+        rows.sort(Comparator.comparingDouble(Row::difficulty).reversed().thenComparing(r -> -r.attempts));
+        return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    int size() { return items.size(); }
+
+    /** Smoothed log-odds of a wrong answer: 0 for unseen items, positive for hard ones (prior for adaptive mode). */
+    double logitDifficulty(Question q) { return logitDifficulty(Question.idCode(q)); }
+
+    /** Same, by {@link Question#idCode}, so a compact bank can be indexed without materializing questions. */
+    double logitDifficulty(int idCode) {
+        Item it = items.get(Integer.toString(idCode));
+        if (it == null) return 0;
+        long attempts = it.attempts.sum(), correct = it.correct.sum();
+        return Math.log((attempts - correct + 1.0) / (correct + 1.0));
+    }
+
+    static int bucket(long millis) {
+        for (int b = 0; b < BUCKET_SECONDS.length; b++) if (millis <= BUCKET_SECONDS[b] * 1000L) return b;
+        return BUCKET_SECONDS.length;
+    }
+
+    // ===== Persistence =====
+    /** Adds the persisted counts to the in-memory table (answers recorded before loading are kept). */
+    synchronized void load() throws IOException {
+        if (Files.notExists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != FORMAT) throw new IOException("Not an item stats file: " + file);
+            int n = (int) readVar(in);
+            for (int i = 0; i < n; i++) {
+                String id = in.readUTF();
+                Item loaded = new Item(in.readUTF(), in.readUTF(), in.readLong());
+                Item cur = items.putIfAbsent(id, loaded);
+                // answers recorded since start-up are for the question as it is now; counts saved for an older
+                // version of it are read into the detached loaded item and dropped
+                Item it = cur == null || cur.version != loaded.version ? loaded : cur;
+                it.attempts.add(readVar(in));
+                it.correct.add(readVar(in));
+                it.unanswered.add(readVar(in));
+                it.totalMillis.add(readVar(in));
+                readAdders(in, it.choices);
+                readAdders(in, it.latency);
+            }
+        }
+    }
+
+    /** Rewrites the file from the live counters (temp file + atomic rename). */
+    synchronized void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT);
+            List<Map.Entry<String, Item>> entries = new ArrayList<>(items.entrySet());
+            writeVar(out, entries.size());
+            for (Map.Entry<String, Item> e : entries) {
+                Item it = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeUTF(it.subject);
+                out.writeUTF(it.label);
+                out.writeLong(it.version);
+                writeVar(out, it.attempts.sum());
+                writeVar(out, it.correct.sum());
+                writeVar(out, it.unanswered.sum());
+                writeVar(out, it.totalMillis.sum());
+                writeAdders(out, it.choices);
+                writeAdders(out, it.latency);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // trailing zero counters are not written
+    private static void writeAdders(DataOutputStream out, LongAdder[] a) throws IOException {
+        int n = a.length;
+        while (n > 0 && a[n - 1].sum() == 0) n--;
+        writeVar(out, n);
+        for (int i = 0; i < n; i++) writeVar(out, a[i].sum());
+    }
+
+    private static void readAdders(DataInputStream in, LongAdder[] a) throws IOException {
+        int n = (int) readVar(in);
+        for (int i = 0; i < n; i++) {
+            long v = readVar(in);
+            if (i < a.length) a[i].add(v);
+        }
+    }
+
+    static void writeVar(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVar(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long version(Question q) {
+        return Long.parseUnsignedLong(Question.contentHash(q).substring(0, 16), 16);
+    }
+
+    private static String label(String question) {
+        return question.length() <= 120 ? question : question.substring(0, 117) + "...";
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+}
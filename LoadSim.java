@@ -0,0 +1,363 @@
+// LoadSim.java
+// Synthetic exam-day load: drives N simulated students through complete quizzes against the in-process engine
+// (UserStore -> QuizSession -> ScoreStore) and reports throughput, per-operation latency and heap / GC cost.
+//
+//   javac -encoding UTF-8 -d out *.java
+//   java -cp out LoadSim [--students 10,100,1000,10000] [--bank 45] [--think-ms 8000] [--timeout-rate 0.05]
+//                        [--time-scale 0.01] [--threads <cores>] [--seed 42] [--adaptive <questions>]
+//
+// Think times and time-outs are real quiz seconds multiplied by --time-scale, so the default run compresses a
+// 15 question exam into a few seconds. "sched-lag" is how late a student's next step ran compared to when it was
+// due; when it climbs the simulator (or the engine it calls) can no longer keep up with that many students.
+// --adaptive runs every student through an adaptive quiz of that length on one shared AdaptiveIndex.
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+final class LoadSim {
+    private static final String[] OPS = {"login", "start", "answer", "finish", "sched-lag"};
+    private static final int LOGIN = 0, START = 1, ANSWER = 2, FINISH = 3, LAG = 4;
+    private static final String PASSWORD = "pw";
+
+    private final int bankSize;
+    private final double thinkMs, timeoutRate, timeScale;
+    private final int threads;
+    private final long seed;
+    private final int adaptiveLength; // 0 = whole subject, shuffled
+
+    LoadSim(int bankSize, double thinkMs, double timeoutRate, double timeScale, int threads, long seed, int adaptiveLength) {
+        this.bankSize = bankSize;
+        this.thinkMs = thinkMs;
+        this.timeoutRate = timeoutRate;
+        this.timeScale = timeScale;
+        this.threads = threads;
+        this.seed = seed;
+        this.adaptiveLength = adaptiveLength;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] levels = {10, 100, 1000, 10000};
+        int bank = 45, threads = Runtime.getRuntime().availableProcessors();
+        double think = 8000, timeoutRate = 0.05, scale = 0.01;
+        long seed = 42;
+        int adaptive = 0;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (i + 1 >= args.length) { usage(); return; }
+            String v = args[++i];
+            switch (a) {
+                case "--students": levels = Arrays.stream(v.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray(); break;
+                case "--bank": bank = Integer.parseInt(v); break;
+                case "--think-ms": think = Double.parseDouble(v); break;
+                case "--timeout-rate": timeoutRate = Double.parseDouble(v); break;
+                case "--time-scale": scale = Double.parseDouble(v); break;
+                case "--threads": threads = Integer.parseInt(v); break;
+                case "--seed": seed = Long.parseLong(v); break;
+                case "--adaptive": adaptive = Integer.parseInt(v); break;
+                default: usage(); return;
+            }
+        }
+
+        LoadSim sim = new LoadSim(bank, think, timeoutRate, scale, threads, seed, adaptive);
+        System.out.printf("bank=%d questions, think=%.0f ms x %.3f, timeout-rate=%.2f, threads=%d%s%n%n",
+                bank, think, scale, timeoutRate, threads, adaptive > 0 ? ", adaptive " + adaptive : "");
+        for (int n : levels) sim.run(n).print();
+    }
+
+    private static void usage() {
+        System.err.println("usage: LoadSim [--students 10,100,1000,10000] [--bank n] [--think-ms ms] [--timeout-rate p]"
+                + " [--time-scale f] [--threads n] [--seed s] [--adaptive n]");
+    }
+
+    // ===== One level =====
+    Report run(int students) throws Exception {
+        Path dir = Files.createTempDirectory("skillnest-loadsim");
+        try {
+            Path bankFile = dir.resolve("questions.json");
+            Files.write(bankFile, QuizBench.toJson(QuizBench.syntheticQuestions(bankSize, seed)).getBytes(StandardCharsets.UTF_8));
+            CompactBank bank = QuestionLoader.load(bankFile).questions;
+            AdaptiveIndex index = adaptiveLength > 0 ? AdaptiveIndex.build(bank, null) : null;
+            UserStore users = new UserStore(writeUsers(dir, students));
+            ScoreStore scores = new ScoreStore(dir.resolve("scores"));
+            users.warm();
+
+            Recorder[] rec = new Recorder[OPS.length];
+            for (int i = 0; i < rec.length; i++) rec[i] = new Recorder();
+            AtomicLong failures = new AtomicLong(), timeouts = new AtomicLong();
+
+            System.gc();
+            GcSnapshot gc0 = GcSnapshot.take();
+            for (MemoryPoolMXBean p : ManagementFactory.getMemoryPoolMXBeans()) if (p.getType() == MemoryType.HEAP) p.resetPeakUsage();
+
+            ScheduledExecutorService pool = Executors.newScheduledThreadPool(threads, r -> {
+                Thread t = new Thread(r, "loadsim");
+                t.setDaemon(true);
+                return t;
+            });
+            CountDownLatch done = new CountDownLatch(students);
+            long t0 = System.nanoTime();
+            SplittableRandom root = new SplittableRandom(seed);
+            String[] subjects = bank.stream().map(q -> q.subject).distinct().toArray(String[]::new);
+            for (int s = 0; s < students; s++) {
+                Student st = new Student(s, subjects[s % subjects.length], root.split(), bank, index, users, scores, rec, failures, timeouts, pool, done);
+                // arrivals spread over one think time, like a room logging in
+                st.schedule(LOGIN, (long) (st.rnd.nextDouble() * thinkMs * timeScale * 1e6));
+            }
+            done.await();
+            long wall = System.nanoTime() - t0;
+            pool.shutdownNow();
+
+            long heapPeak = 0;
+            for (MemoryPoolMXBean p : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (p.getType() == MemoryType.HEAP && p.getPeakUsage() != null) heapPeak += p.getPeakUsage().getUsed();
+            }
+            GcSnapshot gc1 = GcSnapshot.take();
+            return new Report(students, wall, rec, failures.get(), timeouts.get(), heapPeak,
+                    gc1.count - gc0.count, gc1.millis - gc0.millis, scores.loadRows().size());
+        } finally {
+            // the score log is a folder tree of read-only segments
+            try (Stream<Path> all = Files.walk(dir)) {
+                for (Path p : all.sorted(Comparator.reverseOrder()).toList()) {
+                    p.toFile().setWritable(true);
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    // one shared hash; registerUser re-reads the whole file per call, which would dominate setup
+    private static Path writeUsers(Path dir, int n) throws IOException {
+        Path probe = dir.resolve("probe");
+        new UserStore(probe).registerUser("s0", PASSWORD);
+        String hash = Files.readAllLines(probe).get(0).substring(3);
+        Files.delete(probe);
+        Path users = dir.resolve("users");
+        try (BufferedWriter bw = Files.newBufferedWriter(users, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < n; i++) bw.write("s" + i + "," + hash + "\n");
+        }
+        return users;
+    }
+
+    // ===== Simulated student =====
+    // A small state machine; each step is a task on the shared scheduler, so at most one thread touches it at a time.
+    private final class Student {
+        final int id;
+        final String subject;
+        final SplittableRandom rnd;
+        final List<Question> bank;
+        final AdaptiveIndex index;
+        final UserStore users;
+        final ScoreStore scores;
+        final Recorder[] rec;
+        final AtomicLong failures, timeouts;
+        final ScheduledExecutorService pool;
+        final CountDownLatch done;
+        final boolean diligent; // false: this student lets some questions run out of time
+        QuizSession session;
+
+        Student(int id, String subject, SplittableRandom rnd, List<Question> bank, AdaptiveIndex index, UserStore users, ScoreStore scores,
+                Recorder[] rec, AtomicLong failures, AtomicLong timeouts, ScheduledExecutorService pool, CountDownLatch done) {
+            this.id = id;
+            this.subject = subject;
+            this.rnd = rnd;
+            this.bank = bank;
+            this.index = index;
+            this.users = users;
+            this.scores = scores;
+            this.rec = rec;
+            this.failures = failures;
+            this.timeouts = timeouts;
+            this.pool = pool;
+            this.done = done;
+            this.diligent = rnd.nextDouble() >= timeoutRate;
+        }
+
+        void schedule(int op, long delayNanos) {
+            long due = System.nanoTime() + delayNanos;
+            pool.schedule(() -> step(op, due), delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void step(int op, long due) {
+            long t0 = System.nanoTime();
+            rec[LAG].record(t0 - due);
+            try {
+                switch (op) {
+                    case LOGIN: {
+                        if (!users.authenticateUser("s" + id, PASSWORD)) throw new IllegalStateException("login rejected");
+                        rec[LOGIN].record(System.nanoTime() - t0);
+                        schedule(START, think());
+                        return;
+                    }
+                    case START: {
+                        Metrics.QUIZZES_STARTED.inc();
+                        session = index != null
+                                ? QuizSession.adaptive("s" + id, "Student " + id, "10-A", subject, index, adaptiveLength, rnd.nextLong())
+                                : QuizSession.fixed("s" + id, "Student " + id, "10-A", subject, bank, rnd.nextLong());
+                        session.prepareNext();
+                        rec[START].record(System.nanoTime() - t0);
+                        nextAnswer();
+                        return;
+                    }
+                    case ANSWER: {
+                        session.select(rnd.nextInt(session.currentQuestion().options.length));
+                        boolean last = session.isLast();
+                        if (!last) {
+                            session.advance();
+                            session.prepareNext();
+                        }
+                        rec[ANSWER].record(System.nanoTime() - t0);
+                        if (last) schedule(FINISH, 0); else nextAnswer();
+                        return;
+                    }
+                    case FINISH: {
+                        int correct = session.correctCount();
+                        Metrics.QUIZZES_FINISHED.inc();
+                        scores.append(session.roll, session.name, session.cls, session.subject,
+                                String.valueOf(correct), String.valueOf(session.size()), Instant.now().toString());
+                        rec[FINISH].record(System.nanoTime() - t0);
+                        done.countDown();
+                        return;
+                    }
+                    default:
+                        throw new IllegalArgumentException("op " + op);
+                }
+            } catch (Exception e) {
+                if (failures.getAndIncrement() == 0) e.printStackTrace();
+                done.countDown();
+            }
+        }
+
+        // time-outs advance without an answer, exactly like the quiz screen's timer
+        private void nextAnswer() {
+            if (!diligent && rnd.nextInt(4) == 0) {
+                long limit = (long) (SkillNestStudentQuiz.TIME_PER_QUESTION * 1e9 * timeScale);
+                long due = System.nanoTime() + limit;
+                pool.schedule(() -> {
+                    boolean handedOn = false;
+                    try {
+                        rec[LAG].record(System.nanoTime() - due);
+                        timeouts.incrementAndGet();
+                        Metrics.TIMEOUTS.inc();
+                        if (session.isLast()) {
+                            schedule(FINISH, 0);
+                        } else {
+                            session.advance();
+                            nextAnswer();
+                        }
+                        handedOn = true;
+                    } catch (RuntimeException e) {
+                        if (failures.getAndIncrement() == 0) e.printStackTrace();
+                    } finally {
+                        if (!handedOn) done.countDown(); // this student is over; the run must not wait for them
+                    }
+                }, limit, TimeUnit.NANOSECONDS);
+                return;
+            }
+            schedule(ANSWER, think());
+        }
+
+        // exponential think time around the mean, capped below the per-question limit
+        private long think() {
+            double ms = -thinkMs * Math.log(1 - rnd.nextDouble());
+            ms = Math.min(ms, SkillNestStudentQuiz.TIME_PER_QUESTION * 1000.0 * 0.95);
+            return (long) (ms * timeScale * 1e6);
+        }
+    }
+
+    // ===== Latency recorder =====
+    // Log-linear buckets (16 per power of two), lock-free; relative error stays under ~6% from 1 ns to hours.
+    static final class Recorder {
+        private static final int SUB = 4, SUBS = 1 << SUB;
+        private final AtomicLongArray counts = new AtomicLongArray((64 - SUB + 1) * SUBS);
+        private final AtomicLong n = new AtomicLong(), max = new AtomicLong();
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            counts.incrementAndGet(index(nanos));
+            n.incrementAndGet();
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        long count() { return n.get(); }
+
+        double quantileMs(double q) {
+            long total = n.get();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(q * total), seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max.get()) / 1e6;
+            }
+            return max.get() / 1e6;
+        }
+
+        private static int index(long v) {
+            if (v < SUBS) return (int) v;
+            int msb = 63 - Long.numberOfLeadingZeros(v);
+            return (msb - SUB + 1) * SUBS + (int) ((v >>> (msb - SUB)) & (SUBS - 1));
+        }
+
+        private static long upperBound(int idx) {
+            if (idx < SUBS) return idx;
+            int msb = idx / SUBS + SUB - 1;
+            long sub = idx % SUBS;
+            return ((SUBS + sub + 1) << (msb - SUB)) - 1;
+        }
+    }
+
+    private static final class GcSnapshot {
+        long count, millis;
+
+        static GcSnapshot take() {
+            GcSnapshot s = new GcSnapshot();
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                s.count += Math.max(0, gc.getCollectionCount());
+                s.millis += Math.max(0, gc.getCollectionTime());
+            }
+            return s;
+        }
+    }
+
+    // ===== Report =====
+    static final class Report {
+        final int students;
+        final long wallNanos, failures, timeouts, heapPeak, gcCount, gcMillis;
+        final int savedRows;
+        final Recorder[] rec;
+
+        Report(int students, long wallNanos, Recorder[] rec, long failures, long timeouts, long heapPeak,
+               long gcCount, long gcMillis, int savedRows) {
+            this.students = students;
+            this.wallNanos = wallNanos;
+            this.rec = rec;
+            this.failures = failures;
+            this.timeouts = timeouts;
+            this.heapPeak = heapPeak;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+            this.savedRows = savedRows;
+        }
+
+        void print() {
+            double secs = wallNanos / 1e9;
+            System.out.printf("== %d students: %.2f s wall, %.1f quizzes/s, %.0f answers/s, %d saved, %d timeouts, %d failures%n",
+                    students, secs, rec[FINISH].count() / secs, rec[ANSWER].count() / secs, savedRows, timeouts, failures);
+            System.out.printf("   heap peak %.1f MB, GC %d collections / %d ms%n", heapPeak / 1048576.0, gcCount, gcMillis);
+            System.out.printf("   %-10s %10s %10s %10s %10s%n", "op", "count", "p50 ms", "p99 ms", "p999 ms");
+            for (int i = 0; i < OPS.length; i++) {
+                System.out.printf(Locale.ROOT, "   %-10s %10d %10.3f %10.3f %10.3f%n", OPS[i], rec[i].count(),
+                        rec[i].quantileMs(0.50), rec[i].quantileMs(0.99), rec[i].quantileMs(0.999));
+            }
+            System.out.println();
+        }
+    }
+}
@@ -8,7 +8,7 @@ import java.io.IOException;
 
 class LoginRegisterDialog {
     private final JDialog dlg;
-    private final UserStore store = new UserStore();
+    private final UserStore store;
     private String loggedInUser = null;
 
     // UI components we need to access between tabs
@@ -25,7 +25,10 @@ class LoginRegisterDialog {
     private JPasswordField regPassField;
     private JPasswordField regPass2Field;
 
-    LoginRegisterDialog(Window owner) {
+    LoginRegisterDialog(Window owner) { this(owner, new UserStore()); }
+
+    LoginRegisterDialog(Window owner, UserStore store) {
+        this.store = store;
         dlg = new JDialog(owner, "Login / Register", Dialog.ModalityType.APPLICATION_MODAL);
         dlg.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
         dlg.setSize(460, 320);
@@ -0,0 +1,242 @@
+// Metrics.java
+// Lightweight in-process metrics: LongAdder counters, gauges and fixed-bucket latency histograms.
+// Exposed over JMX (skillnest:type=Metrics) and, when -Dskillnest.metrics.port=<port> is set,
+// as Prometheus text on http://127.0.0.1:<port>/metrics.
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+final class Metrics {
+    private Metrics() {}
+
+    private static final List<Metric> ALL = new CopyOnWriteArrayList<>();
+
+    // ===== Instruments =====
+    static final Counter QUIZZES_STARTED = counter("skillnest_quizzes_started_total", "", "Quizzes started");
+    static final Counter QUIZZES_FINISHED = counter("skillnest_quizzes_finished_total", "", "Quizzes completed");
+    static final Counter ANSWERS_RECORDED = counter("skillnest_answers_recorded_total", "", "Option selections recorded");
+    static final Counter TIMEOUTS = counter("skillnest_question_timeouts_total", "", "Questions that ran out of time");
+    static final Counter SCORE_WRITES = counter("skillnest_score_writes_total", "result=\"ok\"", "Score rows written");
+    static final Counter SCORE_WRITE_FAILURES = counter("skillnest_score_writes_total", "result=\"error\"", "Score rows written");
+    static final Counter LOGIN_SUCCESS = counter("skillnest_login_attempts_total", "result=\"success\"", "Login attempts via UserStore");
+    static final Counter LOGIN_FAILURE = counter("skillnest_login_attempts_total", "result=\"failure\"", "Login attempts via UserStore");
+    static final Counter OUTBOX_BATCHES_SHIPPED = counter("skillnest_outbox_batches_total", "result=\"delivered\"", "Result batches sent to the collector");
+    static final Counter OUTBOX_RETRIES = counter("skillnest_outbox_batches_total", "result=\"retry\"", "Result batches sent to the collector");
+    static final Gauge QUESTION_BANK_SIZE = gauge("skillnest_question_bank_size", "", "Questions in the last loaded bank");
+    static final Gauge QUESTION_BANK_SNAPSHOTS = gauge("skillnest_question_bank_snapshots", "", "Bank snapshots in use (current + held by running quizzes)");
+    static final Gauge OUTBOX_PENDING = gauge("skillnest_outbox_pending", "", "Results not yet acknowledged by the collector");
+    static final Histogram SCORE_WRITE_SECONDS = histogram("skillnest_score_write_seconds", "", "Score append latency");
+    static final Histogram QUESTION_LOAD_SECONDS = histogram("skillnest_question_load_seconds", "", "Question bank load latency");
+    static final Histogram SEARCH_SECONDS = histogram("skillnest_search_seconds", "", "Question search latency");
+    static final Histogram EXPORT_REVIEW_SECONDS = histogram("skillnest_export_seconds", "kind=\"review\"", "Export duration");
+    static final Histogram EXPORT_EXPLANATIONS_SECONDS = histogram("skillnest_export_seconds", "kind=\"explanations\"", "Export duration");
+
+    static Counter counter(String name, String labels, String help) { return register(new Counter(name, labels, help)); }
+    static Gauge gauge(String name, String labels, String help) { return register(new Gauge(name, labels, help)); }
+    static Histogram histogram(String name, String labels, String help) { return register(new Histogram(name, labels, help)); }
+
+    private static <M extends Metric> M register(M m) { ALL.add(m); return m; }
+
+    // ===== Metric types =====
+    abstract static class Metric {
+        final String name, labels, help;
+        Metric(String name, String labels, String help) { this.name = name; this.labels = labels; this.help = help; }
+        abstract String type();
+        abstract void writePrometheus(StringBuilder sb);
+        String series(String suffix, String extraLabel) {
+            String l = labels;
+            if (extraLabel != null) l = l.isEmpty() ? extraLabel : l + "," + extraLabel;
+            return name + suffix + (l.isEmpty() ? "" : "{" + l + "}");
+        }
+        String jmxName() { return labels.isEmpty() ? name : name + "{" + labels + "}"; }
+    }
+
+    static final class Counter extends Metric {
+        private final LongAdder adder = new LongAdder();
+        Counter(String name, String labels, String help) { super(name, labels, help); }
+        void inc() { adder.increment(); }
+        void add(long n) { adder.add(n); }
+        long get() { return adder.sum(); }
+        String type() { return "counter"; }
+        void writePrometheus(StringBuilder sb) { sb.append(series("", null)).append(' ').append(get()).append('\n'); }
+    }
+
+    static final class Gauge extends Metric {
+        private final AtomicLong value = new AtomicLong();
+        Gauge(String name, String labels, String help) { super(name, labels, help); }
+        void set(long v) { value.set(v); }
+        long get() { return value.get(); }
+        String type() { return "gauge"; }
+        void writePrometheus(StringBuilder sb) { sb.append(series("", null)).append(' ').append(get()).append('\n'); }
+    }
+
+    /** Fixed bucket histogram; bounds are upper limits in milliseconds, the last bucket is +Inf. */
+    static final class Histogram extends Metric {
+        static final long[] BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram(String name, String labels, String help) {
+            super(name, labels, help);
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        void recordNanos(long nanos) {
+            int i = 0;
+            while (i < BOUNDS_MS.length && nanos > BOUNDS_MS[i] * 1_000_000L) i++;
+            buckets[i].increment();
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        /** Times a section: {@code long t0 = System.nanoTime(); ... h.recordSince(t0);} */
+        void recordSince(long startNanos) { recordNanos(System.nanoTime() - startNanos); }
+
+        long count() { return count.sum(); }
+        double sumSeconds() { return sumNanos.sum() / 1e9; }
+
+        /** Approximate quantile in milliseconds, interpolated inside the bucket that holds it. */
+        double quantileMs(double q) {
+            long[] snap = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < snap.length; i++) { snap[i] = buckets[i].sum(); total += snap[i]; }
+            if (total == 0) return 0;
+            double rank = q * total;
+            long seen = 0;
+            for (int i = 0; i < snap.length; i++) {
+                if (seen + snap[i] >= rank && snap[i] > 0) {
+                    double lo = i == 0 ? 0 : BOUNDS_MS[i - 1];
+                    double hi = i < BOUNDS_MS.length ? BOUNDS_MS[i] : lo * 2;
+                    return lo + (hi - lo) * ((rank - seen) / snap[i]);
+                }
+                seen += snap[i];
+            }
+            return BOUNDS_MS[BOUNDS_MS.length - 1];
+        }
+
+        String type() { return "histogram"; }
+
+        void writePrometheus(StringBuilder sb) {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < BOUNDS_MS.length ? Double.toString(BOUNDS_MS[i] / 1000.0) : "+Inf";
+                sb.append(series("_bucket", "le=\"" + le + "\"")).append(' ').append(cumulative).append('\n');
+            }
+            sb.append(series("_sum", null)).append(' ').append(sumSeconds()).append('\n');
+            sb.append(series("_count", null)).append(' ').append(cumulative).append('\n');
+        }
+    }
+
+    // ===== Prometheus text format =====
+    static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        Set<String> described = new HashSet<>();
+        // series of one family are written together so scrapers see each family once
+        for (Metric m : ALL) {
+            if (!described.add(m.name)) continue;
+            out.append("# HELP ").append(m.name).append(' ').append(m.help).append('\n');
+            out.append("# TYPE ").append(m.name).append(' ').append(m.type()).append('\n');
+            for (Metric same : ALL) if (same.name.equals(m.name)) same.writePrometheus(out);
+        }
+        return out.toString();
+    }
+
+    // ===== Exposure =====
+    private static volatile boolean started = false;
+
+    /** Registers the JMX bean and, if configured, the local HTTP endpoint. Safe to call more than once. */
+    static synchronized void startFromSystemProperties() {
+        if (started) return;
+        started = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName on = new ObjectName("skillnest:type=Metrics");
+            if (!server.isRegistered(on)) server.registerMBean(new MetricsMBean(), on);
+        } catch (JMException e) {
+            System.err.println("Unable to register metrics MBean: " + e.getMessage());
+        }
+        Integer port = Integer.getInteger("skillnest.metrics.port");
+        if (port != null) {
+            try {
+                HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+                http.createContext("/metrics", ex -> {
+                    byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                    ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    ex.sendResponseHeaders(200, body.length);
+                    try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+                });
+                http.setExecutor(null);
+                http.start();
+            } catch (IOException e) {
+                System.err.println("Unable to start metrics endpoint on port " + port + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // One read-only attribute per series; histograms expose count, sum and p50/p99 in ms.
+    private static final class MetricsMBean implements DynamicMBean {
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            for (Metric m : ALL) {
+                String base = m.jmxName();
+                if (m instanceof Counter && base.equals(attribute)) return ((Counter) m).get();
+                if (m instanceof Gauge && base.equals(attribute)) return ((Gauge) m).get();
+                if (m instanceof Histogram) {
+                    Histogram h = (Histogram) m;
+                    if (attribute.equals(base + ".count")) return h.count();
+                    if (attribute.equals(base + ".sumSeconds")) return h.sumSeconds();
+                    if (attribute.equals(base + ".p50Ms")) return h.quantileMs(0.50);
+                    if (attribute.equals(base + ".p99Ms")) return h.quantileMs(0.99);
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String a : attributes) {
+                try { list.add(new Attribute(a, getAttribute(a))); } catch (AttributeNotFoundException ignored) {}
+            }
+            return list;
+        }
+
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("read-only: " + attribute.getName());
+        }
+
+        public AttributeList setAttributes(AttributeList attributes) { return new AttributeList(); }
+
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            for (Metric m : ALL) {
+                String base = m.jmxName();
+                if (m instanceof Histogram) {
+                    attrs.add(new MBeanAttributeInfo(base + ".count", "long", m.help, true, false, false));
+                    attrs.add(new MBeanAttributeInfo(base + ".sumSeconds", "double", m.help, true, false, false));
+                    attrs.add(new MBeanAttributeInfo(base + ".p50Ms", "double", m.help, true, false, false));
+                    attrs.add(new MBeanAttributeInfo(base + ".p99Ms", "double", m.help, true, false, false));
+                } else {
+                    attrs.add(new MBeanAttributeInfo(base, "long", m.help, true, false, false));
+                }
+            }
+            return new MBeanInfo(Metrics.class.getName(), "SkillNest runtime metrics",
+                    attrs.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
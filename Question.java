@@ -1,7 +1,12 @@
 // Question.java
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.Objects;
 
 class Question {
+    static final int MAX_OPTIONS = 8; // loader accepts 2..8 options per question
+
     String subject;
     String question;
     String[] options;
@@ -14,8 +19,43 @@ class Question {
     Question(String subject, String question, String[] options, int correctIndex, String explanation) {
         this.subject = subject;
         this.question = question;
-        this.options = Arrays.copyOf(options, 4);
+        this.options = options.clone();
         this.correctIndex = correctIndex;
         this.explanation = explanation == null ? "" : explanation;
     }
+
+    // Value equality: banks hand out fresh Question objects, so sets and maps must not rely on identity.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Question)) return false;
+        Question q = (Question) o;
+        return correctIndex == q.correctIndex && Objects.equals(subject, q.subject) && Objects.equals(question, q.question)
+                && Arrays.equals(options, q.options) && Objects.equals(explanation, q.explanation);
+    }
+
+    @Override
+    public int hashCode() { return idCode(this); }
+
+    // Stable id used by the version map: subject + question text only.
+    static String id(Question q) {
+        return Integer.toString(idCode(q)); // deterministic-ish id
+    }
+
+    // Same id as an int, for fixed-size binary records.
+    static int idCode(Question q) {
+        return Objects.hash(q.subject, q.question);
+    }
+
+    // SHA-256 over all visible content; changes whenever the question is edited.
+    static String contentHash(Question q) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            String concat = q.subject + "||" + q.question + "||" + String.join("||", q.options) + "||" + q.explanation;
+            byte[] b = md.digest(concat.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte by : b) sb.append(String.format("%02x", by));
+            return sb.toString();
+        } catch (Exception e) { return Integer.toString(Objects.hash(q.subject, q.question, Arrays.toString(q.options))); }
+    }
 }
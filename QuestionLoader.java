@@ -0,0 +1,517 @@
+// QuestionLoader.java
+// Dependency-free question bank reader, usable off the EDT (no Swing calls in here).
+// The bank is one file or a directory of shards: *.json (array of objects) and *.ndjson / *.jsonl (one object
+// per line). Shards are cut into chunks of whole objects and parsed in parallel; NDJSON is split at line
+// boundaries without reading ahead, JSON arrays by one sequential scan for object ends. Chunks are merged into
+// one CompactBank in file order. Malformed objects are collected per shard (file:line: problem), not printed.
+// Any shard (or the single bank file) may be gzip-compressed (questions.json.gz, part-01.ndjson.gz): it is inflated
+// as a stream through the same sequential scan. The scan waits while 2 x threads cut chunks are still unparsed, so
+// a slow pool never holds more than that much raw (inflated) text.
+// Questions have 2..Question.MAX_OPTIONS options.
+//
+//   java -cp out QuestionLoader <file-or-directory> [--threads n]    per-shard report and load time
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+final class QuestionLoader {
+    private QuestionLoader() {}
+
+    static final int CHUNK_BYTES = 4 << 20;
+    static final int MAX_PROBLEMS_PER_SHARD = 20;
+    static final int GZIP_BUFFER = 1 << 16;
+
+    /** Receives each parsed question's fields, so a bank can store them without building Question objects. */
+    interface Sink {
+        void add(String subject, String question, String[] options, int correctIndex, String explanation);
+    }
+
+    /** Outcome of one shard file. */
+    static final class ShardReport {
+        final String name;
+        final long bytes;
+        int questions, skipped;
+        final List<String> problems = new ArrayList<>(); // "line N: what", first MAX_PROBLEMS_PER_SHARD only
+
+        ShardReport(String name, long bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+    }
+
+    static final class Result {
+        final CompactBank questions;
+        final long bytesRead;
+        final int skipped;
+        final FileTime lastModified;
+        final List<ShardReport> shards;
+
+        Result(CompactBank questions, long bytesRead, int skipped, FileTime lastModified, List<ShardReport> shards) {
+            this.questions = questions;
+            this.bytesRead = bytesRead;
+            this.skipped = skipped;
+            this.lastModified = lastModified;
+            this.shards = shards;
+        }
+
+        /** One line per shard with skipped objects, followed by their first problems; empty if all parsed. */
+        String problemReport() {
+            StringBuilder sb = new StringBuilder();
+            for (ShardReport s : shards) {
+                if (s.skipped == 0) continue;
+                sb.append(s.name).append(": ").append(s.skipped).append(" malformed object(s) skipped\n");
+                for (String p : s.problems) sb.append("  ").append(p).append('\n');
+                if (s.skipped > s.problems.size()) sb.append("  ... ").append(s.skipped - s.problems.size()).append(" more\n");
+            }
+            return sb.toString();
+        }
+    }
+
+    static Result load(Path path) throws IOException {
+        return load(path, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Reads and parses the bank; throws NoSuchFileException when it does not exist. */
+    static Result load(Path path, int threads) throws IOException {
+        QuizEvents.QuestionLoad ev = new QuizEvents.QuestionLoad();
+        ev.begin();
+        long t0 = System.nanoTime();
+        ev.file = path.toString();
+        FileTime mtime = lastModified(path);
+        List<Path> files = shards(path);
+        ev.shards = files.size();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "skillnest-bank-parse");
+            t.setDaemon(true);
+            return t;
+        });
+        List<ShardReport> reports = new ArrayList<>();
+        List<List<Future<Chunk>>> chunks = new ArrayList<>();
+        Semaphore unparsed = new Semaphore(2 * Math.max(1, threads)); // raw chunks cut by splitObjects, not yet parsed
+        long bytes = 0;
+        try {
+            for (Path f : files) {
+                long size = Files.size(f);
+                bytes += size;
+                reports.add(new ShardReport(path.equals(f) ? f.getFileName().toString() : path.relativize(f).toString(), size));
+                if (isGzip(f)) chunks.add(splitObjects(inflate(f), pool, unparsed));
+                else if (isNdjson(f)) chunks.add(splitLines(f, size, pool));
+                else chunks.add(splitObjects(Files.newInputStream(f), pool, unparsed));
+            }
+            // merge in file and chunk order; line numbers become absolute once earlier chunks are known
+            CompactBank.Builder all = new CompactBank.Builder();
+            int skipped = 0;
+            for (int s = 0; s < files.size(); s++) {
+                ShardReport rep = reports.get(s);
+                int line = 1;
+                for (Future<Chunk> fc : chunks.get(s)) {
+                    Chunk c = join(fc);
+                    all.append(c.out);
+                    rep.questions += c.out.size();
+                    rep.skipped += c.skipped;
+                    for (int k = 0; k < c.problemLines.size() && rep.problems.size() < MAX_PROBLEMS_PER_SHARD; k++) {
+                        rep.problems.add("line " + (line + c.problemLines.get(k)) + ": " + c.problems.get(k));
+                    }
+                    line += c.newlines;
+                }
+                skipped += rep.skipped;
+            }
+            CompactBank bank = all.build();
+            ev.bytesRead = bytes;
+            ev.skipped = skipped;
+            ev.questionCount = bank.size();
+            ev.commit();
+            Metrics.QUESTION_LOAD_SECONDS.recordSince(t0);
+            Metrics.QUESTION_BANK_SIZE.set(bank.size());
+            return new Result(bank, bytes, skipped, mtime, reports);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Newest modification time of the bank: the file, or the directory and every shard in it. */
+    static FileTime lastModified(Path path) throws IOException {
+        FileTime newest = Files.getLastModifiedTime(path);
+        if (Files.isDirectory(path)) {
+            for (Path f : shards(path)) {
+                FileTime t = Files.getLastModifiedTime(f);
+                if (t.compareTo(newest) > 0) newest = t;
+            }
+        }
+        return newest;
+    }
+
+    /** The shard files of a bank directory in name order (or just {@code path} for a single file). */
+    static List<Path> shards(Path path) throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(path)) {
+            if (Files.notExists(path)) throw new NoSuchFileException(path.toString());
+            out.add(path);
+            return out;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(path)) {
+            for (Path f : ds) if (Files.isRegularFile(f) && isShard(f)) out.add(f);
+        }
+        if (out.isEmpty()) throw new NoSuchFileException(path + " (no .json / .ndjson / .jsonl files, plain or .gz)");
+        out.sort(null);
+        return out;
+    }
+
+    static boolean isShard(Path f) {
+        String n = uncompressedName(f);
+        return n.endsWith(".json") || n.endsWith(".ndjson") || n.endsWith(".jsonl");
+    }
+
+    static boolean isGzip(Path f) { return f.getFileName().toString().toLowerCase().endsWith(".gz"); }
+
+    private static boolean isNdjson(Path f) {
+        String n = uncompressedName(f);
+        return n.endsWith(".ndjson") || n.endsWith(".jsonl");
+    }
+
+    // lower-cased file name without a trailing .gz
+    private static String uncompressedName(Path f) {
+        String n = f.getFileName().toString().toLowerCase();
+        return n.endsWith(".gz") ? n.substring(0, n.length() - 3) : n;
+    }
+
+    // ===== Chunking =====
+    private static final class Chunk {
+        final CompactBank.Builder out = new CompactBank.Builder();
+        int skipped, newlines;
+        final List<Integer> problemLines = new ArrayList<>(); // relative to the chunk's first line (0-based)
+        final List<String> problems = new ArrayList<>();
+    }
+
+    // NDJSON: nominal CHUNK_BYTES ranges, each moved forward to just after the next newline; workers read their own range
+    private static List<Future<Chunk>> splitLines(Path f, long size, ExecutorService pool) throws IOException {
+        List<Future<Chunk>> out = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+            long start = 0;
+            ByteBuffer probe = ByteBuffer.allocate(8192);
+            while (start < size) {
+                long end = Math.min(size, start + CHUNK_BYTES);
+                while (end < size) {
+                    probe.clear();
+                    int n = ch.read(probe, end);
+                    if (n <= 0) { end = size; break; }
+                    int nl = -1;
+                    for (int i = 0; i < n && nl < 0; i++) if (probe.get(i) == '\n') nl = i;
+                    if (nl >= 0) { end += nl + 1; break; }
+                    end += n;
+                }
+                final long from = start, to = Math.min(end, size);
+                out.add(pool.submit(() -> parseChunk(readRange(f, from, to))));
+                start = to;
+            }
+        }
+        return out;
+    }
+
+    // JSON array (or any gzip shard): one sequential pass that cuts after an object closes once the chunk is big
+    // enough; gzip NDJSON works too, as an object never spans a line. Takes a permit of {@code unparsed} per chunk
+    // (released once it is parsed), so reading waits for the pool instead of piling up text. Closes the stream.
+    private static List<Future<Chunk>> splitObjects(InputStream stream, ExecutorService pool, Semaphore unparsed) throws IOException {
+        List<Future<Chunk>> out = new ArrayList<>();
+        byte[] chunk = new byte[CHUNK_BYTES + (1 << 16)];
+        int len = 0, depth = 0;
+        boolean inString = false, escaped = false;
+        byte[] block = new byte[1 << 16];
+        try (InputStream in = stream) {
+            int n;
+            while ((n = in.read(block)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    byte b = block[i];
+                    if (len == chunk.length) chunk = Arrays.copyOf(chunk, chunk.length * 2); // one huge object
+                    chunk[len++] = b;
+                    if (inString) {
+                        if (escaped) escaped = false;
+                        else if (b == '\\') escaped = true;
+                        else if (b == '"') inString = false;
+                    } else if (b == '"') inString = true;
+                    else if (b == '{') depth++;
+                    else if (b == '}' && depth > 0 && --depth == 0 && len >= CHUNK_BYTES) {
+                        out.add(submit(pool, unparsed, Arrays.copyOf(chunk, len)));
+                        len = 0;
+                    }
+                }
+            }
+        }
+        out.add(submit(pool, unparsed, Arrays.copyOf(chunk, len)));
+        return out;
+    }
+
+    private static Future<Chunk> submit(ExecutorService pool, Semaphore unparsed, byte[] utf8) throws IOException {
+        try {
+            unparsed.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading questions", e);
+        }
+        try {
+            return pool.submit(() -> {
+                try {
+                    return parseChunk(utf8);
+                } finally {
+                    unparsed.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            unparsed.release();
+            throw e;
+        }
+    }
+
+    /** Streaming gzip reader over {@code f} with a large inflater buffer. */
+    static InputStream inflate(Path f) throws IOException {
+        InputStream raw = Files.newInputStream(f);
+        try {
+            return new GZIPInputStream(raw, GZIP_BUFFER);
+        } catch (IOException e) {
+            raw.close(); // not gzip: bad header
+            throw e;
+        }
+    }
+
+    private static byte[] readRange(Path f, long from, long to) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) (to - from));
+        try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+            while (buf.hasRemaining() && ch.read(buf, from + buf.position()) > 0) { /* fill */ }
+        }
+        return buf.array();
+    }
+
+    private static Chunk parseChunk(byte[] utf8) {
+        Chunk c = new Chunk();
+        parseObjects(new String(utf8, StandardCharsets.UTF_8), c.out, c);
+        return c;
+    }
+
+    private static Chunk join(Future<Chunk> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading questions", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("Question bank parse failed: " + cause, cause);
+        }
+    }
+
+    // ===== Object parser =====
+    /** Parses question objects from JSON text into {@code out}; returns the number of malformed objects skipped. */
+    static int parse(String json, List<Question> out) {
+        return parse(json, (subj, qtext, opts, correctIndex, expl) -> out.add(new Question(subj, qtext, opts, correctIndex, expl)));
+    }
+
+    /** Same, handing each question's fields to {@code out}. */
+    static int parse(String json, Sink out) {
+        Chunk c = new Chunk();
+        parseObjects(json, out, c);
+        return c.skipped;
+    }
+
+    // every top-level {...} in the text is one question; anything between objects ([ , ] whitespace) is ignored
+    private static void parseObjects(String s, Sink out, Chunk report) {
+        int line = 0;
+        int i = 0, n = s.length();
+        while (i < n) {
+            char ch = s.charAt(i);
+            if (ch == '\n') line++;
+            if (ch != '{') { i++; continue; }
+            int end = objectEnd(s, i);
+            int objLine = line;
+            for (int k = i; k < end; k++) if (s.charAt(k) == '\n') line++;
+            try {
+                new ObjectReader(s, i, end).readQuestion(out);
+            } catch (IllegalArgumentException e) {
+                report.skipped++;
+                if (report.problems.size() < MAX_PROBLEMS_PER_SHARD) {
+                    report.problemLines.add(objLine);
+                    report.problems.add(e.getMessage());
+                }
+            }
+            i = end;
+        }
+        report.newlines = line;
+    }
+
+    // index just past the '}' matching the '{' at start (or the end of the text if it never closes)
+    private static int objectEnd(String s, int start) {
+        int depth = 0;
+        boolean inString = false, escaped = false;
+        for (int i = start; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (ch == '\\') escaped = true;
+                else if (ch == '"') inString = false;
+            } else if (ch == '"') inString = true;
+            else if (ch == '{') depth++;
+            else if (ch == '}' && --depth == 0) return i + 1;
+        }
+        return s.length();
+    }
+
+    // Reads one flat object: string fields, string arrays; other values are skipped. Problems throw IllegalArgumentException.
+    private static final class ObjectReader {
+        private final String s;
+        private final int end;
+        private int p;
+
+        ObjectReader(String s, int start, int end) {
+            this.s = s;
+            this.p = start;
+            this.end = end;
+        }
+
+        void readQuestion(Sink out) {
+            String subject = null, question = null, answer = null, explanation = null;
+            String[] options = null;
+            expect('{');
+            if (peek() != '}') {
+                do {
+                    String key = string();
+                    expect(':');
+                    switch (key) {
+                        case "subject": subject = string().trim(); break;
+                        case "question": question = string().trim(); break;
+                        case "answer": answer = string().trim(); break;
+                        case "explanation": explanation = string().trim(); break;
+                        case "options": options = stringArray(); break;
+                        default: skipValue();
+                    }
+                } while (accept(','));
+            }
+            expect('}');
+            if (subject == null) throw new IllegalArgumentException("missing \"subject\"");
+            if (question == null) throw new IllegalArgumentException("missing \"question\"");
+            if (answer == null) throw new IllegalArgumentException("missing \"answer\"");
+            if (options == null) throw new IllegalArgumentException("missing \"options\"");
+            if (options.length < 2 || options.length > Question.MAX_OPTIONS) {
+                throw new IllegalArgumentException(options.length + " options (need 2.." + Question.MAX_OPTIONS + ")");
+            }
+            int correctIndex = 0;
+            for (int i = 0; i < options.length; i++) if (options[i].equals(answer)) correctIndex = i;
+            out.add(subject, question, options, correctIndex, explanation == null ? "" : explanation);
+        }
+
+        private String[] stringArray() {
+            expect('[');
+            List<String> items = new ArrayList<>();
+            if (peek() != ']') {
+                do items.add(string()); while (accept(','));
+            }
+            expect(']');
+            return items.toArray(new String[0]);
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder sb = null;
+            int from = p;
+            while (p < end) {
+                char ch = s.charAt(p++);
+                if (ch == '"') return sb == null ? s.substring(from, p - 1) : sb.append(s, from, p - 1).toString();
+                if (ch != '\\') continue;
+                if (sb == null) sb = new StringBuilder();
+                sb.append(s, from, p - 1);
+                if (p >= end) break;
+                char esc = s.charAt(p++);
+                switch (esc) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (p + 4 > end) throw new IllegalArgumentException("bad \\u escape");
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(p, p + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("bad \\u escape");
+                        }
+                        p += 4;
+                        break;
+                    default: sb.append(esc); // \" \\ \/
+                }
+                from = p;
+            }
+            throw new IllegalArgumentException("unterminated string");
+        }
+
+        private void skipValue() {
+            char ch = peek();
+            if (ch == '"') { string(); return; }
+            if (ch == '[' || ch == '{') {
+                char close = ch == '[' ? ']' : '}';
+                p++;
+                if (peek() != close) {
+                    do {
+                        if (close == '}') { string(); expect(':'); }
+                        skipValue();
+                    } while (accept(','));
+                }
+                expect(close);
+                return;
+            }
+            int from = p;
+            while (p < end && ",}] \t\r\n".indexOf(s.charAt(p)) < 0) p++;
+            if (p == from) throw new IllegalArgumentException("expected a value at '" + ch + "'");
+        }
+
+        private char peek() {
+            while (p < end && Character.isWhitespace(s.charAt(p))) p++;
+            return p < end ? s.charAt(p) : '\0';
+        }
+
+        private boolean accept(char c) {
+            if (peek() != c) return false;
+            p++;
+            return true;
+        }
+
+        private void expect(char c) {
+            char got = peek();
+            if (got != c) throw new IllegalArgumentException(got == '\0' ? "object ends early, expected '" + c + "'"
+                    : "expected '" + c + "' but found '" + got + "'");
+            p++;
+        }
+    }
+
+    // ===== Report tool =====
+    public static void main(String[] args) throws IOException {
+        Path path = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else path = Paths.get(args[i]);
+        }
+        if (path == null) {
+            System.err.println("usage: QuestionLoader <file-or-directory> [--threads n]");
+            return;
+        }
+        long t0 = System.nanoTime();
+        Result r = load(path, threads);
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+        System.out.printf("%-40s %12s %10s %8s%n", "shard", "bytes", "questions", "skipped");
+        for (ShardReport s : r.shards) System.out.printf("%-40s %12d %10d %8d%n", s.name, s.bytes, s.questions, s.skipped);
+        System.out.printf("%n%d questions from %d shard(s), %d MB in %d ms on %d thread(s)%n",
+                r.questions.size(), r.shards.size(), r.bytesRead >> 20, ms, threads);
+        String problems = r.problemReport();
+        if (!problems.isEmpty()) System.out.print("\n" + problems);
+    }
+}
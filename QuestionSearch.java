@@ -0,0 +1,248 @@
+// QuestionSearch.java
+// Full-text search over the question bank (subject, question, options, explanation).
+// Inverted index: term -> posting list of doc ids, delta + varint encoded in a byte array. A trigram index over
+// the term dictionary answers substring queries ("synth" finds "photosynthesis") without scanning the bank.
+// Query: words are ANDed; each word matches any indexed term that contains it (shorter than 3 chars: starts with it).
+//
+// Docs are numbered in insertion order and mapped to positions in the current bank. update() diffs a reloaded bank
+// by content: unchanged questions keep their postings, removed ones are tombstoned, and new ones are appended.
+// The index is rebuilt once tombstones outnumber live docs.
+
+import java.util.*;
+
+class QuestionSearch {
+    static final int DEFAULT_LIMIT = 200;
+
+    /** Matching bank positions (in bank order, at most the requested limit) and the total match count. */
+    static final class Hits {
+        final CompactBank bank;
+        final int[] indices;
+        final int total;
+        final long micros;
+
+        Hits(CompactBank bank, int[] indices, int total, long micros) {
+            this.bank = bank;
+            this.indices = indices;
+            this.total = total;
+            this.micros = micros;
+        }
+    }
+
+    // ===== Posting lists =====
+    private static final class Postings {
+        byte[] data = new byte[4];
+        int len, last = -1;
+
+        void add(int doc) {
+            if (doc == last) return; // term repeated within the doc
+            int delta = doc - last;
+            last = doc;
+            if (len + 5 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            while ((delta & ~0x7F) != 0) {
+                data[len++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[len++] = (byte) delta;
+        }
+
+        void decodeInto(BitSet out) {
+            int doc = -1;
+            for (int p = 0; p < len; ) {
+                int delta = 0, shift = 0, b;
+                do {
+                    b = data[p++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += delta;
+                out.set(doc);
+            }
+        }
+    }
+
+    private final boolean trigrams;
+    private CompactBank bank = CompactBank.EMPTY;
+
+    private final TreeMap<String, Integer> termIds = new TreeMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Postings> postings = new ArrayList<>();
+    private final Map<Integer, Postings> trigramTerms = new HashMap<>(); // trigram -> term ids (same encoding)
+
+    private int[] docToBank = new int[64];
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> docByKey = new HashMap<>();
+    private int docs, liveDocs;
+
+    QuestionSearch(boolean trigrams) { this.trigrams = trigrams; }
+
+    static QuestionSearch build(CompactBank bank) {
+        QuestionSearch s = new QuestionSearch(true);
+        s.update(bank);
+        return s;
+    }
+
+    synchronized CompactBank bank() { return bank; }
+
+    synchronized int termCount() { return terms.size(); }
+
+    /** Brings the index in line with {@code next}; only added or edited questions are tokenized. */
+    synchronized void update(CompactBank next) {
+        if (next == bank) return;
+        Map<Long, Integer> previous = new HashMap<>(docByKey);
+        docByKey.clear();
+        long[] keys = contentKeys(next);
+        for (int i = 0; i < keys.length; i++) {
+            Integer d = previous.remove(keys[i]);
+            if (d != null) {
+                docToBank[d] = i;
+                docByKey.put(keys[i], d);
+            } else {
+                addDoc(next, i, keys[i]);
+            }
+        }
+        for (int d : previous.values()) {
+            live.clear(d);
+            liveDocs--;
+        }
+        bank = next;
+        if (docs - liveDocs > liveDocs && docs > 1024) rebuild();
+    }
+
+    /** Bank positions matching every word of {@code query}. */
+    synchronized BitSet matching(String query) {
+        List<String> words = tokens(query);
+        BitSet result = null;
+        for (String w : words) {
+            BitSet docsForWord = new BitSet(docs);
+            for (int t : termsContaining(w)) postings.get(t).decodeInto(docsForWord);
+            if (result == null) result = docsForWord;
+            else result.and(docsForWord);
+            if (result.isEmpty()) break;
+        }
+        BitSet out = new BitSet(bank.size());
+        if (result == null) return out;
+        result.and(live);
+        for (int d = result.nextSetBit(0); d >= 0; d = result.nextSetBit(d + 1)) out.set(docToBank[d]);
+        return out;
+    }
+
+    Hits search(String query, int limit) {
+        long t0 = System.nanoTime();
+        CompactBank b;
+        BitSet m;
+        synchronized (this) {
+            b = bank;
+            m = matching(query);
+        }
+        int total = m.cardinality();
+        int[] indices = new int[Math.min(total, limit)];
+        for (int i = 0, at = m.nextSetBit(0); i < indices.length; i++, at = m.nextSetBit(at + 1)) indices[i] = at;
+        Metrics.SEARCH_SECONDS.recordSince(t0);
+        return new Hits(b, indices, total, (System.nanoTime() - t0) / 1000);
+    }
+
+    // ===== Indexing =====
+    private void addDoc(CompactBank b, int i, long key) {
+        int d = docs++;
+        if (d == docToBank.length) docToBank = Arrays.copyOf(docToBank, d * 2);
+        docToBank[d] = i;
+        docByKey.put(key, d);
+        live.set(d);
+        liveDocs++;
+        index(b.subject(i), d);
+        index(b.question(i), d);
+        for (int o = 0; o < b.optionCount(i); o++) index(b.option(i, o), d);
+        index(b.explanation(i), d);
+    }
+
+    private void index(String text, int doc) {
+        for (String w : tokens(text)) postings.get(termId(w)).add(doc);
+    }
+
+    private int termId(String term) {
+        Integer id = termIds.get(term);
+        if (id != null) return id;
+        int t = terms.size();
+        termIds.put(term, t);
+        terms.add(term);
+        postings.add(new Postings());
+        if (trigrams) {
+            for (int k = 0; k + 3 <= term.length(); k++) trigramTerms.computeIfAbsent(trigram(term, k), x -> new Postings()).add(t);
+        }
+        return t;
+    }
+
+    private void rebuild() {
+        CompactBank b = bank;
+        termIds.clear();
+        terms.clear();
+        postings.clear();
+        trigramTerms.clear();
+        docByKey.clear();
+        live.clear();
+        docs = liveDocs = 0;
+        long[] keys = contentKeys(b);
+        for (int i = 0; i < keys.length; i++) addDoc(b, i, keys[i]);
+    }
+
+    // ===== Term lookup =====
+    private List<Integer> termsContaining(String word) {
+        List<Integer> out = new ArrayList<>();
+        if (word.length() < 3 || !trigrams) {
+            for (int t : termIds.subMap(word, true, word + Character.MAX_VALUE, true).values()) out.add(t);
+            return out;
+        }
+        // candidates from the rarest trigram of the word, then verified
+        Postings rarest = null;
+        for (int k = 0; k + 3 <= word.length(); k++) {
+            Postings p = trigramTerms.get(trigram(word, k));
+            if (p == null) return out;
+            if (rarest == null || p.len < rarest.len) rarest = p;
+        }
+        BitSet candidates = new BitSet(terms.size());
+        rarest.decodeInto(candidates);
+        for (int t = candidates.nextSetBit(0); t >= 0; t = candidates.nextSetBit(t + 1)) {
+            if (terms.get(t).contains(word)) out.add(t);
+        }
+        return out;
+    }
+
+    // three chars packed exactly when they fit in 10 bits each; otherwise hashed (verification catches collisions)
+    private static int trigram(String s, int k) {
+        char a = s.charAt(k), b = s.charAt(k + 1), c = s.charAt(k + 2);
+        if ((a | b | c) < 1024) return (a << 20) | (b << 10) | c;
+        return ((a * 31 + b) * 31 + c) | Integer.MIN_VALUE;
+    }
+
+    /** Lower-cased runs of letters and digits. */
+    static List<String> tokens(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    // one key per question content; identical duplicates get distinct keys in bank order
+    private static long[] contentKeys(CompactBank b) {
+        long[] keys = new long[b.size()];
+        Set<Long> used = new HashSet<>(b.size() * 2);
+        for (int i = 0; i < keys.length; i++) {
+            long h = b.subject(i).hashCode();
+            h = h * 0x9E3779B97F4A7C15L + b.question(i).hashCode();
+            for (int o = 0; o < b.optionCount(i); o++) h = h * 0x9E3779B97F4A7C15L + b.option(i, o).hashCode();
+            h = h * 0x9E3779B97F4A7C15L + b.explanation(i).hashCode();
+            h = h * 31 + b.correctIndex(i);
+            while (!used.add(h)) h = SeededOrder.mix(h, 0);
+            keys[i] = h;
+        }
+        return keys;
+    }
+}
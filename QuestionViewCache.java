@@ -0,0 +1,130 @@
+// QuestionViewCache.java
+// Ready-made question views (HTML label + one radio button per option, laid out) swapped in with a CardLayout.
+// The quiz screen builds the next / previous question's view in an idle EDT slot while the current one is on
+// screen, so Next and Back only flip cards. A few views are kept for back-navigation (LRU).
+
+import javax.swing.*;
+import javax.swing.border.*;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+class QuestionViewCache {
+    static final int CAPACITY = 6; // current, previous, and up to two adaptive candidates, with room to spare
+
+    static final class View {
+        final String key;
+        final JPanel panel;
+        final JRadioButton[] options;
+        final ButtonGroup group = new ButtonGroup();
+
+        View(String key, JPanel panel, int n) {
+            this.key = key;
+            this.panel = panel;
+            this.options = new JRadioButton[n];
+        }
+
+        /** Mirrors the session's answer (null = none) onto the radio buttons without firing listeners. */
+        void showSelection(Integer displayed) {
+            if (displayed != null && displayed >= 0 && displayed < options.length) options[displayed].setSelected(true);
+            else group.clearSelection();
+        }
+    }
+
+    private final CardLayout cards = new CardLayout();
+    private final JPanel deck = new JPanel(cards);
+    private final IntConsumer onSelect;
+    private final Map<String, View> views = new LinkedHashMap<String, View>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, View> eldest) {
+            if (size() <= CAPACITY) return false;
+            deck.remove(eldest.getValue().panel);
+            return true;
+        }
+    };
+    private int hits, misses;
+
+    /** {@code onSelect} receives the displayed index of the option the student clicks. */
+    QuestionViewCache(IntConsumer onSelect) {
+        this.onSelect = onSelect;
+        deck.setOpaque(false);
+    }
+
+    JComponent component() { return deck; }
+
+    /** Shows the view for question {@code q} at {@code position}, building it now if it was not prefetched. */
+    View show(QuizSession s, int position, Question q) {
+        String key = key(s, position, q);
+        View v = views.get(key);
+        if (v == null) {
+            misses++;
+            v = build(s, position, q);
+        } else hits++;
+        cards.show(deck, key);
+        return v;
+    }
+
+    /** Builds the view ahead of time; call from an idle EDT slot. */
+    void prefetch(QuizSession s, int position, Question q) {
+        if (q == null || position < 0 || position >= s.size()) return;
+        if (!views.containsKey(key(s, position, q))) build(s, position, q);
+    }
+
+    boolean isPrepared(QuizSession s, int position, Question q) { return views.containsKey(key(s, position, q)); }
+
+    void clear() {
+        views.clear();
+        deck.removeAll();
+    }
+
+    int hits() { return hits; }
+    int misses() { return misses; }
+
+    // adaptive sessions can hold different candidates for the same position, so the question is part of the key
+    private static String key(QuizSession s, int position, Question q) {
+        return Long.toHexString(s.id) + ":" + position + ":" + Question.idCode(q);
+    }
+
+    private View build(QuizSession s, int position, Question q) {
+        int n = q.options.length;
+        JPanel panel = new JPanel(new BorderLayout(8, 8));
+        panel.setOpaque(false);
+        View v = new View(key(s, position, q), panel, n);
+
+        JLabel label = new JLabel("<html><div style='text-align:center;'>" + (position + 1) + ". " + escapeHtml(q.question) + "</div></html>",
+                SwingConstants.CENTER);
+        label.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        label.setBorder(new EmptyBorder(8, 8, 8, 8));
+        panel.add(label, BorderLayout.NORTH);
+
+        JPanel optionsPanel = new JPanel(new GridLayout(n, 1, 10, 10));
+        optionsPanel.setBackground(Color.WHITE);
+        optionsPanel.setBorder(new EmptyBorder(6, 6, 6, 6));
+        for (int i = 0; i < n; i++) {
+            JRadioButton rb = new JRadioButton(q.options[SeededOrder.original(s.id, position, n, i)]);
+            rb.setFont(new Font("Segoe UI", Font.PLAIN, 15));
+            rb.setOpaque(true);
+            rb.setBackground(new Color(250, 251, 253));
+            rb.setBorder(new CompoundBorder(new LineBorder(new Color(220, 225, 230)), new EmptyBorder(8, 10, 8, 10)));
+            rb.setFocusPainted(false);
+            final int displayed = i;
+            rb.addActionListener(e -> onSelect.accept(displayed));
+            v.group.add(rb);
+            optionsPanel.add(rb);
+            v.options[i] = rb;
+        }
+        panel.add(optionsPanel, BorderLayout.CENTER);
+
+        views.put(v.key, v);
+        deck.add(panel, v.key);
+        // CardLayout sizes every card, so the HTML view is parsed and wrapped now rather than on the swap
+        label.getPreferredSize();
+        deck.validate();
+        return v;
+    }
+
+    private static String escapeHtml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
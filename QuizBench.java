@@ -0,0 +1,238 @@
+// QuizBench.java
+// Dependency-free micro-benchmark harness for the quiz hot paths over synthetic inputs of 10^2..10^N records.
+//
+//   javac -encoding UTF-8 -d out *.java
+//   java -cp out QuizBench [maxExponent=6] [name-filter] [-out results.csv]
+//
+// Each benchmark is warmed up, then timed over repeated runs; the table reports the mean time per run,
+// per record and records/s (per operation where a case does a fixed number of them, like the logins).
+// Use -out to keep a CSV so before/after numbers can be diffed.
+// The same cases run under JMH from the benchmarks module (mvn -B package; java -jar benchmarks/target/benchmarks.jar),
+// which reaches them through prepare(name, records).
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+final class QuizBench {
+    private static final long WARMUP_NANOS = 300_000_000L;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+    private static final String[] SUBJECTS = {"Physics", "Chemistry", "Biology"};
+
+    // results feed into this so the JIT cannot drop the work
+    static volatile long sink;
+
+    interface Case {
+        /** Runs once over the prepared input and returns something derived from the result. */
+        long run() throws Exception;
+
+        /** Operations one run performs, which the per-record columns divide by. */
+        default long ops(int records) { return records; }
+    }
+
+    // a case doing a fixed number of operations per run, whatever the input size
+    private static Case ops(long ops, Case c) {
+        return new Case() {
+            @Override
+            public long run() throws Exception { return c.run(); }
+
+            @Override
+            public long ops(int records) { return ops; }
+        };
+    }
+
+    interface Bench {
+        Case prepare(int records) throws Exception;
+    }
+
+    static Map<String, Bench> benches() {
+        Map<String, Bench> benches = new LinkedHashMap<>();
+        benches.put("loadQuestionsFromJsonSimple", QuizBench::jsonParse);
+        benches.put("csvTokenizer", QuizBench::csvTokenize);
+        benches.put("computeQuestionHash", QuizBench::questionHash);
+        benches.put("writePagedSimplePdf", QuizBench::pdf);
+        benches.put("authenticateUser", QuizBench::authenticate);
+        benches.put("authenticateUserCold", QuizBench::authenticateCold);
+        benches.put("scoring", QuizBench::scoring);
+        return benches;
+    }
+
+    /**
+     * One case prepared over {@code records} inputs, for the JMH benchmarks: they live in a named package and cannot
+     * see these package-private classes, so they look this method up reflectively and only handle a Callable.
+     */
+    public static Callable<Long> prepare(String name, int records) throws Exception {
+        Bench b = benches().get(name);
+        if (b == null) throw new IllegalArgumentException("No benchmark " + name);
+        Case c = b.prepare(records);
+        return c::run;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxExp = 6;
+        String filter = null;
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-out")) out = Paths.get(args[++i]);
+            else if (args[i].matches("\\d+")) maxExp = Integer.parseInt(args[i]);
+            else filter = args[i];
+        }
+
+        Map<String, Bench> benches = benches();
+        List<String> csv = new ArrayList<>();
+        csv.add("benchmark,records,runs,ms_per_run,ns_per_record,records_per_sec");
+        System.out.printf("%-28s %10s %8s %12s %14s %16s%n", "benchmark", "records", "runs", "ms/run", "ns/record", "records/s");
+        for (Map.Entry<String, Bench> e : benches.entrySet()) {
+            if (filter != null && !e.getKey().toLowerCase().contains(filter.toLowerCase())) continue;
+            for (int exp = 2; exp <= maxExp; exp++) {
+                int n = (int) Math.pow(10, exp);
+                Case c = e.getValue().prepare(n);
+                long[] r = measure(c);
+                long ops = c.ops(n);
+                double msPerRun = r[1] / 1e6 / r[0];
+                double nsPerRecord = (double) r[1] / r[0] / ops;
+                double perSec = ops / (msPerRun / 1000.0);
+                System.out.printf("%-28s %10d %8d %12.3f %14.1f %16.0f%n", e.getKey(), n, r[0], msPerRun, nsPerRecord, perSec);
+                csv.add(String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.1f,%.0f", e.getKey(), n, r[0], msPerRun, nsPerRecord, perSec));
+            }
+        }
+        if (out != null) Files.write(out, csv, StandardCharsets.UTF_8);
+    }
+
+    // returns {runs, totalNanos}
+    private static long[] measure(Case c) throws Exception {
+        long start = System.nanoTime();
+        long acc = 0;
+        do { acc += c.run(); } while (System.nanoTime() - start < WARMUP_NANOS);
+        int runs = 0;
+        start = System.nanoTime();
+        long elapsed;
+        do {
+            acc += c.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS || runs < 3);
+        sink += acc;
+        return new long[]{runs, elapsed};
+    }
+
+    // ===== Synthetic inputs =====
+    static List<Question> syntheticQuestions(int n, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<Question> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String subj = SUBJECTS[i % SUBJECTS.length];
+            String[] opts = new String[4];
+            for (int o = 0; o < 4; o++) opts[o] = "Option " + o + " for item " + i + " " + Long.toHexString(rnd.nextLong());
+            list.add(new Question(subj, "Synthetic question " + i + " about topic " + rnd.nextInt(1000) + "?", opts,
+                    rnd.nextInt(4), "Explanation for synthetic question " + i + "."));
+        }
+        return list;
+    }
+
+    static String toJson(List<Question> qs) {
+        StringBuilder sb = new StringBuilder(qs.size() * 300);
+        sb.append("[\n");
+        for (int i = 0; i < qs.size(); i++) {
+            Question q = qs.get(i);
+            sb.append("  {\n    \"subject\": \"").append(q.subject).append("\",\n    \"question\": \"").append(q.question)
+              .append("\",\n    \"options\": [");
+            for (int o = 0; o < q.options.length; o++) sb.append(o == 0 ? "" : ", ").append('"').append(q.options[o]).append('"');
+            sb.append("],\n    \"answer\": \"").append(q.options[q.correctIndex]).append("\",\n    \"explanation\": \"")
+              .append(q.explanation).append("\"\n  }").append(i < qs.size() - 1 ? ",\n" : "\n");
+        }
+        return sb.append("]\n").toString();
+    }
+
+    // ===== Benchmarks =====
+    private static Case jsonParse(int n) {
+        String json = toJson(syntheticQuestions(n, 1));
+        return () -> {
+            CompactBank.Builder out = new CompactBank.Builder();
+            QuestionLoader.parse(json, out);
+            return out.build().size();
+        };
+    }
+
+    private static Case csvTokenize(int n) {
+        SplittableRandom rnd = new SplittableRandom(2);
+        List<String> lines = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            lines.add(ScoreStore.toCsvLine("R" + i, "Student, " + i, "10-" + (char) ('A' + i % 4), SUBJECTS[i % 3],
+                    String.valueOf(rnd.nextInt(16)), "15", "2025-11-0" + (1 + i % 9) + "T10:00:00Z"));
+        }
+        return () -> {
+            long acc = 0;
+            for (String ln : lines) acc += ScoreStore.parseCsvLine(ln)[4].length();
+            return acc;
+        };
+    }
+
+    private static Case questionHash(int n) {
+        List<Question> qs = syntheticQuestions(n, 3);
+        return () -> {
+            long acc = 0;
+            for (Question q : qs) acc += Question.contentHash(q).charAt(0);
+            return acc;
+        };
+    }
+
+    private static Case pdf(int n) {
+        List<String> lines = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) lines.add("Line " + i + ": Explanation text with (parentheses) and a \\ backslash.");
+        return () -> SimplePdf.render(lines, 60, AsyncIo.Progress.NONE).size();
+    }
+
+    // n registered users; each run authenticates a rotating subset of 1000 of them (the parsed file stays cached)
+    private static Case authenticate(int n) throws IOException {
+        UserStore store = new UserStore(usersFile(n));
+        int[] next = {0};
+        return ops(1000, () -> {
+            long ok = 0;
+            for (int i = 0; i < 1000; i++) {
+                int u = next[0]++ % n;
+                if (store.authenticateUser("u" + u, "pw")) ok++;
+            }
+            return ok;
+        });
+    }
+
+    // same users file, touched before each login so authenticateUser re-reads and parses all n lines
+    private static Case authenticateCold(int n) throws IOException {
+        Path users = usersFile(n);
+        UserStore store = new UserStore(users);
+        long[] next = {Files.getLastModifiedTime(users).toMillis()};
+        return ops(1, () -> {
+            next[0] += 1000; // a whole second: some file systems keep mtimes that coarse
+            Files.setLastModifiedTime(users, FileTime.fromMillis(next[0]));
+            return store.authenticateUser("u" + (next[0] / 1000 % n), "pw") ? 1 : 0;
+        });
+    }
+
+    private static Path usersFile(int n) throws IOException {
+        Path probe = Files.createTempFile("skillnest-bench-probe", "");
+        Files.delete(probe);
+        new UserStore(probe).registerUser("u0", "pw");
+        String hash = Files.readAllLines(probe).get(0).substring(3);
+        Files.delete(probe);
+
+        // written directly: registerUser re-reads the file per call, which would dominate setup
+        Path users = Files.createTempFile("skillnest-bench-users", "");
+        users.toFile().deleteOnExit();
+        try (BufferedWriter bw = Files.newBufferedWriter(users, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < n; i++) bw.write("u" + i + "," + hash + "\n");
+        }
+        return users;
+    }
+
+    private static Case scoring(int n) {
+        List<Question> qs = syntheticQuestions(n, 4);
+        SplittableRandom rnd = new SplittableRandom(5);
+        Integer[] sel = new Integer[n];
+        for (int i = 0; i < n; i++) sel[i] = rnd.nextInt(5) == 0 ? null : rnd.nextInt(4);
+        return () -> Scoring.countCorrect(qs, sel, 0x5EEDL);
+    }
+}
@@ -0,0 +1,81 @@
+// QuizEvents.java
+// JFR events for the quiz hot paths. They cost next to nothing unless a recording is running.
+//
+// Start the app with the bundled profile (see also .vscode/launch.json):
+//   java -XX:StartFlightRecording=settings=./skillnest.jfc,filename=skillnest.jfr,dumponexit=true SkillNestStudentQuiz
+// then open skillnest.jfr in JDK Mission Control, or:
+//   jfr print --categories SkillNest skillnest.jfr
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+final class QuizEvents {
+    private QuizEvents() {}
+
+    @Name("skillnest.QuestionLoad")
+    @Label("Question Load")
+    @Category({"SkillNest", "I/O"})
+    @Description("Reading and parsing the question bank")
+    static class QuestionLoad extends Event {
+        @Label("File") String file;
+        @Label("Shards") int shards;
+        @Label("Bytes Read") @DataAmount long bytesRead;
+        @Label("Question Count") int questionCount;
+        @Label("Skipped Objects") int skipped;
+    }
+
+    @Name("skillnest.ShowQuestion")
+    @Label("Show Question")
+    @Category({"SkillNest", "UI"})
+    @Description("Rendering one question on the quiz screen")
+    static class ShowQuestion extends Event {
+        @Label("Subject") String subject;
+        @Label("Question Index") int index;
+        @Label("Question Count") int questionCount;
+        @Label("Text Length") int textLength;
+        @Label("Prefetched") boolean prefetched;
+    }
+
+    @Name("skillnest.SaveScore")
+    @Label("Save Score")
+    @Category({"SkillNest", "I/O"})
+    static class SaveScore extends Event {
+        @Label("Subject") String subject;
+        @Label("Bytes Written") @DataAmount long bytesWritten;
+        @Label("New File") boolean newFile;
+    }
+
+    @Name("skillnest.PersistQuestionVersions")
+    @Label("Persist Question Versions")
+    @Category({"SkillNest", "I/O"})
+    static class PersistVersions extends Event {
+        @Label("Entries") int entries;
+        @Label("Bytes Written") @DataAmount long bytesWritten;
+    }
+
+    @Name("skillnest.LoadScores")
+    @Label("Load Scores")
+    @Category({"SkillNest", "I/O"})
+    static class LoadScores extends Event {
+        @Label("Rows") int rows;
+        @Label("Bytes Read") @DataAmount long bytesRead;
+        @Label("Segments Read") int segmentsRead;
+        @Label("Segments Skipped") int segmentsSkipped; // ruled out by their footer
+    }
+
+    @Name("skillnest.Export")
+    @Label("Export")
+    @Category({"SkillNest", "I/O"})
+    @Description("PDF / PNG export of the review or the explanations")
+    static class Export extends Event {
+        @Label("Kind") String kind; // review-pdf, review-png, explanations-pdf
+        @Label("Subject") String subject;
+        @Label("Pages") int pages;
+        @Label("Bytes Written") @DataAmount long bytesWritten;
+        @Label("Success") boolean success;
+    }
+}
@@ -0,0 +1,337 @@
+// QuizSession.java
+// Headless state of one quiz attempt: question order, option permutations, answers and scoring.
+// Order and permutations are derived from the session id (SeededOrder), so only the answers are state.
+// In adaptive mode the questions are picked one at a time from an AdaptiveIndex as the student answers.
+// With duplicate clusters (DedupAnalyzer) a session never holds two near-duplicates of one question.
+// The quiz screen drives it from the EDT; LoadSim drives many of them concurrently (one thread per session at a time).
+
+import java.util.*;
+
+class QuizSession {
+    final String roll, name, cls, subject;
+    final List<Question> questions;             // adaptive mode: grows as questions are picked
+    final long startedAt;
+    final long id;                              // ties event log records to this attempt; also the shuffle seed
+    private final int length;
+
+    private final Integer[] selected;           // displayed option index chosen per question, null = unanswered
+    private final long[] spentNanos;            // time on screen per question, summed over visits
+    private int current = 0;
+    private long shownAt = -1;
+
+    // item statistics, counted as the student answers and moves on (null = not counted)
+    private ItemStats stats;
+    private final int[] countedAnswer;          // original option counted per question, NOT_COUNTED if none yet
+    private final long[] countedMillis;
+    private static final int NOT_COUNTED = Integer.MIN_VALUE;
+
+    // adaptive mode only
+    private final AdaptiveIndex index;
+    private final DedupAnalyzer.Clusters clusters;          // null = no near-duplicate rule
+    private final int[] bankIndex;              // position of each question in the index's bank, -1 = not in it
+    private final BitSet asked = new BitSet();  // bank indices asked, with their near-duplicates
+    private double ability = 0;
+    private int rated = 0;                      // answers already folded into the ability estimate
+    private int nextIfCorrect = -1, nextIfWrong = -1;   // bank indices, -1 = not prepared / none left
+
+    private QuizSession(String roll, String name, String cls, String subject, List<Question> questions, int length,
+                        AdaptiveIndex index, DedupAnalyzer.Clusters clusters, long id, long startedAt) {
+        this.id = id;
+        this.startedAt = startedAt;
+        this.roll = roll;
+        this.name = name;
+        this.cls = cls;
+        this.subject = subject;
+        this.questions = questions;
+        this.length = length;
+        this.index = index;
+        this.clusters = clusters;
+        this.selected = new Integer[length];
+        this.spentNanos = new long[length];
+        this.countedAnswer = new int[length];
+        this.countedMillis = new long[length];
+        Arrays.fill(countedAnswer, NOT_COUNTED);
+        this.bankIndex = index == null ? null : new int[length];
+    }
+
+    /** Every question of the subject in seeded order; null if the bank has none. {@code seed} becomes the session id. */
+    static QuizSession fixed(String roll, String name, String cls, String subject, List<Question> bank, long seed) {
+        return fixed(roll, name, cls, subject, bank, null, seed);
+    }
+
+    /** Same, keeping only the first question of each near-duplicate cluster in the seeded order. */
+    static QuizSession fixed(String roll, String name, String cls, String subject, List<Question> bank,
+                             DedupAnalyzer.Clusters clusters, long seed) {
+        List<Question> qs = SeededOrder.questionOrder(bank, subject, seed);
+        if (clusters != null) qs = clusters.onePerCluster(qs);
+        if (qs.isEmpty()) return null;
+        return new QuizSession(roll, name, cls, subject, qs, qs.size(), null, clusters, seed, System.currentTimeMillis());
+    }
+
+    /**
+     * Adaptive attempt of up to {@code length} questions (fewer if the subject is smaller).
+     * Returns null if the index has no questions for the subject.
+     */
+    static QuizSession adaptive(String roll, String name, String cls, String subject, AdaptiveIndex index, int length, long seed) {
+        return adaptive(roll, name, cls, subject, index, null, length, seed);
+    }
+
+    /** Same, never picking a near-duplicate of a question already asked. */
+    static QuizSession adaptive(String roll, String name, String cls, String subject, AdaptiveIndex index,
+                                DedupAnalyzer.Clusters clusters, int length, long seed) {
+        int n = Math.min(length, clusters == null ? index.count(subject) : clusters.distinctCount(subject));
+        if (n <= 0) return null;
+        QuizSession s = new QuizSession(roll, name, cls, subject, new ArrayList<>(n), n, index, clusters, seed, System.currentTimeMillis());
+        s.append(s.pickFor(0));
+        return s;
+    }
+
+    int size() { return length; }
+    boolean isAdaptive() { return index != null; }
+    double ability() { return ability; }
+    int current() { return current; }
+    Question currentQuestion() { return questions.get(current); }
+    boolean isLast() { return current >= length - 1; }
+
+    /** Original option index shown at {@code displayed} for question {@code qi}; same answer on every call. */
+    int original(int qi, int displayed) {
+        return SeededOrder.original(id, qi, questions.get(qi).options.length, displayed);
+    }
+
+    void select(int displayed) {
+        selected[current] = displayed;
+        Metrics.ANSWERS_RECORDED.inc();
+        count(current);
+    }
+
+    Integer selected(int qi) { return selected[qi]; }
+
+    /** Original option index the student picked for {@code qi}, or -1 if unanswered. */
+    int originalAnswer(int qi) {
+        Integer sel = selected[qi];
+        if (sel == null || sel < 0 || sel >= questions.get(qi).options.length) return -1;
+        return original(qi, sel);
+    }
+
+    boolean isCorrect(int qi) { return originalAnswer(qi) == questions.get(qi).correctIndex; }
+
+    /** Starts the clock for the current question; it stops on advance / back / finish. */
+    void questionShown() {
+        accrue();
+        shownAt = System.nanoTime();
+    }
+
+    void advance() {
+        if (current < length - 1) {
+            accrue();
+            count(current);
+            if (index != null && current == questions.size() - 1) append(adaptiveNext());
+            current++;
+        }
+    }
+
+    boolean back() {
+        if (current == 0) return false;
+        accrue();
+        count(current);
+        current--;
+        return true;
+    }
+
+    /** Stops the clock on the last question shown (also when the quiz is quit) and counts it. */
+    void finish() {
+        accrue();
+        count(current);
+    }
+
+    // ===== Item statistics =====
+    /**
+     * Counts answers in {@code stats} from now on: on every selection and whenever a question is left, replacing what
+     * was counted for that question before, so going back and changing an answer counts it once. The questions a
+     * resumed session has already left are counted now.
+     */
+    void countInto(ItemStats stats) {
+        this.stats = stats;
+        for (int i = 0; i < current; i++) count(i);
+    }
+
+    private void count(int qi) {
+        if (stats == null) return;
+        Question q = questions.get(qi);
+        int answer = originalAnswer(qi);
+        long millis = spentMillis(qi);
+        if (countedAnswer[qi] != NOT_COUNTED) {
+            if (countedAnswer[qi] == answer && countedMillis[qi] == millis) return;
+            stats.undo(q, countedAnswer[qi], countedMillis[qi]);
+        }
+        stats.record(q, answer, millis);
+        countedAnswer[qi] = answer;
+        countedMillis[qi] = millis;
+    }
+
+    /**
+     * Counts the answers of a checkpoint that will not be resumed (the questions up to the one on screen) in
+     * {@code stats}. Item statistics are saved only when a quiz ends or is quit, so these are not in them yet.
+     * False if a question is no longer in the bank.
+     */
+    static boolean countAbandoned(SessionCheckpoint.State st, CompactBank bank, ItemStats stats) {
+        int n = Math.min(st.current + 1, st.questionIds.length);
+        Question[] qs = new Question[n];
+        for (int i = 0; i < n; i++) {
+            int at = bank.findById(st.questionIds[i]);
+            if (at < 0) return false;
+            qs[i] = bank.get(at);
+        }
+        for (int i = 0; i < n; i++) {
+            int sel = st.selected[i], k = qs[i].options.length;
+            stats.record(qs[i], sel < 0 || sel >= k ? -1 : SeededOrder.original(st.sessionId, i, k, sel), st.spentMillis[i]);
+        }
+        return true;
+    }
+
+    long spentMillis(int qi) { return spentNanos[qi] / 1_000_000L; }
+
+    /** Time since the current question was last shown (0 if its clock is stopped). */
+    long millisOnCurrent() { return shownAt < 0 ? 0 : (System.nanoTime() - shownAt) / 1_000_000L; }
+
+    // ===== Checkpoint / resume =====
+    /** Copy of the state needed to resume; cheap enough to take after every answer. */
+    SessionCheckpoint.State checkpoint() {
+        SessionCheckpoint.State st = new SessionCheckpoint.State();
+        st.sessionId = id;
+        st.startedAt = startedAt;
+        st.roll = roll;
+        st.name = name;
+        st.cls = cls;
+        st.subject = subject;
+        st.adaptive = index != null;
+        st.length = length;
+        st.rated = rated;
+        st.ability = ability;
+        st.current = current;
+        int n = questions.size();
+        st.questionIds = new int[n];
+        st.selected = new int[n];
+        st.spentMillis = new long[n];
+        for (int i = 0; i < n; i++) {
+            st.questionIds[i] = Question.idCode(questions.get(i));
+            st.selected[i] = selected[i] == null ? -1 : selected[i];
+            st.spentMillis[i] = spentNanos[i] / 1_000_000L;
+        }
+        if (shownAt >= 0) st.spentMillis[current] += millisOnCurrent();
+        return st;
+    }
+
+    /**
+     * Rebuilds a session from a checkpoint against the current bank; the session id brings back the option order.
+     * Returns null if a question is no longer in the bank. Adaptive sessions need {@code index} to keep picking;
+     * {@code clusters} (nullable) keeps their later picks clear of near-duplicates.
+     */
+    static QuizSession resume(SessionCheckpoint.State st, CompactBank bank, AdaptiveIndex index, DedupAnalyzer.Clusters clusters) {
+        List<Question> qs = new ArrayList<>(st.length);
+        for (int i = 0; i < st.questionIds.length; i++) {
+            int at = bank.findById(st.questionIds[i]);
+            if (at < 0) return null;
+            qs.add(bank.get(at));
+        }
+        if (qs.isEmpty() || st.current >= qs.size() || (st.adaptive && index == null)) return null;
+        QuizSession s = new QuizSession(st.roll, st.name, st.cls, st.subject, qs, st.adaptive ? st.length : qs.size(),
+                st.adaptive ? index : null, clusters, st.sessionId, st.startedAt);
+        for (int i = 0; i < qs.size(); i++) {
+            s.selected[i] = st.selected[i] < 0 ? null : st.selected[i];
+            s.spentNanos[i] = st.spentMillis[i] * 1_000_000L;
+        }
+        if (s.index != null) {
+            CompactBank ib = index.bank();
+            for (int i = 0; i < qs.size(); i++) {
+                s.bankIndex[i] = ib == bank ? bank.findById(st.questionIds[i]) : ib.indexOf(qs.get(i));
+                s.exclude(s.bankIndex[i]);
+            }
+        }
+        s.ability = st.ability;
+        s.rated = st.rated;
+        s.current = st.current;
+        return s;
+    }
+
+    // ===== Adaptive selection =====
+    /**
+     * Precomputes the follow-up question for both outcomes of the question on screen, so advancing is a lookup.
+     * Call while the current question is displayed; a no-op for fixed quizzes or when not at the frontier.
+     */
+    void prepareNext() {
+        if (index == null || current != questions.size() - 1 || isLast() || nextIfCorrect >= 0 || nextIfWrong >= 0) return;
+        double p = AdaptiveIndex.expected(ability, index.rating(bankIndex[current]));
+        nextIfCorrect = pickFor(ability + step() * (1 - p));
+        nextIfWrong = pickFor(ability - step() * p);
+    }
+
+    /** Questions that can be shown after the current one: the next in order, or both adaptive candidates. */
+    List<Question> upcoming() {
+        if (isLast()) return Collections.emptyList();
+        if (current + 1 < questions.size()) return Collections.singletonList(questions.get(current + 1));
+        if (index == null) return Collections.emptyList();
+        prepareNext();
+        List<Question> out = new ArrayList<>(2);
+        if (nextIfCorrect >= 0) out.add(index.bank().get(nextIfCorrect));
+        if (nextIfWrong >= 0 && nextIfWrong != nextIfCorrect) out.add(index.bank().get(nextIfWrong));
+        return out;
+    }
+
+    // folds the frontier answer into ability / item difficulty, then takes the matching precomputed pick
+    private int adaptiveNext() {
+        prepareNext();
+        int at = bankIndex[current];
+        boolean correct = isCorrect(current);
+        double p = AdaptiveIndex.expected(ability, index.rating(at));
+        index.update(at, ability, correct);
+        ability += step() * ((correct ? 1 : 0) - p);
+        rated++;
+        int next = correct ? nextIfCorrect : nextIfWrong;
+        nextIfCorrect = nextIfWrong = -1;
+        return next >= 0 ? next : pickFor(ability);
+    }
+
+    // larger steps early on, so the estimate converges within a short quiz
+    private double step() { return AdaptiveIndex.ABILITY_K * 4.0 / (4.0 + rated); }
+
+    // a little seeded jitter (+-0.25) so students of equal ability do not all see the same sequence
+    private int pickFor(double ability) {
+        double u = (SeededOrder.mix(id, -2 - questions.size()) >>> 11) * 0x1.0p-53;
+        return index.pick(subject, AdaptiveIndex.targetFor(ability) + (u - 0.5) * 0.5, asked);
+    }
+
+    // the only place an adaptive pick is decoded into a Question
+    private void append(int at) {
+        bankIndex[questions.size()] = at;
+        questions.add(index.bank().get(at));
+        exclude(at);
+    }
+
+    private void exclude(int at) {
+        if (at < 0) return;
+        asked.set(at);
+        if (clusters == null) return;
+        CompactBank ib = index.bank();
+        if (clusters.bank == ib) {
+            int c = clusters.clusterOf(at);
+            if (c >= 0) for (int m : clusters.members(c)) asked.set(m);
+        } else {
+            for (Question mate : clusters.matesOf(ib.get(at))) {
+                int m = ib.indexOf(mate);
+                if (m >= 0) asked.set(m);
+            }
+        }
+    }
+
+    private void accrue() {
+        if (shownAt < 0) return;
+        spentNanos[current] += System.nanoTime() - shownAt;
+        shownAt = -1;
+    }
+
+    int correctCount() { return Scoring.countCorrect(questions, selected, id); }
+
+    // copy for snapshots taken by exports; (id, answers) reproduce everything else
+    Integer[] selectedCopy() { return selected.clone(); }
+}
@@ -0,0 +1,195 @@
+// ResultCollector.java
+// Central end of ResultOutbox: a small HTTP server that merges result batches from the lab machines into one
+// ScoreStore folder, so the office sees every finished quiz as soon as the network allows.
+// POST /results takes a (gzip) batch of "<result key>,<score CSV>" lines with an Idempotency-Key header. The key of
+// each stored result is appended to <dir>/.received right after its row, then the batch key (fsync'd), so a retried
+// batch or a result delivered twice is acknowledged again but stored once, across restarts too.
+// Every request must carry the lab's shared token ("Authorization: Bearer <token>"); it listens on loopback only
+// unless --bind names the LAN address.
+//
+//   java -cp out ResultCollector --token <secret> [--port 8787] [--bind 0.0.0.0] [<scores dir>]   (default ~/skillnest_central)
+//   java -Dskillnest.collector=http://<collector host>:8787/results -Dskillnest.collector.token=<secret> -jar SkillNestQuiz.jar
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+final class ResultCollector {
+    static final int DEFAULT_PORT = 8787;
+    static final String PATH = "/results";
+    static final int MAX_ROWS = ResultOutbox.MAX_BATCH * 4; // larger bodies are refused (413)
+    static final String TOKEN_PROPERTY = "skillnest.collector.token";
+    private static final String RECEIVED = ".received";
+
+    private final ScoreStore store;
+    private final Path received;
+    private final byte[] token;
+    private final Set<String> results = new HashSet<>(), batches = new HashSet<>();
+
+    ResultCollector(Path dir, String token) throws IOException {
+        if (token == null || token.trim().isEmpty()) throw new IllegalArgumentException("A shared token is required");
+        this.token = token.trim().getBytes(StandardCharsets.UTF_8);
+        this.store = new ScoreStore(dir);
+        this.received = dir.resolve(RECEIVED);
+        Files.createDirectories(dir);
+        if (Files.exists(received)) {
+            try (BufferedReader br = Files.newBufferedReader(received, StandardCharsets.UTF_8)) {
+                String ln;
+                while ((ln = br.readLine()) != null) {
+                    if (ln.startsWith("r ")) results.add(ln.substring(2));
+                    else if (ln.startsWith("b ")) batches.add(ln.substring(2));
+                }
+            }
+        }
+    }
+
+    ScoreStore store() { return store; }
+
+    /** Outcome of one batch: results stored now and results already stored before. */
+    static final class Receipt {
+        final int stored, duplicates;
+        final boolean repeatedBatch;
+
+        Receipt(int stored, int duplicates, boolean repeatedBatch) {
+            this.stored = stored;
+            this.duplicates = duplicates;
+            this.repeatedBatch = repeatedBatch;
+        }
+
+        @Override
+        public String toString() {
+            return repeatedBatch ? "batch already received" : stored + " stored, " + duplicates + " duplicate(s)";
+        }
+    }
+
+    /**
+     * Stores the new results of one batch. The whole batch is checked first, so a malformed line
+     * (IllegalArgumentException) stores nothing.
+     */
+    synchronized Receipt accept(String batchKey, BufferedReader body) throws IOException {
+        if (batchKey != null && batches.contains(batchKey)) return new Receipt(0, 0, true);
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        String ln;
+        int lineNo = 0;
+        while ((ln = body.readLine()) != null) {
+            lineNo++;
+            if (ln.trim().isEmpty()) continue;
+            int comma = ln.indexOf(',');
+            String key = comma < 0 ? "" : ln.substring(0, comma);
+            if (!key.matches("[0-9a-f]{32}")) throw new IllegalArgumentException("line " + lineNo + ": no result key");
+            String[] row = ScoreStore.parseCsvLine(ln.substring(comma + 1));
+            if (row[0].trim().isEmpty()) throw new IllegalArgumentException("line " + lineNo + ": no roll");
+            if (rows.size() >= MAX_ROWS) throw new IllegalStateException("more than " + MAX_ROWS + " results in one batch");
+            rows.putIfAbsent(key, row);
+        }
+        int stored = 0, duplicates = 0;
+        try (FileChannel ch = FileChannel.open(received, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (Map.Entry<String, String[]> e : rows.entrySet()) {
+                if (results.contains(e.getKey())) { duplicates++; continue; }
+                store.append(e.getValue());
+                // right after its row: if a later row fails, the retry skips the ones already stored
+                writeLine(ch, "r " + e.getKey());
+                results.add(e.getKey());
+                stored++;
+            }
+            // the batch key last: a crash before it only means the retry finds every row a duplicate
+            if (batchKey != null) writeLine(ch, "b " + batchKey);
+            ch.force(false);
+        }
+        if (batchKey != null) batches.add(batchKey);
+        return new Receipt(stored, duplicates, false);
+    }
+
+    private static void writeLine(FileChannel ch, String line) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    // ===== HTTP =====
+    HttpServer serve(InetSocketAddress addr) throws IOException {
+        HttpServer http = HttpServer.create(addr, 0);
+        http.createContext(PATH, this::handle);
+        http.setExecutor(Executors.newFixedThreadPool(4));
+        http.start();
+        return http;
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                reply(ex, 405, "POST a batch of results");
+                return;
+            }
+            if (!authorized(ex.getRequestHeaders().getFirst("Authorization"))) {
+                System.err.println("[collector] refused " + ex.getRemoteAddress().getAddress().getHostAddress() + ": bad or missing token");
+                reply(ex, 401, "Wrong or missing collector token");
+                return;
+            }
+            InputStream in = ex.getRequestBody();
+            if ("gzip".equalsIgnoreCase(ex.getRequestHeaders().getFirst("Content-Encoding"))) in = new GZIPInputStream(in, QuestionLoader.GZIP_BUFFER);
+            String key = ex.getRequestHeaders().getFirst(ResultOutbox.KEY_HEADER);
+            Receipt r;
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                r = accept(key, br);
+            }
+            System.out.println("[collector] " + ex.getRemoteAddress().getAddress().getHostAddress() + " batch " + key + ": " + r);
+            reply(ex, 200, r.toString());
+        } catch (IllegalArgumentException e) {
+            reply(ex, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            reply(ex, 413, e.getMessage());
+        } catch (IOException e) {
+            System.err.println("[collector] batch failed: " + e);
+            reply(ex, 500, "Not stored: " + e.getMessage());
+        } finally {
+            ex.close();
+        }
+    }
+
+    private boolean authorized(String header) {
+        String prefix = "Bearer ";
+        if (header == null || !header.regionMatches(true, 0, prefix, 0, prefix.length())) return false;
+        // constant time, so the token cannot be guessed byte by byte from response times
+        return MessageDigest.isEqual(token, header.substring(prefix.length()).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void reply(HttpExchange ex, int status, String text) throws IOException {
+        byte[] body = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) { os.write(body); }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(System.getProperty("user.home"), "skillnest_central");
+        int port = DEFAULT_PORT;
+        String bind = "127.0.0.1";
+        String token = System.getProperty(TOKEN_PROPERTY);
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--bind": bind = args[++i]; break;
+                case "--token": token = args[++i]; break;
+                default: dir = Paths.get(args[i]);
+            }
+        }
+        if (token == null || token.trim().isEmpty()) {
+            System.err.println("[collector] no shared token: start with --token <secret> or -D" + TOKEN_PROPERTY + "=<secret>");
+            System.exit(2);
+        }
+        ResultCollector c = new ResultCollector(dir, token);
+        c.serve(new InetSocketAddress(bind, port));
+        System.out.println("[collector] storing results in " + dir + ", listening on http://" + bind + ":" + port + PATH
+                + " (" + c.results.size() + " results received so far)");
+    }
+}
@@ -0,0 +1,290 @@
+// ResultOutbox.java
+// Offline-first shipping of finished results to a central ResultCollector (-Dskillnest.collector=http://host:8787/results,
+// -Dskillnest.collector.token=<the collector's shared token>).
+// saveScore enqueues each row after writing it locally: one fsync'd line (result key + the score CSV) appended to
+// ~/.skillnest_outbox/queue.csv. A daemon thread cuts the queue into gzip batch files of up to MAX_BATCH rows and
+// POSTs them oldest first with the batch key as Idempotency-Key; a batch file is deleted only once the collector
+// acknowledged it, so results survive restarts and network outages. Failures back off exponentially (with jitter)
+// up to MAX_BACKOFF_MS; a batch the collector rejects outright (4xx) is moved to rejected/ and reported. A refused
+// token (401/403) is a setup problem, not a bad batch, so those batches stay queued and are retried.
+// Result keys make redelivery harmless: the collector keeps each result once however often a batch is retried.
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+final class ResultOutbox {
+    static final int MAX_BATCH = 500;
+    static final long MIN_BACKOFF_MS = 1_000, MAX_BACKOFF_MS = 5 * 60_000;
+    static final long IDLE_POLL_MS = 30_000;   // re-check the folder even without an enqueue (e.g. batches left by a crash)
+    static final String KEY_HEADER = "Idempotency-Key";
+    private static final String QUEUE = "queue.csv", REJECTED = "rejected";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final Path dir, queue;
+    private final URI collector;
+    private final String token;
+    private final HttpClient http;
+    private final Object lock = new Object(); // queue file; notified on enqueue and close
+    private volatile Thread shipper;
+
+    ResultOutbox(Path dir, URI collector, String token) {
+        this.dir = dir;
+        this.queue = dir.resolve(QUEUE);
+        this.collector = collector;
+        this.token = token == null ? "" : token.trim();
+        this.http = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    }
+
+    /** The configured outbox, already shipping, or null when -Dskillnest.collector is not set. */
+    static ResultOutbox startFromSystemProperties(Path dir) {
+        String url = System.getProperty("skillnest.collector");
+        if (url == null || url.trim().isEmpty()) return null;
+        String token = System.getProperty(ResultCollector.TOKEN_PROPERTY);
+        if (token == null || token.trim().isEmpty()) System.err.println("[outbox] -D" + ResultCollector.TOKEN_PROPERTY + " is not set; the collector will refuse our batches");
+        ResultOutbox o = new ResultOutbox(dir, URI.create(url.trim()), token);
+        o.start();
+        return o;
+    }
+
+    URI collector() { return collector; }
+
+    /** Queues one result row (ScoreStore columns) durably; returns its result key. Never touches the network. */
+    String enqueue(String... fields) throws IOException {
+        String key = newKey();
+        byte[] line = (key + "," + ScoreStore.toCsvLine(fields) + "\n").getBytes(StandardCharsets.UTF_8);
+        synchronized (lock) {
+            Files.createDirectories(dir);
+            try (FileChannel ch = FileChannel.open(queue, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buf = ByteBuffer.wrap(line);
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(false);
+            }
+            lock.notifyAll();
+        }
+        Metrics.OUTBOX_PENDING.set(pending());
+        return key;
+    }
+
+    /** Results not yet acknowledged by the collector (queued plus cut into batches). */
+    int pending() {
+        int n = 0;
+        try {
+            synchronized (lock) {
+                if (Files.exists(queue)) n += lines(queue);
+            }
+            for (Path b : batches()) n += batchRows(b);
+        } catch (IOException e) {
+            System.err.println("[outbox] cannot count pending results: " + e.getMessage());
+        }
+        return n;
+    }
+
+    // ===== Shipping =====
+    void start() {
+        if (shipper != null) return;
+        Thread t = new Thread(this::shipLoop, "skillnest-outbox");
+        t.setDaemon(true);
+        shipper = t;
+        t.start();
+        System.out.println("[outbox] shipping results to " + collector);
+    }
+
+    void close() {
+        Thread t = shipper;
+        shipper = null;
+        if (t != null) t.interrupt();
+    }
+
+    private void shipLoop() {
+        long backoff = 0;
+        try {
+            while (shipper == Thread.currentThread()) {
+                Path batch;
+                try {
+                    batch = nextBatch();
+                } catch (IOException e) {
+                    System.err.println("[outbox] cannot cut a batch: " + e.getMessage());
+                    batch = null;
+                    backoff = nextBackoff(backoff);
+                }
+                if (batch == null) {
+                    synchronized (lock) {
+                        if (backoff > 0 || !Files.exists(queue)) lock.wait(backoff > 0 ? jitter(backoff) : IDLE_POLL_MS);
+                    }
+                    continue;
+                }
+                if (ship(batch)) {
+                    backoff = 0;
+                    Metrics.OUTBOX_PENDING.set(pending());
+                } else {
+                    backoff = nextBackoff(backoff);
+                    Metrics.OUTBOX_RETRIES.inc();
+                    Thread.sleep(jitter(backoff));
+                }
+            }
+        } catch (InterruptedException ignored) {
+            // closed
+        }
+    }
+
+    private static long nextBackoff(long backoff) { return Math.min(MAX_BACKOFF_MS, Math.max(MIN_BACKOFF_MS, backoff * 2)); }
+
+    // 50-100% of the delay, so machines that lost the collector together do not retry in lockstep
+    private static long jitter(long ms) { return ms / 2 + ThreadLocalRandom.current().nextLong(ms / 2 + 1); }
+
+    /** POSTs one batch; true once it is acknowledged (or rejected for good and set aside), false to retry later. */
+    private boolean ship(Path batch) {
+        String key = batchKey(batch);
+        HttpRequest.Builder rb = HttpRequest.newBuilder(collector)
+                .timeout(TIMEOUT)
+                .header("Content-Type", "text/csv; charset=utf-8")
+                .header("Content-Encoding", "gzip")
+                .header(KEY_HEADER, key);
+        if (!token.isEmpty()) rb.header("Authorization", "Bearer " + token);
+        HttpRequest req = rb.POST(batchBody(batch)).build();
+        int status;
+        String reply;
+        try {
+            HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+            status = resp.statusCode();
+            reply = resp.body().trim();
+        } catch (IOException e) {
+            System.err.println("[outbox] " + collector + " unreachable, will retry: " + e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            if (status / 100 == 2) {
+                Files.delete(batch);
+                Metrics.OUTBOX_BATCHES_SHIPPED.inc();
+                System.out.println("[outbox] batch " + key + " delivered: " + reply);
+                return true;
+            }
+            if (status == 401 || status == 403) {
+                System.err.println("[outbox] collector refused our token (" + status + "); check -D" + ResultCollector.TOKEN_PROPERTY + ", will retry");
+                return false;
+            }
+            if (status == 408 || status == 429 || status >= 500) {
+                System.err.println("[outbox] collector answered " + status + " for batch " + key + ", will retry: " + reply);
+                return false;
+            }
+            Path to = dir.resolve(REJECTED).resolve(batch.getFileName());
+            Files.createDirectories(to.getParent());
+            Files.move(batch, to, StandardCopyOption.REPLACE_EXISTING);
+            System.err.println("[outbox] collector rejected batch " + key + " (" + status + " " + reply + "); kept in " + to);
+            return true;
+        } catch (IOException e) {
+            System.err.println("[outbox] cannot clear batch " + batch + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static HttpRequest.BodyPublisher batchBody(Path batch) {
+        try {
+            return HttpRequest.BodyPublishers.ofFile(batch);
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ===== Batches =====
+    /**
+     * The oldest batch file; when there is none, cuts one from the head of the queue (at most MAX_BATCH rows),
+     * keeping the rest queued. Null when nothing is pending.
+     */
+    private Path nextBatch() throws IOException {
+        List<Path> existing = batches();
+        if (!existing.isEmpty()) return existing.get(0);
+        synchronized (lock) {
+            if (!Files.exists(queue)) return null;
+            List<String> head = new ArrayList<>(), rest = new ArrayList<>();
+            try (BufferedReader br = Files.newBufferedReader(queue, StandardCharsets.UTF_8)) {
+                String ln;
+                while ((ln = br.readLine()) != null) {
+                    if (ln.trim().isEmpty()) continue;
+                    (head.size() < MAX_BATCH ? head : rest).add(ln);
+                }
+            }
+            if (head.isEmpty()) {
+                Files.delete(queue);
+                return null;
+            }
+            Path batch = dir.resolve(String.format("batch-%013d-%d-%s.csv.gz", System.currentTimeMillis(), head.size(), newKey()));
+            Path tmp = dir.resolve(batch.getFileName() + ".tmp");
+            try (Writer w = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8)) {
+                for (String ln : head) w.write(ln + "\n");
+            }
+            forceFile(tmp);
+            Files.move(tmp, batch, StandardCopyOption.ATOMIC_MOVE);
+            // a crash here ships the head twice; the result keys make that harmless
+            if (rest.isEmpty()) {
+                Files.delete(queue);
+            } else {
+                Path q = dir.resolve(QUEUE + ".tmp");
+                Files.write(q, rest, StandardCharsets.UTF_8);
+                forceFile(q);
+                Files.move(q, queue, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return batch;
+        }
+    }
+
+    // batch-<millis>-<rows>-<key>.csv.gz files, oldest first
+    private List<Path> batches() throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return out;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "batch-*.csv.gz")) {
+            for (Path p : ds) out.add(p);
+        }
+        out.sort(null);
+        return out;
+    }
+
+    static String batchKey(Path batch) {
+        String n = batch.getFileName().toString();
+        return n.substring(n.lastIndexOf('-') + 1, n.length() - ".csv.gz".length());
+    }
+
+    private static int batchRows(Path batch) {
+        String[] parts = batch.getFileName().toString().split("-");
+        try {
+            return Integer.parseInt(parts[2]);
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static int lines(Path f) throws IOException {
+        int n = 0;
+        try (BufferedReader br = Files.newBufferedReader(f, StandardCharsets.UTF_8)) {
+            String ln;
+            while ((ln = br.readLine()) != null) if (!ln.trim().isEmpty()) n++;
+        }
+        return n;
+    }
+
+    private static void forceFile(Path f) throws IOException {
+        try (FileChannel ch = FileChannel.open(f, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+    }
+
+    // 128 random bits, hex
+    static String newKey() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        return String.format("%016x%016x", r.nextLong(), r.nextLong());
+    }
+}
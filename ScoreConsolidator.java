@@ -0,0 +1,322 @@
+// ScoreConsolidator.java
+// Merges score files gathered from many lab machines into one clean CSV, sorted by roll then timestamp, with
+// identical attempts (all seven fields equal) kept once. Inputs may be larger than memory: rows are read into a chunk
+// until the estimated heap it holds reaches half the budget, sorted, deduplicated and spilled to a temp run file;
+// the runs are then k-way merged (in several passes if one pass would need more read buffers than the budget
+// allows). Rows are read and written with ScoreStore's CSV rules.
+//
+//   java -cp out ScoreConsolidator -o merged.csv [--memory 64m] [--tmp <dir>] <file.csv[.gz] | dir>...
+//
+// A directory is searched recursively for *.csv and *.csv.gz, so a whole ~/skillnest_scores folder (sealed
+// segments, archived terms and current.csv) can be given as well. An output ending in .gz is gzipped.
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+final class ScoreConsolidator {
+    private ScoreConsolidator() {}
+
+    static final long DEFAULT_MEMORY = 64L << 20;
+    static final int RUN_BUFFER = 1 << 16;     // read buffer per run during a merge
+    private static final int ROW_OVERHEAD = 96; // Row + two String headers + list slot, bytes
+
+    /** What a consolidation read, dropped and wrote. */
+    static final class Stats {
+        int files, runs, passes;
+        long rowsRead, blank, headers, noRoll, undated, duplicates, rowsWritten, students;
+        long minTime = Long.MAX_VALUE, maxTime = Long.MIN_VALUE, millis;
+
+        @Override
+        public String toString() {
+            return String.format("%d file(s), %d rows read (%d headers, %d blank, %d without roll skipped)%n"
+                            + "%d duplicate attempts removed, %d rows written for %d students (%d undated)%n"
+                            + "%s .. %s, %d sorted run(s), %d merge pass(es), %d ms",
+                    files, rowsRead, headers, blank, noRoll, duplicates, rowsWritten, students, undated,
+                    minTime == Long.MAX_VALUE ? "-" : java.time.Instant.ofEpochMilli(minTime),
+                    maxTime == Long.MIN_VALUE ? "-" : java.time.Instant.ofEpochMilli(maxTime), runs, passes, millis);
+        }
+    }
+
+    // One score row: sort key plus its canonical CSV line (identical attempts have identical lines).
+    private static final class Row implements Comparable<Row> {
+        final String roll, line;
+        final long time;
+
+        Row(String roll, long time, String line) {
+            this.roll = roll;
+            this.time = time;
+            this.line = line;
+        }
+
+        @Override
+        public int compareTo(Row o) {
+            int c = roll.compareTo(o.roll);
+            if (c != 0) return c;
+            c = Long.compare(time, o.time); // undated rows first
+            return c != 0 ? c : line.compareTo(o.line);
+        }
+
+        long heapBytes() { return ROW_OVERHEAD + 2L * (roll.length() + line.length()); }
+    }
+
+    /**
+     * Merges {@code inputs} (files or directories) into {@code out} using at most about {@code memoryBytes} of heap
+     * for rows and buffers. Temp runs go under {@code tmpParent} and are deleted afterwards.
+     */
+    static Stats consolidate(List<Path> inputs, Path out, long memoryBytes, Path tmpParent) throws IOException {
+        long t0 = System.nanoTime();
+        Stats st = new Stats();
+        List<Path> files = new ArrayList<>();
+        for (Path p : inputs) files.addAll(scoreFiles(p));
+        if (files.isEmpty()) throw new NoSuchFileException(inputs.toString(), null, "no *.csv or *.csv.gz score files");
+        st.files = files.size();
+
+        Path tmp = Files.createTempDirectory(tmpParent, "skillnest-merge");
+        try {
+            List<Path> runs = spillRuns(files, memoryBytes / 2, tmp, st);
+            st.runs = runs.size();
+            int fanIn = (int) Math.max(2, memoryBytes / (2L * RUN_BUFFER));
+            while (runs.size() > fanIn) {
+                List<Path> next = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<Path> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+                    if (group.size() == 1) { next.add(group.get(0)); continue; }
+                    Path merged = Files.createTempFile(tmp, "run", ".bin");
+                    try (DataOutputStream dos = runWriter(merged)) {
+                        merge(group, row -> writeRow(dos, row), st);
+                    }
+                    for (Path r : group) Files.delete(r);
+                    next.add(merged);
+                }
+                runs = next;
+                st.passes++;
+            }
+            writeOutput(runs, out, st);
+            st.passes++;
+        } finally {
+            try (Stream<Path> s = Files.walk(tmp)) {
+                s.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        st.millis = (System.nanoTime() - t0) / 1_000_000;
+        return st;
+    }
+
+    // *.csv / *.csv.gz files under p (p itself if it is a file), in path order
+    static List<Path> scoreFiles(Path p) throws IOException {
+        if (!Files.isDirectory(p)) {
+            if (Files.notExists(p)) throw new NoSuchFileException(p.toString());
+            return Collections.singletonList(p);
+        }
+        try (Stream<Path> s = Files.walk(p)) {
+            List<Path> out = new ArrayList<>();
+            s.filter(Files::isRegularFile).filter(f -> {
+                String n = f.getFileName().toString().toLowerCase();
+                return n.endsWith(".csv") || n.endsWith(".csv.gz");
+            }).sorted().forEach(out::add);
+            return out;
+        }
+    }
+
+    // ===== Phase 1: sorted runs =====
+    private static List<Path> spillRuns(List<Path> files, long chunkBytes, Path tmp, Stats st) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>();
+        long held = 0;
+        for (Path f : files) {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(open(f), StandardCharsets.UTF_8), QuestionLoader.GZIP_BUFFER)) {
+                String ln;
+                while ((ln = br.readLine()) != null) {
+                    Row r = parse(ln, st);
+                    if (r == null) continue;
+                    chunk.add(r);
+                    held += r.heapBytes();
+                    if (held >= chunkBytes) {
+                        runs.add(spill(chunk, tmp, st));
+                        chunk.clear();
+                        held = 0;
+                    }
+                }
+            } catch (IOException e) {
+                throw new IOException(f + ": " + e.getMessage(), e);
+            }
+        }
+        if (!chunk.isEmpty() || runs.isEmpty()) runs.add(spill(chunk, tmp, st));
+        return runs;
+    }
+
+    private static InputStream open(Path f) throws IOException {
+        return QuestionLoader.isGzip(f) ? QuestionLoader.inflate(f) : Files.newInputStream(f);
+    }
+
+    // null for blank lines, headers and rows without a roll (counted in st)
+    private static Row parse(String ln, Stats st) {
+        if (ln.trim().isEmpty()) { st.blank++; return null; }
+        if (ln.regionMatches(true, 0, "roll,", 0, 5)) { st.headers++; return null; }
+        st.rowsRead++;
+        String[] f = ScoreStore.parseCsvLine(ln);
+        for (int i = 0; i < f.length; i++) f[i] = f[i].trim();
+        if (f[0].isEmpty()) { st.noRoll++; return null; }
+        return new Row(f[0], ScoreSegment.timeOf(f[6]), ScoreStore.toCsvLine(f));
+    }
+
+    private static Path spill(List<Row> chunk, Path tmp, Stats st) throws IOException {
+        chunk.sort(null);
+        Path run = Files.createTempFile(tmp, "run", ".bin");
+        try (DataOutputStream dos = runWriter(run)) {
+            Row prev = null;
+            for (Row r : chunk) {
+                if (prev != null && prev.line.equals(r.line)) { st.duplicates++; continue; }
+                writeRow(dos, r);
+                prev = r;
+            }
+        }
+        return run;
+    }
+
+    // ===== Run files: (long time, varint roll length, roll, varint line length, line) per row, UTF-8 =====
+    private static DataOutputStream runWriter(Path f) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(f), RUN_BUFFER));
+    }
+
+    private static void writeRow(DataOutputStream dos, Row r) throws IOException {
+        dos.writeLong(r.time);
+        writeString(dos, r.roll);
+        writeString(dos, r.line);
+    }
+
+    private static void writeString(DataOutputStream dos, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        ItemStats.writeVar(dos, b.length);
+        dos.write(b);
+    }
+
+    private static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        Row head;
+
+        RunReader(Path f) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f), RUN_BUFFER));
+            advance();
+        }
+
+        void advance() throws IOException {
+            long time;
+            try {
+                time = in.readLong();
+            } catch (EOFException end) {
+                head = null;
+                return;
+            }
+            String roll = readString();
+            head = new Row(roll, time, readString());
+        }
+
+        private String readString() throws IOException {
+            byte[] b = new byte[(int) ItemStats.readVar(in)];
+            in.readFully(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException { in.close(); }
+    }
+
+    // ===== Phase 2: k-way merge =====
+    private interface RowSink {
+        void accept(Row r) throws IOException;
+    }
+
+    // merges sorted runs, passing each distinct row to sink once, in order
+    private static void merge(List<Path> runs, RowSink sink, Stats st) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(runs.size(), Comparator.comparing((RunReader r) -> r.head));
+        List<RunReader> open = new ArrayList<>(runs.size());
+        try {
+            for (Path p : runs) {
+                RunReader r = new RunReader(p);
+                open.add(r);
+                if (r.head != null) heap.add(r);
+            }
+            Row prev = null;
+            while (!heap.isEmpty()) {
+                RunReader r = heap.poll();
+                Row row = r.head;
+                if (prev != null && prev.line.equals(row.line)) st.duplicates++;
+                else {
+                    sink.accept(row);
+                    prev = row;
+                }
+                r.advance();
+                if (r.head != null) heap.add(r);
+            }
+        } finally {
+            for (RunReader r : open) r.close();
+        }
+    }
+
+    private static void writeOutput(List<Path> runs, Path out, Stats st) throws IOException {
+        Path abs = out.toAbsolutePath();
+        if (abs.getParent() != null) Files.createDirectories(abs.getParent());
+        Path part = abs.resolveSibling(abs.getFileName() + ".part");
+        OutputStream os = Files.newOutputStream(part);
+        if (QuestionLoader.isGzip(out)) os = new GZIPOutputStream(os, QuestionLoader.GZIP_BUFFER);
+        try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), RUN_BUFFER)) {
+            bw.write(ScoreStore.HEADER);
+            bw.write('\n');
+            String[] lastRoll = {null};
+            merge(runs, row -> {
+                bw.write(row.line);
+                bw.write('\n');
+                st.rowsWritten++;
+                if (!row.roll.equals(lastRoll[0])) {
+                    st.students++;
+                    lastRoll[0] = row.roll;
+                }
+                if (row.time == ScoreSegment.UNDATED) st.undated++;
+                else {
+                    st.minTime = Math.min(st.minTime, row.time);
+                    st.maxTime = Math.max(st.maxTime, row.time);
+                }
+            }, st);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        Files.move(part, abs, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ===== Command line =====
+    public static void main(String[] args) throws IOException {
+        Path out = null, tmp = Paths.get(System.getProperty("java.io.tmpdir"));
+        long memory = DEFAULT_MEMORY;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o": out = Paths.get(args[++i]); break;
+                case "--memory": memory = parseSize(args[++i]); break;
+                case "--tmp": tmp = Paths.get(args[++i]); break;
+                default: inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (out == null || inputs.isEmpty()) {
+            System.err.println("usage: java ScoreConsolidator -o merged.csv [--memory 64m] [--tmp <dir>] <file.csv[.gz] | dir>...");
+            System.exit(2);
+        }
+        Stats st = consolidate(inputs, out, memory, tmp);
+        System.out.println(st);
+        System.out.println("[merge] wrote " + out + " (" + Files.size(out) / 1024 + " KB)");
+    }
+
+    // 64m, 512k, 1g or plain bytes
+    static long parseSize(String s) {
+        s = s.trim().toLowerCase();
+        int shift = s.endsWith("k") ? 10 : s.endsWith("m") ? 20 : s.endsWith("g") ? 30 : 0;
+        long n = Long.parseLong(shift == 0 ? s : s.substring(0, s.length() - 1));
+        if (n <= 0) throw new IllegalArgumentException("memory must be positive: " + s);
+        return n << shift;
+    }
+}
@@ -0,0 +1,309 @@
+// ScoreSegment.java
+// One sealed segment of the score log: a read-only, gzip-compressed CSV file (header + rows of one term).
+// Its footer (row count, timestamp range, subjects, a Bloom filter of roll numbers) is stored in the gzip header's
+// extra field ("SN" subfield), so a query can rule the segment out from its first few hundred bytes without
+// inflating it. Any gzip tool still reads the file as a plain CSV.
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+final class ScoreSegment {
+    private static final int FORMAT = 1;
+    private static final int BLOOM_HASHES = 7;           // ~1% false positives at 10 bits per roll
+    private static final int MAX_BLOOM_BYTES = 60_000;   // the whole extra field must stay under 64 KB
+    private static final int MAX_SUBJECT_BYTES = 4_096;  // more subjects than fit are not listed (see subjects)
+    private static final int MAX_EXTRA = 0xFFFF;         // gzip XLEN
+    static final long UNDATED = Long.MIN_VALUE;
+
+    final Path file;
+    final FileTime written;
+    final String term;
+    final int rows;
+    final long minTime, maxTime;   // epoch millis of dated rows; minTime > maxTime if there are none
+    final Set<String> subjects;    // case-insensitive; null if there were too many to list (may hold any subject)
+    private final byte[] rollBits;
+
+    private ScoreSegment(Path file, FileTime written, String term, int rows, long minTime, long maxTime,
+                         Set<String> subjects, byte[] rollBits) {
+        this.file = file;
+        this.written = written;
+        this.term = term;
+        this.rows = rows;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.subjects = subjects;
+        this.rollBits = rollBits;
+    }
+
+    // ===== Footer contents =====
+    /** Running summary of rows, kept for the live file and computed for each segment as it is sealed. */
+    static final class Stats {
+        String term;       // of the first row
+        int rows;
+        long minTime = Long.MAX_VALUE, maxTime = Long.MIN_VALUE;
+        final Set<String> subjects = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        final Set<String> rolls = new HashSet<>();
+
+        void add(String[] row) {
+            long t = timeOf(row[6]);
+            if (rows++ == 0) term = termOf(t);
+            if (t != UNDATED) {
+                minTime = Math.min(minTime, t);
+                maxTime = Math.max(maxTime, t);
+            }
+            subjects.add(row[3]);
+            rolls.add(row[0]);
+        }
+    }
+
+    /** Epoch millis of a score timestamp (ISO zoned date-time, as the app writes it), or UNDATED. */
+    static long timeOf(String ts) {
+        if (ts == null || ts.isEmpty()) return UNDATED;
+        long fast = isoMillis(ts);
+        if (fast != UNDATED) return fast;
+        try {
+            return ZonedDateTime.parse(ts.trim()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return UNDATED;
+        }
+    }
+
+    // ZonedDateTime.toString() shape: yyyy-MM-ddTHH:mm[:ss[.fraction]](Z|+hh:mm)[zone]. The offset alone fixes the
+    // instant, so the zone is not looked up (the full parser is ~50x slower). UNDATED = let the full parser decide.
+    private static long isoMillis(String s) {
+        int n = s.length();
+        if (n < 17 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T' || s.charAt(13) != ':') return UNDATED;
+        int y = digits(s, 0, 4), mo = digits(s, 5, 2), d = digits(s, 8, 2), h = digits(s, 11, 2), mi = digits(s, 14, 2);
+        if ((y | mo | d | h | mi) < 0 || h > 23 || mi > 59) return UNDATED;
+        int p = 16, sec = 0, millis = 0;
+        if (s.charAt(p) == ':') {
+            if ((sec = digits(s, p + 1, 2)) < 0 || sec > 59) return UNDATED;
+            p += 3;
+            if (p < n && s.charAt(p) == '.') {
+                for (int scale = 100; ++p < n && s.charAt(p) >= '0' && s.charAt(p) <= '9'; scale /= 10) millis += (s.charAt(p) - '0') * scale;
+            }
+        }
+        int offset;
+        if (p < n && s.charAt(p) == 'Z') {
+            offset = 0;
+            p++;
+        } else if (p + 6 <= n && (s.charAt(p) == '+' || s.charAt(p) == '-') && s.charAt(p + 3) == ':') {
+            int oh = digits(s, p + 1, 2), om = digits(s, p + 4, 2);
+            if ((oh | om) < 0) return UNDATED;
+            offset = (oh * 3600 + om * 60) * (s.charAt(p) == '-' ? -1 : 1);
+            p += 6;
+        } else {
+            return UNDATED;
+        }
+        if (p < n && s.charAt(p) != '[') return UNDATED; // e.g. an offset with seconds
+        long day;
+        try {
+            day = LocalDate.of(y, mo, d).toEpochDay();
+        } catch (DateTimeException e) {
+            return UNDATED;
+        }
+        return (day * 86400 + h * 3600 + mi * 60 + sec - offset) * 1000 + millis;
+    }
+
+    // non-negative value of len decimal digits at s[at], or -1
+    private static int digits(String s, int at, int len) {
+        int v = 0;
+        for (int i = at; i < at + len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /** Terms are calendar half-years in local time: 2026-H1 (January to June) and 2026-H2. */
+    static String termOf(long millis) {
+        if (millis == UNDATED) return "undated";
+        ZonedDateTime t = Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault());
+        return t.getYear() + (t.getMonthValue() <= 6 ? "-H1" : "-H2");
+    }
+
+    /** False only when no row of this segment can match {@code f}. */
+    boolean mayMatch(ScoreStore.Filter f) {
+        if (f.term != null && !f.term.equals(term)) return false;
+        if (f.subject != null && subjects != null && !subjects.contains(f.subject)) return false;
+        if (f.from != Long.MIN_VALUE || f.to != Long.MAX_VALUE) {
+            if (minTime > maxTime || maxTime < f.from || minTime > f.to) return false;
+        }
+        return f.roll == null || mightContainRoll(f.roll);
+    }
+
+    boolean mightContainRoll(String roll) {
+        long h = SeededOrder.mix(roll.hashCode(), 0x5C0);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int b = bit(h, i, rollBits.length * 8);
+            if ((rollBits[b >>> 3] & (1 << (b & 7))) == 0) return false;
+        }
+        return true;
+    }
+
+    // i-th probe of a roll hash (double hashing)
+    private static int bit(long h, int i, int bits) {
+        return Math.floorMod((int) h + i * ((int) (h >>> 32) | 1), bits);
+    }
+
+    private static byte[] bloom(Set<String> rolls) {
+        int bytes = (int) Math.min(MAX_BLOOM_BYTES, Math.max(8, (rolls.size() * 10L + 7) / 8));
+        byte[] bits = new byte[bytes];
+        for (String roll : rolls) {
+            long h = SeededOrder.mix(roll.hashCode(), 0x5C0);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int b = bit(h, i, bytes * 8);
+                bits[b >>> 3] |= (byte) (1 << (b & 7));
+            }
+        }
+        return bits;
+    }
+
+    // ===== Reading =====
+    /** Reads the footer from the gzip header; throws if the file is not a segment written by {@link #write}. */
+    static ScoreSegment read(Path f) throws IOException {
+        FileTime written = Files.getLastModifiedTime(f);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f), 4096))) {
+            if (in.readUnsignedShort() != 0x1F8B || in.readUnsignedByte() != 8) throw new IOException("Not gzip: " + f);
+            int flags = in.readUnsignedByte();
+            in.skipBytes(6); // mtime, xfl, os
+            if ((flags & 4) == 0) throw new IOException("No segment footer: " + f);
+            int xlen = le16(in);
+            while (xlen >= 4) {
+                int id = in.readUnsignedShort(), len = le16(in);
+                xlen -= 4 + len;
+                if (id != ('S' << 8 | 'N')) { in.skipBytes(len); continue; }
+                byte[] data = new byte[len];
+                in.readFully(data);
+                return footer(f, written, new DataInputStream(new ByteArrayInputStream(data)));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated segment: " + f, e);
+        }
+        throw new IOException("No segment footer: " + f);
+    }
+
+    private static ScoreSegment footer(Path f, FileTime written, DataInputStream in) throws IOException {
+        if (in.readUnsignedByte() != FORMAT) throw new IOException("Unknown segment format: " + f);
+        String term = in.readUTF();
+        int rows = (int) ItemStats.readVar(in);
+        long min = in.readLong(), max = in.readLong();
+        Set<String> subjects = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (int n = (int) ItemStats.readVar(in); n > 0; n--) subjects.add(in.readUTF());
+        byte[] bits = new byte[(int) ItemStats.readVar(in)];
+        in.readFully(bits);
+        // every segment has rows, so no subjects means they were not listed
+        return new ScoreSegment(f, written, term, rows, min, max, subjects.isEmpty() ? null : Collections.unmodifiableSet(subjects), bits);
+    }
+
+    /** The segment's CSV text, inflated as it is read. */
+    BufferedReader open() throws IOException {
+        return new BufferedReader(new InputStreamReader(QuestionLoader.inflate(file), StandardCharsets.UTF_8), QuestionLoader.GZIP_BUFFER);
+    }
+
+    // ===== Writing =====
+    /**
+     * Writes {@code lines} (CSV rows, no header) as a sealed segment at {@code f}: temp file, atomic move over any
+     * previous segment, then read-only. Returns the new segment.
+     */
+    static ScoreSegment write(Path f, List<String> lines) throws IOException {
+        Stats stats = new Stats();
+        for (String ln : lines) stats.add(ScoreStore.parseCsvLine(ln));
+        byte[] footer = footer(stats);
+        if (footer.length + 4 > MAX_EXTRA) throw new IOException("Segment footer too large (" + footer.length + " bytes): " + f);
+        Path tmp = f.resolveSibling(f.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(tmp), QuestionLoader.GZIP_BUFFER)) {
+            raw.write(new byte[]{0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 255}); // deflate, FEXTRA, no mtime, OS unknown
+            le16(raw, footer.length + 4);
+            raw.write('S');
+            raw.write('N');
+            le16(raw, footer.length);
+            raw.write(footer);
+            CRC32 crc = new CRC32();
+            DeflaterOutputStream deflated = new DeflaterOutputStream(raw, deflater, QuestionLoader.GZIP_BUFFER);
+            Writer w = new BufferedWriter(new OutputStreamWriter(new CheckedOutputStream(deflated, crc), StandardCharsets.UTF_8));
+            w.write(ScoreStore.HEADER);
+            w.write('\n');
+            for (String ln : lines) {
+                w.write(ln);
+                w.write('\n');
+            }
+            w.flush();
+            deflated.finish();
+            le32(raw, (int) crc.getValue());
+            le32(raw, (int) deflater.getBytesRead());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        makeWritable(f);
+        Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        f.toFile().setReadOnly();
+        return new ScoreSegment(f, Files.getLastModifiedTime(f), stats.term, stats.rows, stats.minTime, stats.maxTime,
+                listed(stats.subjects) ? Collections.unmodifiableSet(stats.subjects) : null, bloom(stats.rolls));
+    }
+
+    private static byte[] footer(Stats s) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT);
+        out.writeUTF(s.term == null ? "undated" : s.term);
+        ItemStats.writeVar(out, s.rows);
+        out.writeLong(s.minTime);
+        out.writeLong(s.maxTime);
+        if (listed(s.subjects)) {
+            ItemStats.writeVar(out, s.subjects.size());
+            for (String subj : s.subjects) out.writeUTF(subj);
+        } else {
+            ItemStats.writeVar(out, 0);
+        }
+        byte[] bits = bloom(s.rolls);
+        ItemStats.writeVar(out, bits.length);
+        out.write(bits);
+        return bytes.toByteArray();
+    }
+
+    // whether the subjects fit their share of the footer
+    private static boolean listed(Set<String> subjects) {
+        long bytes = 0;
+        for (String subj : subjects) bytes += 2 + subj.getBytes(StandardCharsets.UTF_8).length;
+        return bytes <= MAX_SUBJECT_BYTES;
+    }
+
+    /** Sealed segments are read-only; replacing or deleting one on Windows needs the flag cleared first. */
+    static void makeWritable(Path f) {
+        if (Files.exists(f)) f.toFile().setWritable(true);
+    }
+
+    private static int le16(DataInputStream in) throws IOException {
+        int lo = in.readUnsignedByte();
+        return lo | in.readUnsignedByte() << 8;
+    }
+
+    private static void le16(OutputStream out, int v) throws IOException {
+        out.write(v & 0xFF);
+        out.write(v >>> 8 & 0xFF);
+    }
+
+    private static void le32(OutputStream out, int v) throws IOException {
+        le16(out, v & 0xFFFF);
+        le16(out, v >>> 16);
+    }
+}
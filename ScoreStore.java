@@ -0,0 +1,743 @@
+// ScoreStore.java
+// Score log access (append / query / delete / archive), safe to call off the EDT.
+// Scores live in a directory (~/skillnest_scores/). Rows are appended to current.csv, which is sealed into a read-only
+// gzip segment (ScoreSegment, <term>/scores-00001.csv.gz) once it passes SEGMENT_BYTES or the next row belongs to
+// another term. Segment footers let queries and deletes skip segments without reading them. Archiving a term moves
+// its folder under archive/, which is no longer read. The old single skillnest_scores.csv is migrated on first use.
+// Several app instances may share the folder (home directories on a network volume): every operation holds a
+// FileLock on .lock, appends are batched into one positioned write, and a counter in .lock tells each instance when
+// another one has sealed or rewritten files.
+// Keeps the last full read so reopening the score manager does not re-read unchanged files.
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+class ScoreStore {
+    static final String HEADER = "Roll,Name,Class,Subject,Score,Total,Timestamp";
+    static final int COLUMNS = 7;
+    static final long SEGMENT_BYTES = 4 << 20;
+    static final String LIVE = "current.csv", ARCHIVE = "archive";
+    private static final String STAGING = ".migrate", STAGED = "complete", LOCK = ".lock";
+    private static final String SEALING = ".sealing"; // current.csv renamed beside the segment it is becoming
+
+    /** Which rows a query wants; null fields and an unbounded time range match everything. */
+    static final class Filter {
+        static final Filter ALL = new Filter(null, null, null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        final String term, roll, subject;
+        final long from, to; // epoch millis, inclusive
+
+        Filter(String term, String roll, String subject, long from, long to) {
+            this.term = term;
+            this.roll = roll;
+            this.subject = subject;
+            this.from = from;
+            this.to = to;
+        }
+
+        static Filter term(String term) { return new Filter(term, null, null, Long.MIN_VALUE, Long.MAX_VALUE); }
+        static Filter roll(String roll) { return new Filter(null, roll, null, Long.MIN_VALUE, Long.MAX_VALUE); }
+
+        // same filter for a file whose rows are all of the wanted term
+        Filter withinTerm() { return term == null ? this : new Filter(null, roll, subject, from, to); }
+
+        private boolean timed() { return from != Long.MIN_VALUE || to != Long.MAX_VALUE; }
+
+        boolean matches(String[] row) {
+            if (roll != null && !roll.equals(row[0])) return false;
+            if (subject != null && !subject.equalsIgnoreCase(row[3])) return false;
+            if (term == null && !timed()) return true;
+            long t = ScoreSegment.timeOf(row[6]);
+            if (term != null && !term.equals(ScoreSegment.termOf(t))) return false;
+            return !timed() || (t != ScoreSegment.UNDATED && t >= from && t <= to);
+        }
+    }
+
+    private final Path dir, live, legacy;
+    private final long segmentBytes;
+    private final Map<Path, ScoreSegment> footers = new HashMap<>(); // re-read when the file time changes
+
+    // What this process knows of the shared folder; only touched while holding the lock file (see locked()).
+    private FileChannel lockChannel;                   // non-null while the lock is held
+    private boolean migrated;
+    private long generation = -1;                      // the lock file's counter when liveStats was last rebuilt
+    private long liveBytes;                            // length of current.csv summarized in liveStats
+    private ScoreSegment.Stats liveStats = new ScoreSegment.Stats();
+
+    // loadRows() cache, valid for one generation and live file length
+    private List<String[]> cachedRows;
+    private long cachedGeneration = -1, cachedBytes = -1;
+
+    // appends waiting for the next batch
+    private final List<Pending> queue = new ArrayList<>();
+
+    private static final class Pending {
+        final String[] row;
+        final String term;
+        final byte[] line;  // CSV + '\n', UTF-8
+        long written = -1;  // bytes added to the file, including the header if this row started it
+        Exception error;
+
+        Pending(String[] fields) {
+            row = padded(fields);
+            term = ScoreSegment.termOf(ScoreSegment.timeOf(row[6]));
+            line = (toCsvLine(fields) + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    ScoreStore(Path dir) { this(dir, null); }
+
+    /** {@code legacy} (nullable): an old single-file score CSV to migrate into {@code dir} on first use. */
+    ScoreStore(Path dir, Path legacy) { this(dir, legacy, SEGMENT_BYTES); }
+
+    ScoreStore(Path dir, Path legacy, long segmentBytes) {
+        this.dir = dir;
+        this.live = dir.resolve(LIVE);
+        this.legacy = legacy;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /** The live (unsealed) file rows are appended to. */
+    Path file() { return live; }
+
+    Path dir() { return dir; }
+
+    /**
+     * Appends one row (fields unescaped). Rows queued by other threads while a batch is being written go out together
+     * in the next one: a single positioned write at the end of current.csv under the lock file, headed by the CSV header
+     * when the file is new. The live file is sealed first when a row starts a new term, and after a batch once it
+     * reaches the segment size. Returns the bytes this row added (with the header, if it started the file).
+     */
+    long append(String... fields) throws IOException {
+        Pending p = new Pending(fields);
+        synchronized (queue) {
+            queue.add(p);
+        }
+        synchronized (this) {
+            if (p.written < 0 && p.error == null) {
+                List<Pending> batch;
+                synchronized (queue) {
+                    batch = new ArrayList<>(queue);
+                    queue.clear();
+                }
+                try {
+                    locked(false, () -> writeBatch(batch));
+                } catch (IOException | RuntimeException e) {
+                    for (Pending b : batch) if (b.written < 0) b.error = e;
+                }
+            }
+            if (p.error instanceof IOException) throw (IOException) p.error;
+            if (p.error != null) throw new IOException("Score not saved: " + p.error, p.error);
+            return p.written;
+        }
+    }
+
+    // caller holds the lock; each run of rows of one term is one write, after a seal if the live file holds another term
+    private Void writeBatch(List<Pending> batch) throws IOException {
+        for (int i = 0, j; i < batch.size(); i = j) {
+            String term = batch.get(i).term;
+            for (j = i + 1; j < batch.size() && batch.get(j).term.equals(term); j++) { /* run */ }
+            if (liveStats.rows > 0 && !term.equals(liveStats.term)) sealLocked();
+            writeRun(batch.subList(i, j));
+            if (liveBytes >= segmentBytes) sealLocked();
+        }
+        return null;
+    }
+
+    private void writeRun(List<Pending> run) throws IOException {
+        try (FileChannel ch = FileChannel.open(live, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long at = ch.size();
+            byte[] header = at == 0 ? (HEADER + "\n").getBytes(StandardCharsets.UTF_8) : new byte[0];
+            int len = header.length;
+            for (Pending p : run) len += p.line.length;
+            ByteBuffer buf = ByteBuffer.allocate(len).put(header);
+            for (Pending p : run) buf.put(p.line);
+            buf.flip();
+            for (long pos = at; buf.hasRemaining(); ) pos += ch.write(buf, pos);
+            boolean warm = cachedRows != null && cachedGeneration == generation && cachedBytes == at;
+            List<String[]> rows = warm ? new ArrayList<>(cachedRows) : null;
+            for (Pending p : run) {
+                liveStats.add(p.row);
+                p.written = p.line.length;
+                if (warm) rows.add(p.row);
+            }
+            run.get(0).written += header.length;
+            liveBytes = at + len;
+            if (warm) {
+                // keep the cache warm instead of invalidating it on every save
+                cachedRows = Collections.unmodifiableList(rows);
+                cachedBytes = liveBytes;
+            }
+        }
+    }
+
+    /** All rows of the active terms (skips empty lines and headers), oldest segment first, the live file last. */
+    synchronized List<String[]> loadRows() {
+        try {
+            return locked(true, () -> {
+                if (cachedRows == null || cachedGeneration != generation || cachedBytes != liveBytes) {
+                    cachedRows = Collections.unmodifiableList(queryLocked(Filter.ALL));
+                    cachedGeneration = generation;
+                    cachedBytes = liveBytes;
+                }
+                return cachedRows;
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
+
+    /** Rows matching {@code f}; segments whose footer rules the filter out are not opened. */
+    synchronized List<String[]> query(Filter f) throws IOException {
+        return locked(true, () -> queryLocked(f));
+    }
+
+    private List<String[]> queryLocked(Filter f) throws IOException {
+        QuizEvents.LoadScores ev = new QuizEvents.LoadScores();
+        ev.begin();
+        List<String[]> rows = new ArrayList<>();
+        for (ScoreSegment seg : segmentsLocked()) {
+            if (!seg.mayMatch(f)) { ev.segmentsSkipped++; continue; }
+            ev.segmentsRead++;
+            ev.bytesRead += Files.size(seg.file);
+            try (BufferedReader br = seg.open()) {
+                readRows(br, f.withinTerm(), rows); // a segment holds one term
+            }
+        }
+        if (liveStats.rows > 0 && liveMayMatch(f)) {
+            ev.bytesRead += liveBytes;
+            try (BufferedReader br = Files.newBufferedReader(live)) {
+                readRows(br, f.withinTerm(), rows); // sealed whenever the term changes
+            }
+        }
+        ev.rows = rows.size();
+        ev.commit();
+        return rows;
+    }
+
+    private boolean liveMayMatch(Filter f) {
+        return (f.term == null || f.term.equals(liveStats.term))
+                && (f.roll == null || liveStats.rolls.contains(f.roll))
+                && (f.subject == null || liveStats.subjects.contains(f.subject));
+    }
+
+    private static void readRows(BufferedReader br, Filter f, List<String[]> rows) throws IOException {
+        String ln;
+        while ((ln = nextDataLine(br)) != null) {
+            String[] row = parseCsvLine(ln);
+            if (f.matches(row)) rows.add(row);
+        }
+    }
+
+    private static void dataLines(BufferedReader br, List<String> out) throws IOException {
+        String ln;
+        while ((ln = nextDataLine(br)) != null) out.add(ln);
+    }
+
+    // next non-empty line that is not a header
+    private static String nextDataLine(BufferedReader br) throws IOException {
+        String ln;
+        while ((ln = br.readLine()) != null) {
+            if (!ln.trim().isEmpty() && !ln.regionMatches(true, 0, "roll,", 0, 5)) return ln;
+        }
+        return null;
+    }
+
+    // ===== Cross-process lock =====
+    private interface LockedIo<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs {@code body} holding the folder's lock file: shared for reads, exclusive for writes (and for this
+     * instance's first call, which may migrate the legacy file). App instances on other machines sharing the folder
+     * wait meanwhile; threads of this one are serialized by the monitor. Use one ScoreStore per folder per process.
+     */
+    private synchronized <T> T locked(boolean shared, LockedIo<T> body) throws IOException {
+        if (lockChannel != null) return body.run(); // already held further up this call
+        Files.createDirectories(dir);
+        try (FileChannel ch = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            FileLock lock = ch.lock(0, Long.MAX_VALUE, shared && migrated);
+            try {
+                lockChannel = ch;
+                if (!migrated) {
+                    if (legacy != null && migrate()) bumpGeneration();
+                    finishSeals();
+                    migrated = true;
+                }
+                syncLive();
+                return body.run();
+            } finally {
+                lockChannel = null;
+                lock.release();
+            }
+        }
+    }
+
+    // Catches up with other processes: after a seal, rewrite or archive anywhere (the lock file's generation moved)
+    // the live file is summarized afresh; otherwise only the rows appended since the last look are read.
+    private void syncLive() throws IOException {
+        long gen = readGeneration();
+        long size = Files.exists(live) ? Files.size(live) : 0;
+        if (gen != generation || size < liveBytes) {
+            generation = gen;
+            liveStats = new ScoreSegment.Stats();
+            liveBytes = 0;
+            footers.clear();
+        }
+        if (size == liveBytes) return;
+        try (FileChannel ch = FileChannel.open(live, StandardOpenOption.READ)) {
+            BufferedReader br = new BufferedReader(new InputStreamReader(Channels.newInputStream(ch.position(liveBytes)), StandardCharsets.UTF_8));
+            String ln;
+            while ((ln = nextDataLine(br)) != null) liveStats.add(parseCsvLine(ln));
+        }
+        liveBytes = size;
+    }
+
+    private long readGeneration() throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(8);
+        while (b.hasRemaining() && lockChannel.read(b, b.position()) > 0) { /* fill */ }
+        return b.hasRemaining() ? 0 : b.getLong(0);
+    }
+
+    // after any change other than an append; caller holds the exclusive lock and has updated liveStats itself
+    private void bumpGeneration() throws IOException {
+        generation = readGeneration() + 1;
+        ByteBuffer b = ByteBuffer.allocate(8).putLong(0, generation);
+        while (b.hasRemaining()) lockChannel.write(b, b.position());
+    }
+
+    // ===== Segments =====
+    /** Sealed segments of the active (not archived) terms, oldest first. Unreadable ones are reported and skipped. */
+    synchronized List<ScoreSegment> segments() throws IOException {
+        return locked(true, this::segmentsLocked);
+    }
+
+    private List<ScoreSegment> segmentsLocked() throws IOException {
+        List<Path> files = segmentFiles();
+        List<ScoreSegment> out = new ArrayList<>(files.size());
+        for (Path f : files) {
+            ScoreSegment seg = footers.get(f);
+            if (seg == null || !seg.written.equals(Files.getLastModifiedTime(f))) {
+                try {
+                    seg = ScoreSegment.read(f);
+                } catch (IOException e) {
+                    System.err.println("[scores] skipping " + f + ": " + e.getMessage());
+                    continue;
+                }
+                footers.put(f, seg);
+            }
+            out.add(seg);
+        }
+        footers.keySet().retainAll(files);
+        return out;
+    }
+
+    /** Terms that have scores and are not archived, in order (the live file's term included). */
+    synchronized List<String> terms() throws IOException {
+        return locked(true, this::termsLocked);
+    }
+
+    private List<String> termsLocked() throws IOException {
+        TreeSet<String> terms = new TreeSet<>();
+        for (Path t : termDirs(dir)) if (!list(t).isEmpty()) terms.add(t.getFileName().toString());
+        if (liveStats.rows > 0) terms.add(liveStats.term);
+        return new ArrayList<>(terms);
+    }
+
+    /** Seals the live file as the next segment of its term and starts a fresh one. Returns null if it is empty. */
+    synchronized ScoreSegment seal() throws IOException {
+        return locked(false, this::sealLocked);
+    }
+
+    // The live file is first renamed to <segment>.sealing, so a crash at any point leaves its rows in exactly one
+    // place: finishSeals() writes the segment from it unless the segment already exists, then drops it.
+    private ScoreSegment sealLocked() throws IOException {
+        finishSeals();
+        if (liveStats.rows == 0) {
+            Files.deleteIfExists(live); // header only
+            liveBytes = 0;
+            return null;
+        }
+        Path target = nextSegment(dir.resolve(liveStats.term));
+        Path staged = target.resolveSibling(target.getFileName() + SEALING);
+        Files.move(live, staged, StandardCopyOption.ATOMIC_MOVE);
+        List<String> lines = new ArrayList<>(liveStats.rows);
+        try (BufferedReader br = Files.newBufferedReader(staged)) {
+            dataLines(br, lines);
+        }
+        ScoreSegment seg = ScoreSegment.write(target, lines);
+        Files.delete(staged);
+        liveStats = new ScoreSegment.Stats();
+        liveBytes = 0;
+        footers.put(seg.file, seg);
+        bumpGeneration();
+        System.out.println("[scores] sealed " + dir.relativize(seg.file) + ": " + seg.rows + " rows, " + Files.size(seg.file) / 1024 + " KB");
+        return seg;
+    }
+
+    // completes seals a crash interrupted (see sealLocked); caller holds the exclusive lock
+    private void finishSeals() throws IOException {
+        for (Path t : termDirs(dir)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(t, "scores-*.csv.gz" + SEALING)) {
+                for (Path staged : ds) {
+                    String name = staged.getFileName().toString();
+                    Path target = staged.resolveSibling(name.substring(0, name.length() - SEALING.length()));
+                    if (Files.notExists(target)) {
+                        List<String> lines = new ArrayList<>();
+                        try (BufferedReader br = Files.newBufferedReader(staged)) {
+                            dataLines(br, lines);
+                        }
+                        if (!lines.isEmpty()) ScoreSegment.write(target, lines);
+                        System.out.println("[scores] finished an interrupted seal: " + dir.relativize(target) + ", " + lines.size() + " rows");
+                    }
+                    Files.delete(staged);
+                    footers.clear();
+                    bumpGeneration();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves a term's segments to archive/&lt;term&gt;/ (sealing the live file first if it holds that term); they are
+     * kept but no longer read. Moving the folder back restores them. Returns the number of segments archived.
+     */
+    synchronized int archiveTerm(String term) throws IOException {
+        return locked(false, () -> {
+            finishSeals();
+            if (!termsLocked().contains(term)) throw new IOException("No scores for term " + term);
+            if (liveStats.rows > 0 && term.equals(liveStats.term)) sealLocked();
+            Path from = dir.resolve(term), to = dir.resolve(ARCHIVE).resolve(term);
+            List<Path> files = list(from);
+            Files.createDirectories(to.getParent());
+            if (Files.notExists(to)) {
+                Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                for (Path f : files) Files.move(f, nextSegment(to));
+                Files.delete(from);
+            }
+            footers.clear();
+            bumpGeneration();
+            System.out.println("[scores] archived " + files.size() + " segment(s) of " + term + " to " + to);
+            return files.size();
+        });
+    }
+
+    // segments of every active term folder, in term then sequence order
+    private List<Path> segmentFiles() throws IOException {
+        List<Path> out = new ArrayList<>();
+        for (Path t : termDirs(dir)) out.addAll(list(t));
+        return out;
+    }
+
+    // sub-folders of parent except archive/ and hidden ones (the migration staging area), in name order
+    private static List<Path> termDirs(Path parent) throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(parent)) return out;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(parent, Files::isDirectory)) {
+            for (Path p : ds) {
+                String n = p.getFileName().toString();
+                if (!n.equals(ARCHIVE) && !n.startsWith(".")) out.add(p);
+            }
+        }
+        out.sort(null);
+        return out;
+    }
+
+    // scores-NNNNN.csv.gz files of one term folder in sequence order
+    private static List<Path> list(Path termDir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(termDir)) return out;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(termDir, "scores-*.csv.gz")) {
+            for (Path p : ds) out.add(p);
+        }
+        out.sort(Comparator.comparingInt(ScoreStore::sequence));
+        return out;
+    }
+
+    private static Path nextSegment(Path termDir) throws IOException {
+        Files.createDirectories(termDir);
+        List<Path> existing = list(termDir);
+        int next = existing.isEmpty() ? 1 : sequence(existing.get(existing.size() - 1)) + 1;
+        return termDir.resolve(String.format("scores-%05d.csv.gz", next));
+    }
+
+    private static int sequence(Path segment) {
+        String n = segment.getFileName().toString();
+        try {
+            return Integer.parseInt(n.substring("scores-".length(), n.indexOf('.')));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    // ===== Migration =====
+    // Rows of the old skillnest_scores.csv (and of skillnest_scores-*.csv.gz beside it) are grouped by term into
+    // segments under .migrate/. Once that is complete the old files are renamed *.migrated and the segments moved into
+    // place, so an interrupted run either starts over or finishes on the next start; nothing is read twice.
+    private boolean migrate() throws IOException {
+        Path staging = dir.resolve(STAGING);
+        List<Path> sources = legacySources();
+        boolean staged = Files.exists(staging.resolve(STAGED));
+        if (sources.isEmpty() && !staged) return false;
+        int rows = 0, segs = 0;
+        if (!staged) {
+            deleteTree(staging); // an earlier attempt stopped part way
+            Map<String, List<String>> pending = new TreeMap<>();
+            Map<String, Long> pendingBytes = new HashMap<>();
+            for (Path src : sources) {
+                try (BufferedReader br = QuestionLoader.isGzip(src)
+                        ? new BufferedReader(new InputStreamReader(QuestionLoader.inflate(src), StandardCharsets.UTF_8), QuestionLoader.GZIP_BUFFER)
+                        : Files.newBufferedReader(src)) {
+                    String ln;
+                    while ((ln = nextDataLine(br)) != null) {
+                        String term = ScoreSegment.termOf(ScoreSegment.timeOf(parseCsvLine(ln)[6]));
+                        List<String> buf = pending.computeIfAbsent(term, t -> new ArrayList<>());
+                        buf.add(ln);
+                        rows++;
+                        if (pendingBytes.merge(term, ln.length() + 1L, Long::sum) >= segmentBytes) {
+                            ScoreSegment.write(nextSegment(staging.resolve(term)), buf);
+                            segs++;
+                            buf.clear();
+                            pendingBytes.put(term, 0L);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, List<String>> e : pending.entrySet()) {
+                if (e.getValue().isEmpty()) continue;
+                ScoreSegment.write(nextSegment(staging.resolve(e.getKey())), e.getValue());
+                segs++;
+            }
+            Files.createDirectories(staging);
+            Files.createFile(staging.resolve(STAGED));
+        }
+        for (Path src : sources) Files.move(src, src.resolveSibling(src.getFileName() + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+        for (Path t : termDirs(staging)) {
+            for (Path f : list(t)) Files.move(f, nextSegment(dir.resolve(t.getFileName().toString())));
+        }
+        deleteTree(staging);
+        System.out.println("[scores] migrated " + (staged ? "staged segments" : rows + " rows from " + sources.size()
+                + " file(s) into " + segs + " segment(s)") + " in " + dir);
+        return true;
+    }
+
+    // the legacy CSV plus the compressed skillnest_scores-*.csv.gz files it was rotated into, oldest first
+    private List<Path> legacySources() throws IOException {
+        List<Path> out = new ArrayList<>();
+        Path parent = legacy.toAbsolutePath().getParent();
+        String name = legacy.getFileName().toString();
+        String base = name.toLowerCase().endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        if (parent != null && Files.isDirectory(parent)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(parent, base + "-*.csv.gz")) {
+                for (Path p : ds) out.add(p);
+            }
+            out.sort(null);
+        }
+        if (Files.isRegularFile(legacy)) out.add(legacy);
+        return out;
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (Files.notExists(root)) return;
+        List<Path> all;
+        try (Stream<Path> s = Files.walk(root)) {
+            all = new ArrayList<>(s.sorted(Comparator.reverseOrder()).toList());
+        }
+        for (Path p : all) {
+            ScoreSegment.makeWritable(p);
+            Files.delete(p);
+        }
+    }
+
+    // ===== Deletes =====
+    // Delete scores by roll
+    synchronized void deleteByRoll(String rollNo) {
+        try {
+            deleteByRoll(rollNo, AsyncIo.Progress.NONE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Rewrites each segment (and the live file) that holds the roll, without its rows; segments whose footer rules
+     * the roll out are not opened. A cancel keeps files not yet rewritten. Returns the number of rows removed.
+     */
+    synchronized int deleteByRoll(String rollNo, AsyncIo.Progress progress) throws IOException {
+        return locked(false, () -> {
+            finishSeals();
+            Filter f = Filter.roll(rollNo);
+            List<ScoreSegment> candidates = new ArrayList<>();
+            for (ScoreSegment seg : segmentsLocked()) if (seg.mayMatch(f)) candidates.add(seg);
+            int removed = 0;
+            for (int k = 0; k < candidates.size(); k++) {
+                ScoreSegment seg = candidates.get(k);
+                progress.checkCancelled();
+                progress.update(k, candidates.size() + 1, "Checking " + dir.relativize(seg.file));
+                List<String> kept = new ArrayList<>(seg.rows);
+                int gone;
+                try (BufferedReader br = seg.open()) {
+                    gone = keepOthers(br, rollNo, kept);
+                }
+                if (gone == 0) continue; // Bloom filter false positive
+                progress.checkCancelled();
+                if (kept.isEmpty()) {
+                    ScoreSegment.makeWritable(seg.file);
+                    Files.delete(seg.file);
+                    footers.remove(seg.file);
+                } else {
+                    footers.put(seg.file, ScoreSegment.write(seg.file, kept));
+                }
+                bumpGeneration();
+                removed += gone;
+            }
+            if (liveStats.rolls.contains(rollNo)) {
+                progress.update(candidates.size(), candidates.size() + 1, "Checking " + LIVE);
+                List<String> kept = new ArrayList<>(liveStats.rows);
+                try (BufferedReader br = Files.newBufferedReader(live)) {
+                    removed += keepOthers(br, rollNo, kept);
+                }
+                progress.checkCancelled();
+                rewriteLive(kept);
+                bumpGeneration();
+            }
+            return removed;
+        });
+    }
+
+    // data lines not of rollNo go to kept; returns how many were dropped
+    private static int keepOthers(BufferedReader br, String rollNo, List<String> kept) throws IOException {
+        int gone = 0;
+        String ln;
+        while ((ln = nextDataLine(br)) != null) {
+            if (parseCsvFirstToken(ln).equals(rollNo)) gone++;
+            else kept.add(ln);
+        }
+        return gone;
+    }
+
+    private void rewriteLive(List<String> lines) throws IOException {
+        ScoreSegment.Stats stats = new ScoreSegment.Stats();
+        if (lines.isEmpty()) {
+            Files.deleteIfExists(live);
+        } else {
+            Path tmp = live.resolveSibling(LIVE + ".tmp");
+            try (BufferedWriter bw = Files.newBufferedWriter(tmp)) {
+                bw.write(HEADER + "\n");
+                for (String ln : lines) {
+                    bw.write(ln);
+                    bw.write('\n');
+                    stats.add(parseCsvLine(ln));
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            Files.move(tmp, live, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        liveStats = stats;
+        liveBytes = Files.exists(live) ? Files.size(live) : 0;
+    }
+
+    /** Deletes every score of the active terms; archived terms are kept. */
+    synchronized void deleteAll() throws IOException {
+        locked(false, () -> {
+            finishSeals();
+            for (Path t : termDirs(dir)) {
+                for (Path f : list(t)) {
+                    ScoreSegment.makeWritable(f);
+                    Files.delete(f);
+                }
+                try {
+                    Files.delete(t);
+                } catch (DirectoryNotEmptyException ignored) {
+                    // holds files that are not ours
+                }
+            }
+            Files.deleteIfExists(live);
+            liveStats = new ScoreSegment.Stats();
+            liveBytes = 0;
+            footers.clear();
+            bumpGeneration();
+            return null;
+        });
+    }
+
+    // ===== CSV helpers =====
+    static String escapeCsv(String s) {
+        if (s == null) return "";
+        if (s.contains(",") || s.contains("\"")) {
+            s = s.replace("\"", "\"\"");
+            return "\"" + s + "\"";
+        }
+        return s;
+    }
+
+    static String toCsvLine(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(escapeCsv(fields[i]));
+        }
+        return sb.toString();
+    }
+
+    /** Splits one CSV line honouring quotes; always returns {@link #COLUMNS} fields. */
+    static String[] parseCsvLine(String ln) {
+        List<String> tokens = splitCsvLine(ln);
+        while (tokens.size() < COLUMNS) tokens.add("");
+        return tokens.subList(0, COLUMNS).toArray(new String[0]);
+    }
+
+    /** Same quoting rules, any number of fields (answer sheets). */
+    static List<String> splitCsvLine(String ln) {
+        List<String> tokens = new ArrayList<>();
+        boolean inQuote = false;
+        StringBuilder cur = new StringBuilder();
+        for (int i = 0; i < ln.length(); i++) {
+            char ch = ln.charAt(i);
+            if (ch == '"' ) {
+                if (inQuote && i+1 < ln.length() && ln.charAt(i+1) == '"') { cur.append('"'); i++; continue; }
+                inQuote = !inQuote;
+            } else if (ch == ',' && !inQuote) {
+                tokens.add(cur.toString());
+                cur.setLength(0);
+            } else cur.append(ch);
+        }
+        tokens.add(cur.toString());
+        return tokens;
+    }
+
+    static String parseCsvFirstToken(String line) {
+        line = line.trim();
+        if (line.startsWith("\"")) {
+            int end = 1;
+            while (end < line.length()) {
+                if (line.charAt(end) == '"' && end+1 < line.length() && line.charAt(end+1) == '"') { end += 2; continue; }
+                if (line.charAt(end) == '"') break;
+                end++;
+            }
+            return line.substring(1, end).replace("\"\"", "\"");
+        } else {
+            int comma = line.indexOf(',');
+            if (comma == -1) return line;
+            return line.substring(0, comma);
+        }
+    }
+
+    private static String[] padded(String[] fields) {
+        String[] r = new String[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) r[i] = i < fields.length && fields[i] != null ? fields[i] : "";
+        return r;
+    }
+}
@@ -0,0 +1,23 @@
+// Scoring.java
+// Pure scoring helpers shared by the quiz screen and headless tools.
+
+import java.util.List;
+
+final class Scoring {
+    private Scoring() {}
+
+    /**
+     * Number of questions whose selected option (a displayed index, undone through the session's
+     * seeded permutation for that position) is the correct one. Unanswered questions score zero.
+     */
+    static int countCorrect(List<Question> questions, Integer[] selectedDisplayed, long seed) {
+        int s = 0;
+        for (int qi = 0; qi < questions.size(); qi++) {
+            Integer sel = selectedDisplayed[qi];
+            if (sel == null) continue;
+            Question q = questions.get(qi);
+            if (SeededOrder.original(seed, qi, q.options.length, sel) == q.correctIndex) s++;
+        }
+        return s;
+    }
+}
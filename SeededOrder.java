@@ -0,0 +1,66 @@
+// SeededOrder.java
+// Question order and option permutations derived from one per-session seed, so they are recomputed on demand
+// instead of stored. Permutation (seed, position) is the Lehmer code of a SplitMix64 hash, decoded without allocating.
+
+import java.util.*;
+
+final class SeededOrder {
+    private SeededOrder() {}
+
+    static final int MAX_OPTIONS = 20; // 20! still fits in a long
+
+    private static final long[] FACTORIAL = new long[MAX_OPTIONS + 1];
+    static {
+        FACTORIAL[0] = 1;
+        for (int i = 1; i <= MAX_OPTIONS; i++) FACTORIAL[i] = FACTORIAL[i - 1] * i;
+    }
+
+    /** SplitMix64 finalizer over (seed, position); well mixed even for consecutive positions. */
+    static long mix(long seed, int position) {
+        long z = seed + (position + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Original option index shown at {@code displayed} for the question at {@code position}. */
+    static int original(long seed, int position, int n, int displayed) {
+        if (n <= 1) return 0;
+        long code = Long.remainderUnsigned(mix(seed, position), FACTORIAL[Math.min(n, MAX_OPTIONS)]);
+        int used = 0; // bit i set = original option i already placed
+        for (int d = 0; ; d++) {
+            long f = FACTORIAL[n - 1 - d];
+            int digit = (int) (code / f);
+            code %= f;
+            int o = nthUnused(used, digit);
+            if (d == displayed) return o;
+            used |= 1 << o;
+        }
+    }
+
+    /** Inverse of {@link #original}: where option {@code original} is displayed. */
+    static int displayed(long seed, int position, int n, int original) {
+        for (int d = 0; d < n; d++) if (original(seed, position, n, d) == original) return d;
+        return -1;
+    }
+
+    /** The bank's questions for {@code subject} in the session's order (a new list; the bank is not touched). */
+    static List<Question> questionOrder(List<Question> bank, String subject, long seed) {
+        List<Question> filtered = new ArrayList<>();
+        if (bank instanceof CompactBank) { // only the subject's questions are materialized
+            CompactBank cb = (CompactBank) bank;
+            for (int i : cb.indicesOf(subject)) filtered.add(cb.get(i));
+        } else {
+            for (Question q : bank) if (q.subject.equalsIgnoreCase(subject)) filtered.add(q);
+        }
+        Collections.shuffle(filtered, new Random(mix(seed, -1)));
+        return filtered;
+    }
+
+    private static int nthUnused(int used, int n) {
+        for (int o = 0; ; o++) {
+            if ((used & (1 << o)) != 0) continue;
+            if (n-- == 0) return o;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+// SessionCheckpoint.java
+// Crash-safe snapshot of the quiz in progress, so a frozen PC or a closed window does not lose the attempt.
+// Only question ids and answers are stored; the option order is re-derived from the session id.
+// The EDT only hands over a small immutable State; a background thread writes at most one per interval
+// (temp file + atomic rename). One file per login user: ~/.skillnest_checkpoint_<user>.
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class SessionCheckpoint {
+    private static final int MAGIC = 0x534E4350; // "SNCP"
+    private static final int FORMAT = 2; // 2: option order comes from the session id, no stored permutations
+    static final long INTERVAL_MS = 500;
+
+    // shared by all checkpoints; writes and deletes stay ordered
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "skillnest-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Everything needed to put the student back on the same question with the same options. */
+    static final class State {
+        String user;
+        long sessionId, startedAt;
+        String roll, name, cls, subject;
+        boolean adaptive;
+        int length, rated, current, timeLeft;
+        double ability;
+        int[] questionIds;      // Question.idCode per position picked so far
+        int[] selected;         // displayed index, -1 = unanswered
+        long[] spentMillis;
+    }
+
+    private final Path file;
+    private final AtomicReference<State> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long lastWriteNanos;
+
+    SessionCheckpoint(Path file) {
+        this.file = file;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "skillnest-checkpoint-flush"));
+    }
+
+    static Path forUser(String user) {
+        return Paths.get(System.getProperty("user.home"), ".skillnest_checkpoint_" + user.replaceAll("[^A-Za-z0-9_-]", "_"));
+    }
+
+    /** Queues a snapshot; earlier ones not yet written are replaced. Never blocks. */
+    void save(State s) {
+        pending.set(s);
+        if (scheduled.compareAndSet(false, true)) {
+            long sinceLast = (System.nanoTime() - lastWriteNanos) / 1_000_000L;
+            long delay = Math.max(0, INTERVAL_MS - sinceLast);
+            WRITER.schedule(this::writePending, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Drops any queued snapshot and deletes the file (quiz finished or abandoned). */
+    void discard() {
+        pending.set(null);
+        WRITER.execute(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Unable to delete checkpoint: " + e);
+            }
+        });
+    }
+
+    /** Writes a queued snapshot now; called at exit. */
+    void flush() {
+        try {
+            WRITER.submit(this::writePending).get(2, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            writePending(); // executor already gone during shutdown
+        }
+    }
+
+    private synchronized void writePending() {
+        scheduled.set(false);
+        State s = pending.getAndSet(null);
+        if (s == null) return;
+        lastWriteNanos = System.nanoTime();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                write(out, s);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Unable to write checkpoint: " + e);
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    /** The saved state, or null if there is none (or it is unreadable). */
+    State load() {
+        if (Files.notExists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return read(in);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable checkpoint " + file + ": " + e);
+            return null;
+        }
+    }
+
+    // ===== Encoding =====
+    private static void write(DataOutputStream out, State s) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT);
+        out.writeUTF(s.user);
+        out.writeLong(s.sessionId);
+        out.writeLong(s.startedAt);
+        out.writeUTF(s.roll);
+        out.writeUTF(s.name);
+        out.writeUTF(s.cls);
+        out.writeUTF(s.subject);
+        out.writeBoolean(s.adaptive);
+        out.writeShort(s.length);
+        out.writeShort(s.rated);
+        out.writeDouble(s.ability);
+        out.writeShort(s.current);
+        out.writeShort(s.timeLeft);
+        out.writeShort(s.questionIds.length);
+        for (int i = 0; i < s.questionIds.length; i++) {
+            out.writeInt(s.questionIds[i]);
+            out.writeByte(s.selected[i]);
+            ItemStats.writeVar(out, s.spentMillis[i]);
+        }
+    }
+
+    private static State read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != FORMAT) throw new IOException("not a checkpoint");
+        State s = new State();
+        s.user = in.readUTF();
+        s.sessionId = in.readLong();
+        s.startedAt = in.readLong();
+        s.roll = in.readUTF();
+        s.name = in.readUTF();
+        s.cls = in.readUTF();
+        s.subject = in.readUTF();
+        s.adaptive = in.readBoolean();
+        s.length = in.readUnsignedShort();
+        s.rated = in.readUnsignedShort();
+        s.ability = in.readDouble();
+        s.current = in.readUnsignedShort();
+        s.timeLeft = in.readUnsignedShort();
+        int n = in.readUnsignedShort();
+        s.questionIds = new int[n];
+        s.selected = new int[n];
+        s.spentMillis = new long[n];
+        for (int i = 0; i < n; i++) {
+            s.questionIds[i] = in.readInt();
+            s.selected[i] = in.readByte();
+            s.spentMillis[i] = ItemStats.readVar(in);
+        }
+        return s;
+    }
+}
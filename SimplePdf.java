@@ -0,0 +1,142 @@
+// SimplePdf.java
+// Dependency-free paginated PDF writer used by the explanations export.
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+final class SimplePdf {
+    private SimplePdf() {}
+
+    /**
+     * Minimal paginated PDF writer (no external libs).
+     * - wrappedLines: already-wrapped lines of plain text (no parentheses escaping needed).
+     * - linesPerPage: number of text lines per PDF page (approx).
+     * - progress: reports pages laid out; the file is only written once all pages are built.
+     *
+     * Limitations: Uses Type1 Helvetica, basic text placement; designed for plain text exports.
+     */
+    static void writePaged(File file, List<String> wrappedLines, int linesPerPage, AsyncIo.Progress progress) throws IOException {
+        ByteArrayOutputStream baos = render(wrappedLines, linesPerPage, progress);
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            baos.writeTo(fos);
+        }
+    }
+
+    /** Builds the whole document in memory; {@link #writePaged} just copies it to disk. */
+    static ByteArrayOutputStream render(List<String> wrappedLines, int linesPerPage, AsyncIo.Progress progress) throws IOException {
+        List<List<String>> pages = new ArrayList<>();
+        for (int i = 0; i < wrappedLines.size(); i += linesPerPage) {
+            int end = Math.min(wrappedLines.size(), i + linesPerPage);
+            pages.add(new ArrayList<>(wrappedLines.subList(i, end)));
+        }
+        if (pages.isEmpty()) pages.add(Collections.singletonList(""));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        RunnableWriter w = new RunnableWriter(baos);
+
+        // PDF header
+        w.write("%PDF-1.4\n");
+        w.write("%\u00E2\u00E3\u00CF\u00D3\n"); // binary comment
+
+        List<Integer> xrefOffsets = new ArrayList<>();
+        xrefOffsets.add(0);
+
+        int pageCount = pages.size();
+        int firstPageObjNum = 3;
+        int fontObjNum = firstPageObjNum + pageCount * 2;
+
+        // Object 1: Catalog
+        xrefOffsets.add(baos.size());
+        w.write("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+
+        // Object 2: Pages
+        xrefOffsets.add(baos.size());
+        StringBuilder kidsSb = new StringBuilder();
+        for (int i = 0; i < pageCount; i++) {
+            int pageObjNumber = firstPageObjNum + (i * 2);
+            kidsSb.append(pageObjNumber).append(" 0 R ");
+        }
+        w.write("2 0 obj\n<< /Type /Pages /Kids [ " + kidsSb.toString().trim() + " ] /Count " + pageCount + " >>\nendobj\n");
+
+        // Font obj
+        xrefOffsets.add(baos.size());
+        w.write(fontObjNum + " 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+
+        List<byte[]> contentBytesList = new ArrayList<>();
+        for (int p = 0; p < pageCount; p++) {
+            progress.checkCancelled();
+            progress.update(p, pageCount, "Page " + (p+1) + " of " + pageCount);
+            List<String> lines = pages.get(p);
+            StringBuilder content = new StringBuilder();
+            content.append("BT\n");
+            content.append("/F1 10 Tf\n");
+            content.append("50 800 Td\n");
+            for (int li = 0; li < lines.size(); li++) {
+                String ln = escapePdfText(lines.get(li));
+                content.append("(").append(ln).append(") Tj\n");
+                if (li < lines.size() - 1) content.append("0 -12 Td\n");
+            }
+            content.append("ET\n");
+            byte[] cb = content.toString().getBytes(StandardCharsets.UTF_8);
+            contentBytesList.add(cb);
+        }
+
+        for (int p = 0; p < pageCount; p++) {
+            int pageObjNum = firstPageObjNum + (p * 2);
+            int contentObjNum = pageObjNum + 1;
+
+            xrefOffsets.add(baos.size());
+            String pageObj = pageObjNum + " 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 595 842] "
+                    + "/Resources << /Font << /F1 " + fontObjNum + " 0 R >> >> /Contents " + contentObjNum + " 0 R >>\nendobj\n";
+            w.write(pageObj);
+
+            xrefOffsets.add(baos.size());
+            byte[] cb = contentBytesList.get(p);
+            w.write(contentObjNum + " 0 obj\n<< /Length " + cb.length + " >>\nstream\n");
+            baos.write(cb);
+            w.write("\nendstream\nendobj\n");
+        }
+
+        int xrefStart = baos.size();
+        int totalObjects = fontObjNum;
+
+        Map<Integer, Integer> offsetsMap = new TreeMap<>();
+        int idx = 1;
+        offsetsMap.put(1, xrefOffsets.get(idx++));
+        offsetsMap.put(2, xrefOffsets.get(idx++));
+        offsetsMap.put(fontObjNum, xrefOffsets.get(idx++));
+        for (int p = 0; p < pageCount; p++) {
+            int pageObjNum = firstPageObjNum + (p * 2);
+            int contentObjNum = pageObjNum + 1;
+            offsetsMap.put(pageObjNum, xrefOffsets.get(idx++));
+            offsetsMap.put(contentObjNum, xrefOffsets.get(idx++));
+        }
+
+        w.write("xref\n0 " + (totalObjects + 1) + "\n");
+        w.write(String.format("%010d %05d f \n", 0, 65535));
+        for (int objNum = 1; objNum <= totalObjects; objNum++) {
+            Integer off = offsetsMap.get(objNum);
+            if (off == null) off = 0;
+            w.write(String.format("%010d %05d n \n", off, 0));
+        }
+
+        w.write("trailer\n<< /Size " + (totalObjects + 1) + " /Root 1 0 R >>\n");
+        w.write("startxref\n" + xrefStart + "\n%%EOF\n");
+
+        return baos;
+    }
+
+    // Escape parentheses and backslashes for PDF text literal.
+    private static String escapePdfText(String s) {
+        if (s == null) return "";
+        return s.replace("\\", "\\\\").replace("(", "\\(").replace(")", "\\)");
+    }
+
+    // reuse the small helper writer
+    private static class RunnableWriter {
+        private final OutputStream out;
+        RunnableWriter(OutputStream out) { this.out = out; }
+        void write(String s) throws IOException { out.write(s.getBytes(StandardCharsets.UTF_8)); }
+    }
+}
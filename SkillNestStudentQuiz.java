@@ -15,19 +15,28 @@ import java.awt.print.*;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.security.MessageDigest;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.List;
-import java.util.regex.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 public class SkillNestStudentQuiz extends JFrame {
     // Config
-    private static final int TIME_PER_QUESTION = 60; // seconds
-    private static final String QUESTIONS_FILE = "questions.json";
-    private static final String SCORES_FILE = System.getProperty("user.home") + File.separator + "skillnest_scores.csv";
+    static final int TIME_PER_QUESTION = 60; // seconds (LoadSim uses it for simulated time-outs)
+    // a directory of shards (questions/) when there is one, else questions.json (or questions.json.gz if only that
+    // exists); -Dskillnest.bank=<path> overrides
+    private static final String QUESTIONS_FILE = System.getProperty("skillnest.bank",
+            Files.isDirectory(Paths.get("questions")) ? "questions"
+                    : Files.notExists(Paths.get("questions.json")) && Files.exists(Paths.get("questions.json.gz"))
+                    ? "questions.json.gz" : "questions.json");
+    private static final String SCORES_DIR = System.getProperty("user.home") + File.separator + "skillnest_scores";
+    private static final String LEGACY_SCORES_FILE = System.getProperty("user.home") + File.separator + "skillnest_scores.csv"; // migrated on first use
     private static final String VERSIONS_FILE = System.getProperty("user.home") + File.separator + ".skillnest_qversions";
+    private static final String ITEMSTATS_FILE = System.getProperty("user.home") + File.separator + ".skillnest_itemstats";
+    private static final String EVENTS_FILE = System.getProperty("user.home") + File.separator + ".skillnest_events.bin";
+    private static final String OUTBOX_DIR = System.getProperty("user.home") + File.separator + ".skillnest_outbox"; // used with -Dskillnest.collector
+    private static final String ALL_TERMS = "All terms"; // score manager term picker
 
     // Layout
     private CardLayout cardLayout = new CardLayout();
@@ -38,11 +47,12 @@ public class SkillNestStudentQuiz extends JFrame {
     private JTextField nameField = new JTextField(16);
     private JTextField classField = new JTextField(16);
     private JComboBox<String> subjectBox;
+    private JCheckBox adaptiveBox = new JCheckBox("Adaptive (questions follow your level)");
+    private JSpinner adaptiveLengthSpinner = new JSpinner(new SpinnerNumberModel(15, 5, 100, 1));
+    private JCheckBox dedupBox = new JCheckBox("Skip near-duplicate questions");
 
     // Quiz screen
-    private JLabel questionLabel;
-    private JRadioButton[] options = new JRadioButton[4];
-    private ButtonGroup group = new ButtonGroup();
+    private QuestionViewCache questionViews; // prepared question label + options, swapped per question
     private JButton nextButton, backButton, quitButton;
     private JProgressBar progressBar;
     private JLabel timerLabel, scoreLabel;
@@ -50,22 +60,38 @@ public class SkillNestStudentQuiz extends JFrame {
     // Timer and data
     private javax.swing.Timer timer;
     private int timeLeft;
-    private List<Question> questions = new ArrayList<>();
-    private int currentQuestion = 0;
+    private QuizSession session;                          // the attempt in progress / last finished
+    private List<Question> questions = new ArrayList<>(); // session.questions, kept for review and exports
     private int score = 0;
-    private Integer[] selectedDisplayedIndex;
-    private List<int[]> displayedMappings = new ArrayList<>();
 
     // Student info
     private String roll, name, cls, subject;
 
     // Extras
     private JButton analyticsBtn, reviewBtn, exportBtn, explanationsBtn, exportExplanationsBtn;
+    private boolean startingQuiz = false; // bank load in flight
     private Map<String, String> questionVersions = new HashMap<>(); // qid->hash (this session)
     private Map<String, String> loadedQuestionHashes = new HashMap<>(); // persisted versions
     private int totalCorrectCount = 0;
     private int totalIncorrectCount = 0;
 
+    // Persistence + startup warm-up
+    private final UserStore userStore = new UserStore();
+    private final ScoreStore scoreStore = new ScoreStore(Paths.get(SCORES_DIR), Paths.get(LEGACY_SCORES_FILE));
+    private final ResultOutbox outbox = ResultOutbox.startFromSystemProperties(Paths.get(OUTBOX_DIR)); // null = local only
+    private final ItemStats itemStats = new ItemStats(Paths.get(ITEMSTATS_FILE));
+    private AdaptiveIndex adaptiveIndex; // built on the first adaptive quiz, rebuilt when the bank reloads
+    private QuestionSearch questionSearch; // from the startup pipeline, updated incrementally when the bank reloads
+    private DedupAnalyzer.Clusters duplicates; // near-duplicate clusters of the last bank, computed on first use
+    private final EventLog eventLog = new EventLog(Paths.get(EVENTS_FILE));
+    private String loginUser;
+    private SessionCheckpoint checkpoint;   // per login user; null until login
+    private int pendingTimeLeft = -1;        // resumed question's remaining time, consumed by the next timer start
+    private final StartupPipeline startup;
+    private final BankSnapshots bankSnapshots = new BankSnapshots(Paths.get(QUESTIONS_FILE));
+    private BankSnapshots.Snapshot sessionSnapshot; // the bank the running quiz started on; released when it ends
+    private boolean panelsBuilt = false;
+
     public SkillNestStudentQuiz() {
         setTitle("SkillNest — Smart Student Quiz");
         setSize(980, 680);
@@ -76,24 +102,47 @@ public class SkillNestStudentQuiz extends JFrame {
 
         try { UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); } catch (Exception ignored) {}
 
-        loadPersistedQuestionVersions();
+        // warm questions, versions, users, scores and item stats in the background while the login dialog is up
+        startup = new StartupPipeline(Paths.get(QUESTIONS_FILE), Paths.get(VERSIONS_FILE), userStore, scoreStore, itemStats);
+        // edits to questions.json become a new snapshot; running quizzes keep theirs, the search index follows
+        startup.questions.thenAccept(bankSnapshots::publish);
+        bankSnapshots.onPublish(snap -> {
+            QuestionSearch s;
+            synchronized (this) { s = questionSearch; }
+            if (s != null) s.update(snap.bank);
+        });
+        bankSnapshots.watch();
+        // the modal dialog keeps pumping the event queue, so the panels get built behind it
+        SwingUtilities.invokeLater(this::buildPanels);
 
         // show login/register dialog before allowing access
-        LoginRegisterDialog lr = new LoginRegisterDialog(this);
+        LoginRegisterDialog lr = new LoginRegisterDialog(this, userStore);
         String user = lr.showAndReturnUser();
         if (user == null) {
             // user cancelled login -- exit application
             System.exit(0);
         }
+        buildPanels();
+        loadPersistedQuestionVersions();
         // optionally prefill name based on username
         nameField.setText(user);
+        loginUser = user;
+        checkpoint = new SessionCheckpoint(SessionCheckpoint.forUser(user));
 
+        cardLayout.show(mainPanel, "start");
+        startup.logReady("ready");
+        offerResume();
+    }
+
+    private void buildPanels() {
+        if (panelsBuilt) return;
+        panelsBuilt = true;
+        long t0 = System.nanoTime();
         mainPanel.add(buildStartPanel(), "start");
         mainPanel.add(buildQuizPanel(), "quiz");
         add(mainPanel, BorderLayout.CENTER);
         add(buildHeader(), BorderLayout.NORTH);
-
-        cardLayout.show(mainPanel, "start");
+        startup.mark("ui", t0);
     }
 
     // Header panel
@@ -161,13 +210,32 @@ public class SkillNestStudentQuiz extends JFrame {
         subjectBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         card.add(subjectBox, c);
 
+        c.gridy = 5; c.gridx = 0;
+        adaptiveBox.setOpaque(false);
+        adaptiveBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        card.add(adaptiveBox, c);
+        c.gridx = 1;
+        JPanel lengthRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        lengthRow.setOpaque(false);
+        lengthRow.add(new JLabel("Questions:"));
+        lengthRow.add(adaptiveLengthSpinner);
+        adaptiveLengthSpinner.setEnabled(false);
+        adaptiveBox.addActionListener(e -> adaptiveLengthSpinner.setEnabled(adaptiveBox.isSelected()));
+        card.add(lengthRow, c);
+
+        c.gridy = 6; c.gridx = 0;
+        dedupBox.setOpaque(false);
+        dedupBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        dedupBox.setToolTipText("Never ask two questions that are near-identical (similarity " + DedupAnalyzer.DEFAULT_THRESHOLD + " or more)");
+        card.add(dedupBox, c);
+
         // Move focus forward when Enter is pressed: Roll -> Name -> Class -> Subject
         rollField.addActionListener(e -> nameField.requestFocusInWindow());
         nameField.addActionListener(e -> classField.requestFocusInWindow());
         classField.addActionListener(e -> subjectBox.requestFocusInWindow());
 
         // buttons row
-        c.gridy = 5; c.gridx = 0; c.gridwidth = 2;
+        c.gridy = 7; c.gridx = 0; c.gridwidth = 2;
         JPanel btnRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 14, 8));
         btnRow.setOpaque(false);
 
@@ -210,36 +278,9 @@ public class SkillNestStudentQuiz extends JFrame {
         questionCard.setBackground(Color.WHITE);
         questionCard.setBorder(new CompoundBorder(new EmptyBorder(12,12,12,12), new LineBorder(new Color(220,225,230))));
 
-        questionLabel = new JLabel("Question", SwingConstants.CENTER);
-        questionLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
-        questionLabel.setBorder(new EmptyBorder(8,8,8,8));
-        questionCard.add(questionLabel, BorderLayout.NORTH);
-
-        JPanel optionsPanel = new JPanel();
-        optionsPanel.setLayout(new GridLayout(4, 1, 10, 10));
-        optionsPanel.setBackground(Color.WHITE);
-        optionsPanel.setBorder(new EmptyBorder(6,6,6,6));
-
-        for (int i = 0; i < 4; i++) {
-            JRadioButton rb = new JRadioButton("Option " + (i+1));
-            rb.setFont(new Font("Segoe UI", Font.PLAIN, 15));
-            rb.setOpaque(true);
-            rb.setBackground(new Color(250, 251, 253));
-            rb.setBorder(new CompoundBorder(new LineBorder(new Color(220,225,230)), new EmptyBorder(8,10,8,10)));
-            rb.setFocusPainted(false);
-            rb.setActionCommand(String.valueOf(i));
-            group.add(rb);
-            optionsPanel.add(rb);
-            options[i] = rb;
-
-            rb.addActionListener(e -> {
-                nextButton.setEnabled(true);
-                selectedDisplayedIndex[currentQuestion] = Integer.parseInt(e.getActionCommand());
-                evaluateCurrentSelection();
-            });
-        }
-
-        questionCard.add(optionsPanel, BorderLayout.CENTER);
+        // question text and options live in prepared views (one card per question)
+        questionViews = new QuestionViewCache(this::onOptionSelected);
+        questionCard.add(questionViews.component(), BorderLayout.CENTER);
 
         JPanel footer = new JPanel(new BorderLayout(10,10));
         footer.setBackground(Color.WHITE);
@@ -282,6 +323,11 @@ public class SkillNestStudentQuiz extends JFrame {
             int confirm = JOptionPane.showConfirmDialog(this, "Quit the quiz? Your progress will be lost.", "Confirm", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
                 stopTimer();
+                logEvent(EventLog.QUIT, -1);
+                session.finish(); // the answers given so far still count in the item statistics
+                saveItemStats();
+                checkpoint.discard();
+                releaseSnapshot();
                 cardLayout.show(mainPanel, "start");
             }
         });
@@ -358,25 +404,58 @@ public class SkillNestStudentQuiz extends JFrame {
             return;
         }
 
-        List<Question> all = loadQuestionsFromJsonSimple();
-        List<Question> filtered = all.stream().filter(q -> q.subject.equalsIgnoreCase(subject)).collect(Collectors.toList());
-        if (filtered.isEmpty()) {
+        if (startingQuiz) return;
+        startingQuiz = true;
+        boolean dedup = dedupBox.isSelected();
+        AsyncIo.onEdt(snapshotAsync(), (snap, ex) -> {
+            if (ex != null) {
+                startingQuiz = false;
+                showBankError(ex);
+                return;
+            }
+            if (!dedup) {
+                startingQuiz = false;
+                beginQuiz(snap, null);
+                return;
+            }
+            AsyncIo.onEdt(duplicatesAsync(snap.bank), (dups, dupEx) -> {
+                startingQuiz = false;
+                if (dupEx != null) System.err.println("Near-duplicate analysis failed, starting without it: " + dupEx);
+                beginQuiz(snap, dups);
+            });
+        });
+    }
+
+    private void beginQuiz(BankSnapshots.Snapshot snap, DedupAnalyzer.Clusters dups) {
+        CompactBank all = snap.bank;
+        QuizSession s;
+        if (adaptiveBox.isSelected()) {
+            if (adaptiveIndex == null || !adaptiveIndex.indexes(all)) adaptiveIndex = AdaptiveIndex.build(all, itemStats);
+            s = QuizSession.adaptive(roll, name, cls, subject, adaptiveIndex, dups, (Integer) adaptiveLengthSpinner.getValue(), EventLog.newSessionId());
+        } else {
+            s = QuizSession.fixed(roll, name, cls, subject, all, dups, EventLog.newSessionId());
+        }
+        if (s == null) {
             JOptionPane.showMessageDialog(this, "No questions found for " + subject + ". Please check " + QUESTIONS_FILE, "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        // shuffle & initialize
-        Collections.shuffle(filtered);
-        questions = filtered;
-        selectedDisplayedIndex = new Integer[questions.size()];
-        displayedMappings = new ArrayList<>(Collections.nCopies(questions.size(), null));
+        // shuffled & initialized by the session (adaptive: picked as the quiz goes)
+        holdSnapshot(snap);
+        session = s;
+        s.countInto(itemStats);
+        Metrics.QUIZZES_STARTED.inc();
+        eventLog.record(session.id, EventLog.START, 0, 0, -1, -1, 0);
+        enterQuiz();
+    }
 
-        // initialize version hashes for this session
+    // Resets the quiz screen for the current session and shows its current question
+    private void enterQuiz() {
+        questions = session.questions;
+        questionViews.clear();
         questionVersions.clear();
-        for (Question q : questions) questionVersions.put(qId(q), computeQuestionHash(q));
 
-        currentQuestion = 0;
-        score = 0;
+        score = session.correctCount();
         totalCorrectCount = 0;
         totalIncorrectCount = 0;
         updateScoreLabel();
@@ -392,114 +471,213 @@ public class SkillNestStudentQuiz extends JFrame {
         showQuestion();
     }
 
-    // ===== Simple JSON parser (same as earlier) =====
-    private List<Question> loadQuestionsFromJsonSimple() {
-        List<Question> list = new ArrayList<>();
-        Path path = Paths.get(QUESTIONS_FILE);
-        if (Files.notExists(path)) {
-            JOptionPane.showMessageDialog(this, QUESTIONS_FILE + " not found. Please create it in working directory.", "File Missing", JOptionPane.ERROR_MESSAGE);
-            return list;
-        }
-        try {
-            String json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
-            String compact = json.replace("\r", " ").replace("\n", " ");
-
-            Pattern objPattern = Pattern.compile("\\{(.*?)\\}");
-            Matcher objMatcher = objPattern.matcher(compact);
-            while (objMatcher.find()) {
-                String obj = objMatcher.group(1);
-                String subj = extractStringField(obj, "subject");
-                String qtext = extractStringField(obj, "question");
-                String ans = extractStringField(obj, "answer");
-                String[] opts = extractStringArray(obj, "options");
-                String expl = extractStringField(obj, "explanation"); // optional
-                if (subj == null || qtext == null || ans == null || opts == null || opts.length != 4) {
-                    System.err.println("Skipping malformed question object: " + obj);
-                    continue;
-                }
-                int correctIndex = 0;
-                for (int i = 0; i < 4; i++) if (opts[i].equals(ans)) correctIndex = i;
-                list.add(new Question(subj, qtext, opts, correctIndex, expl == null ? "" : expl));
+    // ===== Checkpoint / resume =====
+    // Hands a snapshot to the background writer (coalesced; nothing is written on the EDT)
+    private void checkpointSession() {
+        if (session == null || checkpoint == null) return;
+        SessionCheckpoint.State st = session.checkpoint();
+        st.user = loginUser;
+        st.timeLeft = timeLeft;
+        checkpoint.save(st);
+    }
+
+    private void offerResume() {
+        AsyncIo.onEdt(AsyncIo.read(progress -> checkpoint.load()), (st, ex) -> {
+            if (st == null || !loginUser.equals(st.user)) return;
+            int answered = 0;
+            for (int sel : st.selected) if (sel >= 0) answered++;
+            int confirm = JOptionPane.showConfirmDialog(this,
+                    "An unfinished " + st.subject + " quiz for " + st.name + " (Roll " + st.roll + ") was interrupted"
+                            + "\nat question " + (st.current + 1) + " of " + st.length + " with " + answered + " answered."
+                            + "\n\nResume it?", "Resume Quiz", JOptionPane.YES_NO_OPTION);
+            if (confirm != JOptionPane.YES_OPTION) {
+                checkpoint.discard();
+                countAbandoned(st);
+                return;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error reading " + QUESTIONS_FILE + ": " + e.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
-        }
-        return list;
-    }
-
-    private String extractStringField(String obj, String fieldName) {
-        String pattern = "\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*\"([^\"]*)\"";
-        Pattern p = Pattern.compile(pattern);
-        Matcher m = p.matcher(obj);
-        if (m.find()) return m.group(1).trim();
-        return null;
-    }
-
-    private String[] extractStringArray(String obj, String fieldName) {
-        String pattern = "\"" + Pattern.quote(fieldName) + "\"\\s*:\\s*\\[(.*?)\\]";
-        Pattern p = Pattern.compile(pattern);
-        Matcher m = p.matcher(obj);
-        if (m.find()) {
-            String inside = m.group(1);
-            List<String> items = new ArrayList<>();
-            Pattern itemPat = Pattern.compile("\"([^\"]*)\"");
-            Matcher im = itemPat.matcher(inside);
-            while (im.find()) items.add(im.group(1));
-            return items.toArray(new String[0]);
+            AsyncIo.onEdt(snapshotAsync(), (snap, bankEx) -> {
+                if (bankEx != null) {
+                    showBankError(bankEx);
+                    return;
+                }
+                resumeQuiz(st, snap);
+            });
+        });
+    }
+
+    // The answers of an interrupted quiz the student chose not to resume still count in the item statistics
+    private void countAbandoned(SessionCheckpoint.State st) {
+        AsyncIo.onEdt(snapshotAsync(), (snap, ex) -> {
+            if (ex == null && QuizSession.countAbandoned(st, snap.bank, itemStats)) saveItemStats();
+        });
+    }
+
+    private void resumeQuiz(SessionCheckpoint.State st, BankSnapshots.Snapshot snap) {
+        CompactBank all = snap.bank;
+        if (st.adaptive && (adaptiveIndex == null || !adaptiveIndex.indexes(all))) adaptiveIndex = AdaptiveIndex.build(all, itemStats);
+        // the near-duplicate rule applies to later picks only if this bank's clusters are already known
+        DedupAnalyzer.Clusters dups;
+        synchronized (this) { dups = duplicates != null && duplicates.bank == all ? duplicates : null; }
+        QuizSession s = QuizSession.resume(st, all, adaptiveIndex, dups);
+        if (s == null) {
+            JOptionPane.showMessageDialog(this, "The interrupted quiz cannot be resumed because " + QUESTIONS_FILE + " has changed.",
+                    "Resume Quiz", JOptionPane.WARNING_MESSAGE);
+            checkpoint.discard();
+            return;
         }
-        return null;
+        roll = s.roll; name = s.name; cls = s.cls; subject = s.subject;
+        rollField.setText(roll);
+        nameField.setText(name);
+        classField.setText(cls);
+        holdSnapshot(snap);
+        session = s;
+        s.countInto(itemStats);
+        pendingTimeLeft = st.timeLeft;
+        eventLog.record(session.id, EventLog.RESUME, session.current(), Question.idCode(session.currentQuestion()), -1, -1, 0);
+        enterQuiz();
     }
 
-    // Show question
-    private void showQuestion() {
-        if (currentQuestion < 0 || currentQuestion >= questions.size()) return;
-        Question q = questions.get(currentQuestion);
-        questionLabel.setText("<html><div style='text-align:center;'>" + (currentQuestion+1) + ". " + escapeHtml(q.question) + "</div></html>");
-
-        int[] mapping = new int[]{0,1,2,3};
-        List<Integer> mapList = new ArrayList<>();
-        for (int i = 0; i < 4; i++) mapList.add(i);
-        Collections.shuffle(mapList);
-        for (int i = 0; i < 4; i++) mapping[i] = mapList.get(i);
-        displayedMappings.set(currentQuestion, mapping);
-
-        group.clearSelection();
-        for (int i = 0; i < 4; i++) {
-            options[i].setEnabled(true);
-            options[i].setText(q.options[mapping[i]]);
-            options[i].setActionCommand(String.valueOf(i));
+    // ===== Question bank loading (parsing lives in QuestionLoader) =====
+    // Current bank snapshot (the startup pipeline's until questions.json changes). Never runs on the EDT.
+    private CompletableFuture<BankSnapshots.Snapshot> snapshotAsync() {
+        return AsyncIo.read(progress -> {
+            if (bankSnapshots.current() == null) {
+                QuestionLoader.Result pre = StartupPipeline.joinOr(startup.questions, null);
+                if (pre != null) bankSnapshots.publish(pre);
+            }
+            return bankSnapshots.refresh();
+        });
+    }
+
+    private CompletableFuture<CompactBank> loadBankAsync() {
+        return snapshotAsync().thenApply(snap -> snap.bank);
+    }
+
+    // The running quiz keeps the bank it started on, whatever reloads happen meanwhile
+    private void holdSnapshot(BankSnapshots.Snapshot snap) {
+        releaseSnapshot();
+        sessionSnapshot = bankSnapshots.acquire(snap);
+    }
+
+    private void releaseSnapshot() {
+        if (sessionSnapshot == null) return;
+        bankSnapshots.release(sessionSnapshot);
+        sessionSnapshot = null;
+    }
+
+    // Search index over the current bank; only questions added or edited since the last load are re-indexed.
+    private CompletableFuture<QuestionSearch> searchAsync() {
+        return loadBankAsync().thenCompose(bank -> AsyncIo.read(progress -> {
+            QuestionSearch s;
+            synchronized (this) {
+                if (questionSearch == null) questionSearch = StartupPipeline.joinOrElse(startup.search, () -> new QuestionSearch(true));
+                s = questionSearch;
+            }
+            s.update(bank);
+            return s;
+        }));
+    }
+
+    // Near-duplicate clusters for this bank, computed off the EDT and kept until the bank changes.
+    private CompletableFuture<DedupAnalyzer.Clusters> duplicatesAsync(CompactBank bank) {
+        return AsyncIo.read(progress -> {
+            synchronized (this) {
+                if (duplicates != null && duplicates.bank == bank) return duplicates;
+            }
+            DedupAnalyzer.Clusters c = DedupAnalyzer.analyze(bank, DedupAnalyzer.DEFAULT_THRESHOLD);
+            System.out.println("Near-duplicates: " + c.count() + " clusters, " + c.redundant() + " redundant questions (" + c.millis + " ms)");
+            synchronized (this) { duplicates = c; }
+            return c;
+        });
+    }
+
+    // Search field that reports the query after a short typing pause.
+    private JTextField searchField(java.util.function.Consumer<String> onQuery) {
+        JTextField field = new JTextField(28);
+        styleTextField(field);
+        javax.swing.Timer pause = new javax.swing.Timer(200, e -> onQuery.accept(field.getText().trim()));
+        pause.setRepeats(false);
+        field.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { pause.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { pause.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { pause.restart(); }
+        });
+        field.addActionListener(e -> { pause.stop(); onQuery.accept(field.getText().trim()); });
+        return field;
+    }
+
+    private void showBankError(Throwable ex) {
+        if (ex instanceof NoSuchFileException) {
+            JOptionPane.showMessageDialog(this, QUESTIONS_FILE + " not found. Please create it in working directory.", "File Missing", JOptionPane.ERROR_MESSAGE);
+        } else {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error reading " + QUESTIONS_FILE + ": " + ex.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
         }
+    }
+
+    private void onOptionSelected(int displayed) {
+        nextButton.setEnabled(true);
+        session.select(displayed);
+        logEvent(EventLog.SELECT, displayed);
+        checkpointSession();
+        evaluateCurrentSelection();
+    }
 
-        Integer prev = selectedDisplayedIndex[currentQuestion];
-        if (prev != null) {
-            if (prev >=0 && prev < 4) options[prev].setSelected(true);
-            nextButton.setEnabled(true);
-        } else nextButton.setEnabled(false);
+    // Show question: swaps in the prepared view (built now on a cache miss)
+    private void showQuestion() {
+        if (session == null) return;
+        int currentQuestion = session.current();
+        Question q = session.currentQuestion();
+        QuizEvents.ShowQuestion ev = new QuizEvents.ShowQuestion();
+        ev.begin();
+        ev.prefetched = questionViews.isPrepared(session, currentQuestion, q);
+        QuestionViewCache.View view = questionViews.show(session, currentQuestion, q);
+
+        Integer prev = session.selected(currentQuestion);
+        view.showSelection(prev);
+        nextButton.setEnabled(prev != null);
 
         backButton.setEnabled(currentQuestion > 0);
-        int progress = (int)Math.round(((currentQuestion+1) * 100.0) / questions.size());
+        int progress = (int)Math.round(((currentQuestion+1) * 100.0) / session.size());
         progressBar.setValue(progress);
-        progressBar.setString("Progress: " + (currentQuestion+1) + " / " + questions.size());
+        progressBar.setString("Progress: " + (currentQuestion+1) + " / " + session.size());
 
         startTimerForQuestion();
+        session.questionShown();
+        logEvent(EventLog.SHOW, -1);
+        checkpointSession();
+        // once this question is painted, prepare its neighbours (adaptive: both possible follow-ups)
+        SwingUtilities.invokeLater(this::prefetchNeighbours);
+        ev.subject = subject;
+        ev.index = currentQuestion;
+        ev.questionCount = session.size();
+        ev.textLength = q.question.length();
+        ev.commit();
     }
 
-    private String escapeHtml(String s) {
-        return s.replace("&","&amp;").replace("<","&lt;").replace(">","&gt;");
+    private void prefetchNeighbours() {
+        if (session == null) return;
+        QuizSession s = session;
+        int cur = s.current();
+        for (Question next : s.upcoming()) questionViews.prefetch(s, cur + 1, next);
+        if (cur > 0) questionViews.prefetch(s, cur - 1, s.questions.get(cur - 1));
     }
 
     // Timer
     private void startTimerForQuestion() {
         stopTimer();
-        timeLeft = TIME_PER_QUESTION;
+        timeLeft = pendingTimeLeft > 0 ? pendingTimeLeft : TIME_PER_QUESTION;
+        pendingTimeLeft = -1;
         timerLabel.setText("⏱ Time: " + timeLeft + "s");
         timer = new javax.swing.Timer(1000, e -> {
             timeLeft--;
             timerLabel.setText("⏱ Time: " + timeLeft + "s");
+            if (timeLeft % 5 == 0) checkpointSession(); // remaining time survives a crash to within 5s
             if (timeLeft <= 0) {
                 ((javax.swing.Timer)e.getSource()).stop();
                 // treat as skip/no selection and move on (no change in selection)
+                Metrics.TIMEOUTS.inc();
+                logEvent(EventLog.TIMEOUT, -1);
                 nextQuestion();
             }
         });
@@ -518,8 +696,9 @@ public class SkillNestStudentQuiz extends JFrame {
     private void nextQuestion() {
         // No immediate feedback. Just move forward after recording selection (selection recorded by radio button handler).
         evaluateCurrentSelection(); // updates score label
-        if (currentQuestion < questions.size() - 1) {
-            currentQuestion++;
+        logEvent(EventLog.NEXT, -1);
+        if (!session.isLast()) {
+            session.advance();
             showQuestion();
         } else {
             stopTimer();
@@ -528,8 +707,8 @@ public class SkillNestStudentQuiz extends JFrame {
     }
 
     private void previousQuestion() {
-        if (currentQuestion > 0) {
-            currentQuestion--;
+        if (session.current() > 0) logEvent(EventLog.BACK, -1);
+        if (session.back()) {
             showQuestion();
             evaluateCurrentSelection();
         } else {
@@ -538,45 +717,46 @@ public class SkillNestStudentQuiz extends JFrame {
     }
 
     private void evaluateCurrentSelection() {
-        int s = 0;
-        for (int qi = 0; qi < questions.size(); qi++) {
-            Integer selDisplayed = selectedDisplayedIndex[qi];
-            if (selDisplayed == null) continue;
-            int[] mapping = displayedMappings.get(qi);
-            if (mapping == null) continue;
-            int originalIndex = mapping[selDisplayed];
-            if (originalIndex == questions.get(qi).correctIndex) s++;
-        }
-        score = s;
+        score = session.correctCount();
         updateScoreLabel();
     }
 
     private void updateScoreLabel() { scoreLabel.setText("Score: " + score); }
 
+    // Appends one interaction on the current question to the event log (never blocks the EDT)
+    private void logEvent(byte type, int displayed) {
+        if (session == null || session.questions.isEmpty()) return;
+        int qi = session.current();
+        int original = displayed >= 0 ? session.original(qi, displayed) : -1;
+        eventLog.record(session.id, type, qi, Question.idCode(session.currentQuestion()), displayed, original, session.millisOnCurrent());
+    }
+
     // End quiz
     private void endQuiz() {
         int total = questions.size();
-        // recompute final correct/incorrect counts
-        int corrects = 0;
-        int incorrects = 0;
-        for (int i = 0; i < questions.size(); i++) {
-            Integer sel = selectedDisplayedIndex[i];
-            if (sel == null) { incorrects++; continue; }
-            int[] mapping = displayedMappings.get(i);
-            if (mapping == null) { incorrects++; continue; }
-            int original = mapping[sel];
-            if (original == questions.get(i).correctIndex) corrects++; else incorrects++;
-        }
+        session.finish();
+        checkpoint.discard();
+        releaseSnapshot();
+        eventLog.record(session.id, EventLog.FINISH, total, 0, -1, -1, System.currentTimeMillis() - session.startedAt);
+        // recompute final correct/incorrect counts (unanswered counts as incorrect)
+        int corrects = session.correctCount();
+        int incorrects = total - corrects;
         totalCorrectCount = corrects;
         totalIncorrectCount = incorrects;
         score = corrects;
+        Metrics.QUIZZES_FINISHED.inc();
         int percent = (total == 0) ? 0 : (score * 100 / total);
 
-        // show simple completion message (no per-question feedback)
-        JOptionPane.showMessageDialog(this, "Quiz Complete!\nYour Score: " + score + "/" + total + " (" + percent + "%)", "Result", JOptionPane.INFORMATION_MESSAGE);
-
+        // writes go to the background persistence thread before the modal result dialog
         saveScore(score, total);
+        // version hashes of the questions actually asked
+        for (Question q : questions) questionVersions.put(qId(q), computeQuestionHash(q));
         persistQuestionVersions();
+        saveItemStats();
+
+        // show simple completion message (no per-question feedback)
+        JOptionPane.showMessageDialog(this, "Quiz Complete!\nYour Score: " + score + "/" + total + " (" + percent + "%)"
+                + "\n\nSession ID: " + EventLog.formatId(session.id) + "\n(quote this if you query the result)", "Result", JOptionPane.INFORMATION_MESSAGE);
 
         // enable analytics/review/export/explanations buttons
         analyticsBtn.setEnabled(true);
@@ -593,30 +773,33 @@ public class SkillNestStudentQuiz extends JFrame {
         cardLayout.show(mainPanel, "start");
     }
 
-    // Save CSV scores (appends, creates header if needed)
+    // Save CSV scores (appends, creates header if needed) on the persistence thread
     private void saveScore(int score, int total) {
-        try {
-            Path p = Paths.get(SCORES_FILE);
-            boolean newFile = Files.notExists(p);
-            String ts = ZonedDateTime.now().toString();
-            try (BufferedWriter bw = Files.newBufferedWriter(p, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-                if (newFile) bw.write("Roll,Name,Class,Subject,Score,Total,Timestamp\n");
-                String line = String.join(",", escapeCsv(roll), escapeCsv(name), escapeCsv(cls), escapeCsv(subject),
-                        String.valueOf(score), String.valueOf(total), escapeCsv(ts));
-                bw.write(line + "\n");
+        String r = roll, nm = name, cl = cls, subj = subject;
+        String ts = ZonedDateTime.now().toString();
+        AsyncIo.onEdt(AsyncIo.persist(progress -> {
+            QuizEvents.SaveScore ev = new QuizEvents.SaveScore();
+            ev.begin();
+            long t0 = System.nanoTime();
+            String[] row = {r, nm, cl, subj, String.valueOf(score), String.valueOf(total), ts};
+            ev.bytesWritten = scoreStore.append(row);
+            ev.subject = subj;
+            ev.newFile = ev.bytesWritten > ScoreStore.toCsvLine(row).getBytes(StandardCharsets.UTF_8).length + 1; // header written too
+            ev.commit();
+            Metrics.SCORE_WRITE_SECONDS.recordSince(t0);
+            if (outbox != null) {
+                try {
+                    outbox.enqueue(row); // shipped by the outbox thread; the local copy above is already safe
+                } catch (IOException e) {
+                    System.err.println("[outbox] result saved locally but not queued for " + outbox.collector() + ": " + e.getMessage());
+                }
             }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Unable to save score: " + e.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    private String escapeCsv(String s) {
-        if (s == null) return "";
-        if (s.contains(",") || s.contains("\"")) {
-            s = s.replace("\"", "\"\"");
-            return "\"" + s + "\"";
-        }
-        return s;
+            return null;
+        }), (v, ex) -> {
+            if (ex == null) { Metrics.SCORE_WRITES.inc(); return; }
+            Metrics.SCORE_WRITE_FAILURES.inc();
+            JOptionPane.showMessageDialog(this, "Unable to save score: " + ex.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
+        });
     }
 
     // ===== Score manager: full window with input boxes + table =====
@@ -674,15 +857,24 @@ public class SkillNestStudentQuiz extends JFrame {
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 8));
         JButton deleteByRollBtn = new JButton("🗑 Delete by Roll No");
         JButton deleteAllBtn = new JButton("🧹 Delete All Scores");
+        JButton archiveBtn = new JButton("📦 Archive Term");
+        JComboBox<String> termBox = new JComboBox<>(new String[]{ALL_TERMS});
+        JButton hardestBtn = new JButton("📉 Hardest Questions");
+        JButton replayBtn = new JButton("🔎 Replay Session");
         JButton closeBtn = new JButton("Close");
+        bottom.add(new JLabel("Term:"));
+        bottom.add(termBox);
         bottom.add(deleteByRollBtn);
         bottom.add(deleteAllBtn);
+        bottom.add(archiveBtn);
+        bottom.add(hardestBtn);
+        bottom.add(replayBtn);
         bottom.add(closeBtn);
         viewFrame.add(bottom, BorderLayout.SOUTH);
 
-        // Load initial data
-        List<String[]> rows = loadScoresCsvRows();
-        for (String[] r : rows) model.addRow(r);
+        // Load initial data (off the EDT); picking a term reads only that term's segments
+        refreshTerms(model, termBox);
+        termBox.addActionListener(ev -> refreshScoresTable(model, termBox));
 
         // Add button action: validate, append to CSV, and refresh table
         addBtn.addActionListener(ev -> {
@@ -696,119 +888,100 @@ public class SkillNestStudentQuiz extends JFrame {
                 JOptionPane.showMessageDialog(viewFrame, "Please fill all fields to add a score.", "Input Required", JOptionPane.WARNING_MESSAGE);
                 return;
             }
+            int scVal, totVal;
             try {
-                int scVal = Integer.parseInt(sc);
-                int totVal = Integer.parseInt(tot);
-                String ts = ZonedDateTime.now().toString();
-                String line = String.join(",", escapeCsv(r), escapeCsv(nm), escapeCsv(cl), escapeCsv(subj), String.valueOf(scVal), String.valueOf(totVal), escapeCsv(ts));
-                Path p = Paths.get(SCORES_FILE);
-                boolean newFile = Files.notExists(p);
-                try (BufferedWriter bw = Files.newBufferedWriter(p, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-                    if (newFile) bw.write("Roll,Name,Class,Subject,Score,Total,Timestamp\n");
-                    bw.write(line + "\n");
-                }
-                model.addRow(new String[]{r, nm, cl, subj, String.valueOf(scVal), String.valueOf(totVal), ts});
-                rollIn.setText(""); nameIn.setText(""); classIn.setText(""); subjectIn.setText(""); scoreIn.setText(""); totalIn.setText("");
+                scVal = Integer.parseInt(sc);
+                totVal = Integer.parseInt(tot);
             } catch (NumberFormatException nfe) {
                 JOptionPane.showMessageDialog(viewFrame, "Score and Total must be integers.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
-            } catch (IOException io) {
-                JOptionPane.showMessageDialog(viewFrame, "Unable to save score: " + io.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            String ts = ZonedDateTime.now().toString();
+            String[] row = {r, nm, cl, subj, String.valueOf(scVal), String.valueOf(totVal), ts};
+            AsyncIo.onEdt(AsyncIo.persist(progress -> scoreStore.append(row)), (bytes, ex) -> {
+                if (ex != null) {
+                    JOptionPane.showMessageDialog(viewFrame, "Unable to save score: " + ex.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                model.addRow(row);
+                rollIn.setText(""); nameIn.setText(""); classIn.setText(""); subjectIn.setText(""); scoreIn.setText(""); totalIn.setText("");
+            });
         });
 
-        // Delete by roll
+        // Delete by roll (cancellable; the file is only replaced once the scan completes)
         deleteByRollBtn.addActionListener(ev -> {
             String rollToDelete = JOptionPane.showInputDialog(viewFrame, "Enter Roll No to delete:");
             if (rollToDelete != null && !rollToDelete.trim().isEmpty()) {
-                deleteScoresByRoll(rollToDelete.trim());
-                model.setRowCount(0);
-                List<String[]> refreshed = loadScoresCsvRows();
-                for (String[] r : refreshed) model.addRow(r);
+                String target = rollToDelete.trim();
+                AsyncIo.onEdt(AsyncIo.withProgress(viewFrame, "Deleting scores for " + target, true,
+                        progress -> scoreStore.deleteByRoll(target, progress)), (removed, ex) -> {
+                    if (ex instanceof CancellationException) return;
+                    if (ex != null) JOptionPane.showMessageDialog(viewFrame, "Cannot delete scores: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    refreshScoresTable(model, termBox);
+                });
             }
         });
 
         // Delete all
         deleteAllBtn.addActionListener(ev -> {
-            int confirm = JOptionPane.showConfirmDialog(viewFrame, "Delete ALL scores? This cannot be undone.", "Confirm", JOptionPane.YES_NO_OPTION);
+            int confirm = JOptionPane.showConfirmDialog(viewFrame, "Delete ALL scores? Archived terms are kept. This cannot be undone.", "Confirm", JOptionPane.YES_NO_OPTION);
             if (confirm == JOptionPane.YES_OPTION) {
-                try { Files.deleteIfExists(Paths.get(SCORES_FILE)); } catch (IOException e) { JOptionPane.showMessageDialog(viewFrame, "Cannot delete scores file: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE); }
-                model.setRowCount(0);
+                AsyncIo.onEdt(AsyncIo.persist(progress -> { scoreStore.deleteAll(); return null; }), (v, ex) -> {
+                    if (ex != null) JOptionPane.showMessageDialog(viewFrame, "Cannot delete scores file: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    refreshTerms(model, termBox);
+                });
             }
         });
 
+        // Archive a term: its segment folder moves under archive/ and drops out of the table and later queries
+        archiveBtn.addActionListener(ev -> AsyncIo.onEdt(AsyncIo.persist(progress -> scoreStore.terms()), (terms, ex) -> {
+            if (ex != null || terms.isEmpty()) {
+                JOptionPane.showMessageDialog(viewFrame, ex != null ? "Cannot list terms: " + ex.getMessage() : "There are no scores to archive.",
+                        "Archive Term", ex != null ? JOptionPane.ERROR_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            Object picked = JOptionPane.showInputDialog(viewFrame, "Term to archive:", "Archive Term", JOptionPane.QUESTION_MESSAGE,
+                    null, terms.toArray(), terms.get(0));
+            if (picked == null) return;
+            String term = picked.toString();
+            AsyncIo.onEdt(AsyncIo.persist(progress -> scoreStore.archiveTerm(term)), (moved, ex2) -> {
+                if (ex2 != null) JOptionPane.showMessageDialog(viewFrame, "Cannot archive " + term + ": " + ex2.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                else JOptionPane.showMessageDialog(viewFrame, "Archived " + moved + " segment(s) of " + term + " to "
+                        + scoreStore.dir().resolve(ScoreStore.ARCHIVE).resolve(term), "Archive Term", JOptionPane.INFORMATION_MESSAGE);
+                refreshTerms(model, termBox);
+            });
+        }));
+
+        hardestBtn.addActionListener(ev -> showHardestQuestions(viewFrame));
+        replayBtn.addActionListener(ev -> replaySession(viewFrame));
         closeBtn.addActionListener(ev -> viewFrame.dispose());
 
         viewFrame.setVisible(true);
     }
 
-    // Load CSV rows as arrays of strings (skips empty lines)
-    private List<String[]> loadScoresCsvRows() {
-        List<String[]> rows = new ArrayList<>();
-        Path p = Paths.get(SCORES_FILE);
-        if (Files.notExists(p)) return rows;
-        try {
-            List<String> lines = Files.readAllLines(p);
-            for (String ln : lines) {
-                if (ln.trim().isEmpty()) continue;
-                if (ln.toLowerCase().startsWith("roll,") && rows.isEmpty()) continue; // skip header
-                List<String> tokens = new ArrayList<>();
-                boolean inQuote = false;
-                StringBuilder cur = new StringBuilder();
-                for (int i = 0; i < ln.length(); i++) {
-                    char ch = ln.charAt(i);
-                    if (ch == '"' ) {
-                        if (inQuote && i+1 < ln.length() && ln.charAt(i+1) == '"') { cur.append('"'); i++; continue; }
-                        inQuote = !inQuote;
-                    } else if (ch == ',' && !inQuote) {
-                        tokens.add(cur.toString());
-                        cur.setLength(0);
-                    } else cur.append(ch);
-                }
-                tokens.add(cur.toString());
-                while (tokens.size() < 7) tokens.add("");
-                rows.add(tokens.subList(0,7).toArray(new String[0]));
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return rows;
-    }
-
-    // Delete scores by roll
-    private void deleteScoresByRoll(String rollNo) {
-        Path path = Paths.get(SCORES_FILE);
-        if (Files.notExists(path)) return;
-        try {
-            List<String> lines = Files.readAllLines(path);
-            List<String> filtered = new ArrayList<>();
-            for (String ln : lines) {
-                if (ln.trim().isEmpty()) continue;
-                if (ln.toLowerCase().startsWith("roll,")) { filtered.add(ln); continue; } // keep header
-                String first = parseCsvFirstToken(ln);
-                if (!first.equals(rollNo)) filtered.add(ln);
-            }
-            Files.write(path, filtered);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    // Reload the score table from disk on the persistence thread (ordered after pending writes)
+    private void refreshScoresTable(DefaultTableModel model, JComboBox<String> termBox) {
+        Object sel = termBox.getSelectedItem();
+        String term = sel == null || ALL_TERMS.equals(sel) ? null : sel.toString();
+        AsyncIo.onEdt(AsyncIo.persist(progress -> term == null ? scoreStore.loadRows() : scoreStore.query(ScoreStore.Filter.term(term))), (rows, ex) -> {
+            model.setRowCount(0);
+            if (rows != null) for (String[] r : rows) model.addRow(r);
+        });
     }
 
-    private String parseCsvFirstToken(String line) {
-        line = line.trim();
-        if (line.startsWith("\"")) {
-            int end = 1;
-            while (end < line.length()) {
-                if (line.charAt(end) == '"' && end+1 < line.length() && line.charAt(end+1) == '"') { end += 2; continue; }
-                if (line.charAt(end) == '"') break;
-                end++;
-            }
-            String token = line.substring(1, end).replace("\"\"", "\"");
-            return token;
-        } else {
-            int comma = line.indexOf(',');
-            if (comma == -1) return line;
-            return line.substring(0, comma);
-        }
+    // Refill the term picker (keeping the selection while that term exists), then reload the table
+    private void refreshTerms(DefaultTableModel model, JComboBox<String> termBox) {
+        AsyncIo.onEdt(AsyncIo.persist(progress -> scoreStore.terms()), (terms, ex) -> {
+            Object sel = termBox.getSelectedItem();
+            ActionListener[] listeners = termBox.getActionListeners();
+            for (ActionListener l : listeners) termBox.removeActionListener(l);
+            termBox.removeAllItems();
+            termBox.addItem(ALL_TERMS);
+            if (terms != null) for (String t : terms) termBox.addItem(t);
+            termBox.setSelectedItem(terms != null && terms.contains(sel) ? sel : ALL_TERMS);
+            for (ActionListener l : listeners) termBox.addActionListener(l);
+            refreshScoresTable(model, termBox);
+        });
     }
 
     // ===== Analytics visualization (small panel) =====
@@ -875,23 +1048,56 @@ public class SkillNestStudentQuiz extends JFrame {
         };
         JTable table = new JTable(m);
         table.setRowHeight(36);
+        javax.swing.table.TableRowSorter<DefaultTableModel> sorter = new javax.swing.table.TableRowSorter<>(m);
+        table.setRowSorter(sorter);
         JScrollPane sc = new JScrollPane(table);
         rev.add(sc, BorderLayout.CENTER);
 
+        // search narrows the table to this attempt's questions that match in the bank index
+        JLabel searchStatus = new JLabel(" ");
+        List<Question> attempt = new ArrayList<>(questions);
+        int[] searchSeq = {0};
+        JTextField search = searchField(query -> {
+            int seq = ++searchSeq[0];
+            if (query.isEmpty()) {
+                sorter.setRowFilter(null);
+                searchStatus.setText(" ");
+                return;
+            }
+            AsyncIo.onEdt(searchAsync().thenCompose(ix -> AsyncIo.read(progress -> {
+                BitSet hits = ix.matching(query);
+                CompactBank bank = ix.bank();
+                Set<Integer> rows = new HashSet<>();
+                for (int i = 0; i < attempt.size(); i++) {
+                    int at = bank.indexOf(attempt.get(i));
+                    if (at >= 0 && hits.get(at)) rows.add(i);
+                }
+                return rows;
+            })), (rows, ex) -> {
+                if (seq != searchSeq[0]) return; // a newer query is on its way
+                if (ex != null) {
+                    searchStatus.setText("Search unavailable: " + AsyncIo.unwrap(ex).getMessage());
+                    return;
+                }
+                sorter.setRowFilter(new RowFilter<DefaultTableModel, Integer>() {
+                    public boolean include(Entry<? extends DefaultTableModel, ? extends Integer> e) { return rows.contains(e.getIdentifier()); }
+                });
+                searchStatus.setText(rows.size() + " of " + attempt.size() + " questions match");
+            });
+        });
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 6));
+        top.add(new JLabel("🔍 Search:"));
+        top.add(search);
+        top.add(searchStatus);
+        rev.add(top, BorderLayout.NORTH);
+
         for (int i = 0; i < questions.size(); i++) {
             Question q = questions.get(i);
             String shortQ = truncate(q.question, 80);
-            String your = "";
-            Integer sel = selectedDisplayedIndex[i];
-            if (sel != null) {
-                int[] map = displayedMappings.get(i);
-                if (map != null && sel >= 0 && sel < map.length) your = q.options[map[sel]];
-            }
+            int picked = session.originalAnswer(i);
+            String your = picked >= 0 ? q.options[picked] : "";
             String corr = q.options[q.correctIndex];
-            boolean correct = false;
-            if (sel != null && displayedMappings.get(i) != null) {
-                correct = displayedMappings.get(i)[sel] == q.correctIndex;
-            }
+            boolean correct = picked == q.correctIndex;
             String result = correct ? "Correct" : "Incorrect";
             String expl = q.explanation == null ? "" : q.explanation;
             // version check
@@ -923,24 +1129,16 @@ public class SkillNestStudentQuiz extends JFrame {
 
     // ===== Question hashing & versioning persistence =====
     private String qId(Question q) {
-        return Integer.toString(Objects.hash(q.subject, q.question)); // deterministic-ish id
+        return Question.id(q);
     }
 
     private String computeQuestionHash(Question q) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            String concat = q.subject + "||" + q.question + "||" + String.join("||", q.options) + "||" + q.explanation;
-            byte[] b = md.digest(concat.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte by : b) sb.append(String.format("%02x", by));
-            return sb.toString();
-        } catch (Exception e) { return Integer.toString(Objects.hash(q.subject, q.question, Arrays.toString(q.options))); }
+        return Question.contentHash(q);
     }
 
-    private void loadPersistedQuestionVersions() {
-        loadedQuestionHashes.clear();
-        Path p = Paths.get(VERSIONS_FILE);
-        if (Files.notExists(p)) return;
+    static Map<String, String> readVersionsFile(Path p) {
+        Map<String, String> m = new HashMap<>();
+        if (Files.notExists(p)) return m;
         try {
             List<String> lines = Files.readAllLines(p);
             for (String ln : lines) {
@@ -949,29 +1147,215 @@ public class SkillNestStudentQuiz extends JFrame {
                 if (idx > 0) {
                     String id = ln.substring(0, idx);
                     String hash = ln.substring(idx+1);
-                    loadedQuestionHashes.put(id, hash);
+                    m.put(id, hash);
                 }
             }
         } catch (IOException ignored) {}
+        return m;
+    }
+
+    private void loadPersistedQuestionVersions() {
+        loadedQuestionHashes.clear();
+        loadedQuestionHashes.putAll(StartupPipeline.joinOrElse(startup.versions, () -> readVersionsFile(Paths.get(VERSIONS_FILE))));
     }
 
     private void persistQuestionVersions() {
-        // merge loaded + current session's questionVersions
-        try {
-            Map<String,String> merged = new HashMap<>(loadedQuestionHashes);
-            merged.putAll(questionVersions);
+        // merge loaded + current session's questionVersions; the runtime map is updated right away
+        Map<String,String> merged = new HashMap<>(loadedQuestionHashes);
+        merged.putAll(questionVersions);
+        loadedQuestionHashes.putAll(questionVersions);
+        AsyncIo.persist(progress -> {
+            QuizEvents.PersistVersions ev = new QuizEvents.PersistVersions();
+            ev.begin();
             Path p = Paths.get(VERSIONS_FILE);
             try (BufferedWriter bw = Files.newBufferedWriter(p, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
                 for (Map.Entry<String,String> e : merged.entrySet()) {
                     bw.write(e.getKey() + "," + e.getValue() + "\n");
                 }
             }
-            // also update runtime loaded map
-            loadedQuestionHashes.putAll(questionVersions);
-        } catch (IOException ignored) {}
+            ev.entries = merged.size();
+            ev.bytesWritten = Files.size(p);
+            ev.commit();
+            return null;
+        });
+    }
+
+    // Answers and time on screen per question are counted by the session as the quiz goes; this writes them out
+    private void saveItemStats() {
+        AsyncIo.onEdt(AsyncIo.persist(progress -> { itemStats.save(); return null; }), (v, ex) -> {
+            if (ex != null) System.err.println("Unable to save item statistics: " + ex);
+        });
+    }
+
+    // ===== Hardest questions report =====
+    private void showHardestQuestions(Window owner) {
+        List<ItemStats.Row> rows = itemStats.hardest(50, 1);
+        if (rows.isEmpty()) {
+            JOptionPane.showMessageDialog(owner, "No answers recorded yet.", "Hardest Questions", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String[] cols = {"Subject", "Question", "Attempts", "% Correct", "% Unanswered", "Median Time", "Top Wrong Option"};
+        DefaultTableModel model = new DefaultTableModel(cols, 0) {
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        for (ItemStats.Row r : rows) {
+            String median = r.medianSeconds < 0 ? "> " + TIME_PER_QUESTION + "s" : "≤ " + r.medianSeconds + "s";
+            String wrong = r.topWrongOption < 0 ? "-" : (char) ('A' + r.topWrongOption) + " (" + r.topWrongCount + ")";
+            model.addRow(new Object[]{r.subject, r.label, r.attempts, pct(r.correct, r.attempts), pct(r.unanswered, r.attempts), median, wrong});
+        }
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(1).setPreferredWidth(360);
+
+        JDialog d = new JDialog(owner, "Hardest Questions", Dialog.ModalityType.MODELESS);
+        d.setLayout(new BorderLayout(8, 8));
+        d.add(new JLabel("  Ranked by share of wrong answers over " + itemStats.size() + " tracked questions (options as written in the bank)"), BorderLayout.NORTH);
+        d.add(new JScrollPane(table), BorderLayout.CENTER);
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> d.dispose());
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        bottom.add(close);
+        d.add(bottom, BorderLayout.SOUTH);
+        d.setSize(900, 480);
+        d.setLocationRelativeTo(owner);
+        d.setVisible(true);
+    }
+
+    private static String pct(long part, long whole) {
+        return whole == 0 ? "-" : (part * 100 / whole) + "%";
+    }
+
+    // ===== Session replay (event log -> review table) =====
+    private void replaySession(Window owner) {
+        String in = JOptionPane.showInputDialog(owner, "Session ID (shown on the student's result dialog):");
+        if (in == null || in.trim().isEmpty()) return;
+        long sid;
+        try {
+            sid = EventLog.parseId(in);
+        } catch (NumberFormatException nfe) {
+            JOptionPane.showMessageDialog(owner, "A session ID is 16 hex digits.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        CompletableFuture<List<EventLog.Event>> events = AsyncIo.read(progress -> {
+            eventLog.flush();
+            return EventLog.readSession(eventLog.file(), sid);
+        });
+        CompletableFuture<CompactBank> bank = loadBankAsync();
+        AsyncIo.onEdt(events, (evs, ex) -> {
+            if (ex != null) {
+                JOptionPane.showMessageDialog(owner, "Cannot read the event log: " + ex.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (evs.isEmpty()) {
+                JOptionPane.showMessageDialog(owner, "No events recorded for session " + EventLog.formatId(sid) + ".", "Replay", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            // question text comes from the current bank; without it the timeline is still shown
+            AsyncIo.onEdt(bank, (qs, bankEx) -> showReplayWindow(owner, sid, evs, qs != null ? qs : CompactBank.EMPTY));
+        });
+    }
+
+    private void showReplayWindow(Window owner, long sid, List<EventLog.Event> evs, CompactBank bank) {
+        Map<Integer, Question> byId = new HashMap<>();
+        for (EventLog.Event e : evs) {
+            int at = e.type == EventLog.START || byId.containsKey(e.questionId) ? -1 : bank.findById(e.questionId);
+            if (at >= 0) byId.put(e.questionId, bank.get(at));
+        }
+
+        // final answer per question position, with the selection history that led to it
+        TreeMap<Integer, Integer> qids = new TreeMap<>();
+        Map<Integer, Integer> finalOriginal = new HashMap<>();
+        Map<Integer, StringBuilder> history = new HashMap<>();
+        Map<Integer, Long> timeOn = new HashMap<>();
+        String[] evCols = {"Time", "Event", "Q#", "Displayed", "Original", "Option Text", "Elapsed (ms)"};
+        DefaultTableModel evModel = new DefaultTableModel(evCols, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+        };
+        java.time.format.DateTimeFormatter fmt = java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(java.time.ZoneId.systemDefault());
+        for (EventLog.Event e : evs) {
+            boolean onQuestion = e.type != EventLog.START && e.type != EventLog.FINISH;
+            Question q = onQuestion ? byId.get(e.questionId) : null;
+            if (onQuestion) qids.put(e.questionIndex, e.questionId);
+            if (e.type == EventLog.SELECT) {
+                finalOriginal.put(e.questionIndex, e.original);
+                StringBuilder h = history.computeIfAbsent(e.questionIndex, k -> new StringBuilder());
+                if (h.length() > 0) h.append(" → ");
+                h.append((char) ('A' + e.displayed));
+            }
+            if (e.type == EventLog.NEXT || e.type == EventLog.BACK || e.type == EventLog.QUIT) timeOn.merge(e.questionIndex, (long) e.elapsedMs, Long::sum);
+            String text = q != null && e.original >= 0 && e.original < q.options.length ? q.options[e.original] : "";
+            evModel.addRow(new Object[]{fmt.format(java.time.Instant.ofEpochMilli(e.epochMillis)), e.typeName(),
+                    onQuestion ? String.valueOf(e.questionIndex + 1) : "", e.displayed >= 0 ? String.valueOf((char) ('A' + e.displayed)) : "",
+                    e.original >= 0 ? String.valueOf((char) ('A' + e.original)) : "", text, e.elapsedMs});
+        }
+
+        String[] cols = {"#", "Question (short)", "Your Answer", "Correct Answer", "Result", "Selections (as displayed)", "Time (s)"};
+        DefaultTableModel m = new DefaultTableModel(cols, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+        };
+        for (Map.Entry<Integer, Integer> e : qids.entrySet()) {
+            int qi = e.getKey();
+            Question q = byId.get(e.getValue());
+            int picked = finalOriginal.getOrDefault(qi, -1);
+            String hist = history.containsKey(qi) ? history.get(qi).toString() : "(none)";
+            String secs = String.valueOf(timeOn.getOrDefault(qi, 0L) / 1000);
+            if (q == null) {
+                m.addRow(new String[]{String.valueOf(qi + 1), "(question " + e.getValue() + " is no longer in the bank)", "", "", "", hist, secs});
+                continue;
+            }
+            String your = picked >= 0 && picked < q.options.length ? q.options[picked] : "";
+            m.addRow(new String[]{String.valueOf(qi + 1), truncate(q.question, 80), your, q.options[q.correctIndex],
+                    picked == q.correctIndex ? "Correct" : "Incorrect", hist, secs});
+        }
+
+        JTable review = new JTable(m);
+        review.setRowHeight(28);
+        JTable timeline = new JTable(evModel);
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Review", new JScrollPane(review));
+        tabs.addTab("Events (" + evs.size() + ")", new JScrollPane(timeline));
+
+        JFrame f = new JFrame("🔎 Replay: session " + EventLog.formatId(sid));
+        f.setLayout(new BorderLayout(8, 8));
+        f.add(tabs, BorderLayout.CENTER);
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> f.dispose());
+        JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        bottom.add(close);
+        f.add(bottom, BorderLayout.SOUTH);
+        f.setSize(1000, 560);
+        f.setLocationRelativeTo(owner);
+        f.setVisible(true);
     }
 
     // ===== Export / Print review =====
+    // Immutable copy of what the review exports need, so rendering can run off the EDT.
+    private final class ReviewData {
+        final List<Question> questions = new ArrayList<>(SkillNestStudentQuiz.this.questions);
+        final Integer[] selected = session.selectedCopy();
+        final long seed = session.id;
+        final Map<String, String> priorHashes = new HashMap<>(loadedQuestionHashes);
+        final String name = SkillNestStudentQuiz.this.name, roll = SkillNestStudentQuiz.this.roll,
+                cls = SkillNestStudentQuiz.this.cls, subject = SkillNestStudentQuiz.this.subject;
+
+        String yourAnswer(int i) {
+            Integer sel = selected[i];
+            if (sel != null) return questions.get(i).options[SeededOrder.original(seed, i, questions.get(i).options.length, sel)];
+            return "<no answer>";
+        }
+
+        boolean updated(Question q) {
+            String prevHash = priorHashes.get(qId(q));
+            return prevHash != null && !prevHash.equals(computeQuestionHash(q));
+        }
+    }
+
+    private static final class ReviewExportResult {
+        boolean pdfSaved;
+        File pngFile;
+        IOException pngError;
+    }
+
     private void exportReviewAsPDF() {
         if (questions == null || questions.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No review available to export.", "Export", JOptionPane.INFORMATION_MESSAGE);
@@ -983,13 +1367,39 @@ public class SkillNestStudentQuiz extends JFrame {
         fc.setSelectedFile(new File(System.getProperty("user.home"), "skillnest_review.pdf"));
         int res = fc.showSaveDialog(this);
         if (res != JFileChooser.APPROVE_OPTION) return;
-        File target = fc.getSelectedFile();
-        if (!target.getName().toLowerCase().endsWith(".pdf")) {
-            target = new File(target.getParentFile(), target.getName() + ".pdf");
-        }
+        File chosen = fc.getSelectedFile();
+        File target = chosen.getName().toLowerCase().endsWith(".pdf") ? chosen : new File(chosen.getParentFile(), chosen.getName() + ".pdf");
+        ReviewData rd = new ReviewData();
+
+        AsyncIo.onEdt(AsyncIo.withProgress(this, "Exporting review", false, progress -> writeReviewExports(rd, target, progress)), (r, ex) -> {
+            if (ex instanceof CancellationException) return;
+            if (ex != null) {
+                JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (r.pdfSaved) JOptionPane.showMessageDialog(this, "Exported review to PDF:\n" + target.getAbsolutePath(), "Export", JOptionPane.INFORMATION_MESSAGE);
+            if (r.pngError == null) {
+                JOptionPane.showMessageDialog(this,
+                        (r.pdfSaved ? "Also saved PNG fallback at:\n" : "Saved PNG fallback at:\n")
+                                + r.pngFile.getAbsolutePath(),
+                        "Saved PNG", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Unable to save PNG fallback: " + r.pngError.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            // If PDF not saved, offer the system Print dialog (user can choose "Save as PDF")
+            if (!r.pdfSaved) offerSystemPrint(rd);
+        });
+    }
 
-        // Try to find StreamPrintServiceFactory supporting PDF
-        boolean pdfSaved = false;
+    // Runs on an I/O worker: direct PDF (if the JVM has a PDF stream service) plus the PNG fallback.
+    private ReviewExportResult writeReviewExports(ReviewData rd, File target, AsyncIo.Progress progress) {
+        ReviewExportResult result = new ReviewExportResult();
+        long exportStart = System.nanoTime();
+        QuizEvents.Export pdfEv = new QuizEvents.Export();
+        pdfEv.begin();
+        pdfEv.kind = "review-pdf";
+        pdfEv.subject = rd.subject;
+        progress.update(0, 2, "Writing PDF...");
         try {
             DocFlavor flavor = DocFlavor.SERVICE_FORMATTED.PRINTABLE;
             StreamPrintServiceFactory[] factories = StreamPrintServiceFactory.lookupStreamPrintServiceFactories(flavor, "application/pdf");
@@ -997,59 +1407,73 @@ public class SkillNestStudentQuiz extends JFrame {
                 try (FileOutputStream fos = new FileOutputStream(target)) {
                     StreamPrintService sps = factories[0].getPrintService(fos);
                     PrinterJob pj = PrinterJob.getPrinterJob();
-                    pj.setPrintable(makePrintableForReview());
+                    pj.setPrintable(makePrintableForReview(rd, progress));
                     pj.setPrintService(sps);
                     pj.print();
-                    pdfSaved = true;
-                    JOptionPane.showMessageDialog(this, "Exported review to PDF:\n" + target.getAbsolutePath(), "Export", JOptionPane.INFORMATION_MESSAGE);
+                    result.pdfSaved = true;
+                    pdfEv.pages = (int)Math.ceil(rd.questions.size() / 6.0);
                 }
             } else {
                 System.err.println("No StreamPrintServiceFactory available for application/pdf on this JVM.");
             }
+        } catch (CancellationException ce) {
+            throw ce;
         } catch (Throwable ex) {
             ex.printStackTrace();
             System.err.println("Direct PDF export attempt failed: " + ex.getMessage());
         }
+        pdfEv.success = result.pdfSaved;
+        if (result.pdfSaved) pdfEv.bytesWritten = target.length();
+        pdfEv.commit();
+        progress.checkCancelled();
 
         // Always save PNG fallback (guaranteed)
+        progress.update(1, 2, "Rendering PNG...");
+        QuizEvents.Export pngEv = new QuizEvents.Export();
+        pngEv.begin();
+        pngEv.kind = "review-png";
+        pngEv.subject = rd.subject;
         try {
-            BufferedImage img = renderReviewToImage();
+            BufferedImage img = renderReviewToImage(rd, progress);
             File pngFile = new File(target.getParentFile(), target.getName().replaceAll("\\.pdf$", "") + ".png");
             ImageIO.write(img, "png", pngFile);
-            JOptionPane.showMessageDialog(this,
-                    (pdfSaved ? "Also saved PNG fallback at:\n" : "Saved PNG fallback at:\n")
-                            + pngFile.getAbsolutePath(),
-                    "Saved PNG", JOptionPane.INFORMATION_MESSAGE);
+            result.pngFile = pngFile;
+            pngEv.pages = 1;
+            pngEv.bytesWritten = pngFile.length();
+            pngEv.success = true;
         } catch (IOException ioe) {
             ioe.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Unable to save PNG fallback: " + ioe.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            result.pngError = ioe;
         }
+        pngEv.commit();
+        Metrics.EXPORT_REVIEW_SECONDS.recordSince(exportStart);
+        return result;
+    }
 
-        // If PDF not saved, offer the system Print dialog (user can choose "Save as PDF")
-        if (!pdfSaved) {
-            int opt = JOptionPane.showConfirmDialog(this,
-                    "Direct PDF export is not available on this JVM.\nWould you like to open the system Print dialog so you can choose 'Save as PDF' (if supported)?",
-                    "Print to PDF?", JOptionPane.YES_NO_OPTION);
-            if (opt == JOptionPane.YES_OPTION) {
-                PrinterJob pj = PrinterJob.getPrinterJob();
-                pj.setPrintable(makePrintableForReview());
-                if (pj.printDialog()) {
-                    try { pj.print(); }
-                    catch (PrinterException pe) {
-                        pe.printStackTrace();
-                        JOptionPane.showMessageDialog(this, "Printing failed: " + pe.getMessage(), "Print Error", JOptionPane.ERROR_MESSAGE);
-                    }
-                }
+    private void offerSystemPrint(ReviewData rd) {
+        int opt = JOptionPane.showConfirmDialog(this,
+                "Direct PDF export is not available on this JVM.\nWould you like to open the system Print dialog so you can choose 'Save as PDF' (if supported)?",
+                "Print to PDF?", JOptionPane.YES_NO_OPTION);
+        if (opt != JOptionPane.YES_OPTION) return;
+        PrinterJob pj = PrinterJob.getPrinterJob();
+        pj.setPrintable(makePrintableForReview(rd, AsyncIo.Progress.NONE));
+        if (!pj.printDialog()) return;
+        AsyncIo.onEdt(AsyncIo.read(progress -> { pj.print(); return null; }), (v, ex) -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Printing failed: " + ex.getMessage(), "Print Error", JOptionPane.ERROR_MESSAGE);
             }
-        }
+        });
     }
 
-    private Printable makePrintableForReview() {
+    private Printable makePrintableForReview(ReviewData rd, AsyncIo.Progress progress) {
         return new Printable() {
             public int print(Graphics g, PageFormat pf, int pageIndex) throws PrinterException {
                 int perPage = 6;
-                int totalPages = (int)Math.ceil((double)questions.size() / perPage);
+                int totalPages = (int)Math.ceil((double)rd.questions.size() / perPage);
                 if (pageIndex >= totalPages) return NO_SUCH_PAGE;
+                progress.checkCancelled();
+                progress.update(pageIndex + 1, totalPages, "PDF page " + (pageIndex+1) + " of " + totalPages);
                 Graphics2D g2 = (Graphics2D) g;
                 g2.translate(pf.getImageableX(), pf.getImageableY());
                 int w = (int) pf.getImageableWidth();
@@ -1057,33 +1481,23 @@ public class SkillNestStudentQuiz extends JFrame {
                 g2.setFont(new Font("Serif", Font.BOLD, 14));
                 g2.drawString("SkillNest — Review Report", 0, y += 18);
                 g2.setFont(new Font("Serif", Font.PLAIN, 11));
-                g2.drawString("Student: " + name + "   Roll: " + roll + "   Class: " + cls + "   Subject: " + subject, 0, y += 18);
+                g2.drawString("Student: " + rd.name + "   Roll: " + rd.roll + "   Class: " + rd.cls + "   Subject: " + rd.subject, 0, y += 18);
                 g2.drawString("Page " + (pageIndex+1) + " of " + totalPages, 0, y += 18);
                 y += 8;
                 int start = pageIndex * perPage;
-                int end = Math.min(questions.size(), start + perPage);
+                int end = Math.min(rd.questions.size(), start + perPage);
                 for (int i = start; i < end; i++) {
-                    Question q = questions.get(i);
+                    Question q = rd.questions.get(i);
                     String qn = (i+1) + ". " + q.question;
                     y = drawStringWrapped(g2, qn, 0, y, w, 12);
-                    Integer sel = selectedDisplayedIndex[i];
-                    String your = "";
-                    if (sel != null && displayedMappings.get(i) != null) {
-                        int orig = displayedMappings.get(i)[sel];
-                        your = q.options[orig];
-                    } else your = "<no answer>";
+                    String your = rd.yourAnswer(i);
                     String corr = q.options[q.correctIndex];
                     g2.drawString("Your: " + your, 10, y += 14);
                     g2.drawString("Correct: " + corr, 10, y += 14);
                     if (q.explanation != null && !q.explanation.trim().isEmpty()) {
                         y = drawStringWrapped(g2, "Explanation: " + q.explanation, 10, y + 2, w-20, 12);
                     } else y += 8;
-                    boolean updated = false;
-                    String id = qId(q);
-                    String curHash = computeQuestionHash(q);
-                    String prevHash = loadedQuestionHashes.get(id);
-                    if (prevHash != null && !prevHash.equals(curHash)) updated = true;
-                    if (updated) g2.drawString("Note: Question updated since last session.", 10, y += 14);
+                    if (rd.updated(q)) g2.drawString("Note: Question updated since last session.", 10, y += 14);
                     y += 10;
                     if (y > pf.getImageableHeight() - 60) break;
                 }
@@ -1131,7 +1545,7 @@ public class SkillNestStudentQuiz extends JFrame {
         return y;
     }
 
-    private BufferedImage renderReviewToImage() {
+    private BufferedImage renderReviewToImage(ReviewData rd, AsyncIo.Progress progress) {
         int width = 1000;
         int y = 20;
         BufferedImage tmp = new BufferedImage(width, 2000, BufferedImage.TYPE_INT_ARGB);
@@ -1141,28 +1555,19 @@ public class SkillNestStudentQuiz extends JFrame {
         g2.setFont(new Font("Serif", Font.BOLD, 16));
         g2.drawString("SkillNest — Review Report", 10, y); y += 24;
         g2.setFont(new Font("Serif", Font.PLAIN, 12));
-        g2.drawString("Student: " + name + "   Roll: " + roll + "   Class: " + cls + "   Subject: " + subject, 10, y); y += 20;
-        for (int i = 0; i < questions.size(); i++) {
-            Question q = questions.get(i);
+        g2.drawString("Student: " + rd.name + "   Roll: " + rd.roll + "   Class: " + rd.cls + "   Subject: " + rd.subject, 10, y); y += 20;
+        for (int i = 0; i < rd.questions.size(); i++) {
+            if ((i & 15) == 0) progress.checkCancelled();
+            Question q = rd.questions.get(i);
             g2.setFont(new Font("Serif", Font.PLAIN, 12));
             y = drawStringWrappedImage(g2, (i+1) + ". " + q.question, 10, y, width-40, 16);
-            Integer sel = selectedDisplayedIndex[i];
-            String your = "";
-            if (sel != null && displayedMappings.get(i) != null) {
-                int orig = displayedMappings.get(i)[sel];
-                your = q.options[orig];
-            } else your = "<no answer>";
+            String your = rd.yourAnswer(i);
             g2.drawString("Your: " + your, 18, y += 16);
             g2.drawString("Correct: " + q.options[q.correctIndex], 18, y += 16);
             if (q.explanation != null && !q.explanation.trim().isEmpty()) {
                 y = drawStringWrappedImage(g2, "Explanation: " + q.explanation, 18, y + 8, width-40, 14);
             } else y += 8;
-            boolean updated = false;
-            String id = qId(q);
-            String curHash = computeQuestionHash(q);
-            String prevHash = loadedQuestionHashes.get(id);
-            if (prevHash != null && !prevHash.equals(curHash)) updated = true;
-            if (updated) { g2.drawString("Note: Question updated since last session.", 18, y += 16); }
+            if (rd.updated(q)) { g2.drawString("Note: Question updated since last session.", 18, y += 16); }
             y += 18;
             if (y > tmp.getHeight() - 200) {
                 BufferedImage bigger = new BufferedImage(width, tmp.getHeight() + 2000, BufferedImage.TYPE_INT_ARGB);
@@ -1193,14 +1598,57 @@ public class SkillNestStudentQuiz extends JFrame {
             if (expl.isEmpty()) expl = "(no explanation provided)";
             sb.append(i+1).append(". ").append(truncate(q.question, 80)).append("\n   -> ").append(truncate(expl, 200)).append("\n\n");
         }
-        JTextArea area = new JTextArea(sb.toString());
+        String attemptText = sb.toString();
+        JTextArea area = new JTextArea(attemptText);
         area.setLineWrap(true);
         area.setWrapStyleWord(true);
         area.setEditable(false);
         area.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         JScrollPane sp = new JScrollPane(area);
         sp.setPreferredSize(new Dimension(700, 420));
-        JOptionPane.showMessageDialog(this, sp, "All Explanations (Brief)", JOptionPane.INFORMATION_MESSAGE);
+
+        // an empty query shows this attempt; otherwise matches from the whole bank
+        JLabel searchStatus = new JLabel("This attempt (" + questions.size() + " questions). Type to search the whole bank.");
+        int[] searchSeq = {0};
+        JTextField search = searchField(query -> {
+            int seq = ++searchSeq[0];
+            if (query.isEmpty()) {
+                area.setText(attemptText);
+                area.setCaretPosition(0);
+                searchStatus.setText("This attempt (" + questions.size() + " questions). Type to search the whole bank.");
+                return;
+            }
+            AsyncIo.onEdt(searchAsync().thenCompose(ix -> AsyncIo.read(progress -> ix.search(query, QuestionSearch.DEFAULT_LIMIT))), (hits, ex) -> {
+                if (seq != searchSeq[0]) return; // a newer query is on its way
+                if (ex != null) {
+                    searchStatus.setText("Search unavailable: " + AsyncIo.unwrap(ex).getMessage());
+                    return;
+                }
+                StringBuilder out = new StringBuilder();
+                for (int at : hits.indices) {
+                    CompactBank b = hits.bank;
+                    String expl = b.explanation(at).trim();
+                    out.append('[').append(b.subject(at)).append("] ").append(b.question(at))
+                            .append("\n   Answer: ").append(b.option(at, b.correctIndex(at)))
+                            .append("\n   -> ").append(expl.isEmpty() ? "(no explanation provided)" : expl).append("\n\n");
+                }
+                area.setText(out.length() == 0 ? "No questions match \"" + query + "\"." : out.toString());
+                area.setCaretPosition(0);
+                searchStatus.setText(hits.total + " matching question(s) in the bank"
+                        + (hits.total > hits.indices.length ? ", first " + hits.indices.length + " shown" : "")
+                        + String.format(" (%.1f ms)", hits.micros / 1000.0));
+            });
+        });
+        JPanel top = new JPanel(new BorderLayout(6, 4));
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        row.add(new JLabel("🔍 Search:"));
+        row.add(search);
+        top.add(row, BorderLayout.NORTH);
+        top.add(searchStatus, BorderLayout.SOUTH);
+        JPanel content = new JPanel(new BorderLayout(6, 6));
+        content.add(top, BorderLayout.NORTH);
+        content.add(sp, BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, content, "All Explanations (Brief)", JOptionPane.INFORMATION_MESSAGE);
     }
 
     // ===== Dependency-free paginated PDF exporter for explanations =====
@@ -1256,141 +1704,43 @@ public class SkillNestStudentQuiz extends JFrame {
 
         // lines per page (approx). Tweak to change font/spacing.
         int linesPerPage = 60;
-        try {
-            writePagedSimplePdf(out, wrappedLines, linesPerPage);
-            JOptionPane.showMessageDialog(this, "Explanations exported to:\n" + out.getAbsolutePath(), "Export Complete", JOptionPane.INFORMATION_MESSAGE);
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Failed to write PDF: " + ioe.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    /**
-     * Minimal paginated PDF writer (no external libs).
-     * - wrappedLines: already-wrapped lines of plain text (no parentheses escaping needed).
-     * - linesPerPage: number of text lines per PDF page (approx).
-     *
-     * Limitations: Uses Type1 Helvetica, basic text placement; designed for plain text exports.
-     */
-    private void writePagedSimplePdf(File file, List<String> wrappedLines, int linesPerPage) throws IOException {
-        // (Implementation identical to earlier single-file version)
-        List<List<String>> pages = new ArrayList<>();
-        for (int i = 0; i < wrappedLines.size(); i += linesPerPage) {
-            int end = Math.min(wrappedLines.size(), i + linesPerPage);
-            pages.add(new ArrayList<>(wrappedLines.subList(i, end)));
-        }
-        if (pages.isEmpty()) pages.add(Collections.singletonList(""));
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        RunnableWriter w = new RunnableWriter(baos);
-
-        // PDF header
-        w.write("%PDF-1.4\n");
-        w.write("%\u00E2\u00E3\u00CF\u00D3\n"); // binary comment
-
-        List<Integer> xrefOffsets = new ArrayList<>();
-        xrefOffsets.add(0);
-
-        int pageCount = pages.size();
-        int firstPageObjNum = 3;
-        int fontObjNum = firstPageObjNum + pageCount * 2;
-
-        // Object 1: Catalog
-        xrefOffsets.add(baos.size());
-        w.write("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
-
-        // Object 2: Pages
-        xrefOffsets.add(baos.size());
-        StringBuilder kidsSb = new StringBuilder();
-        for (int i = 0; i < pageCount; i++) {
-            int pageObjNumber = firstPageObjNum + (i * 2);
-            kidsSb.append(pageObjNumber).append(" 0 R ");
-        }
-        w.write("2 0 obj\n<< /Type /Pages /Kids [ " + kidsSb.toString().trim() + " ] /Count " + pageCount + " >>\nendobj\n");
-
-        // Font obj
-        xrefOffsets.add(baos.size());
-        w.write(fontObjNum + " 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
-
-        List<byte[]> contentBytesList = new ArrayList<>();
-        for (int p = 0; p < pageCount; p++) {
-            List<String> lines = pages.get(p);
-            StringBuilder content = new StringBuilder();
-            content.append("BT\n");
-            content.append("/F1 10 Tf\n");
-            content.append("50 800 Td\n");
-            for (int li = 0; li < lines.size(); li++) {
-                String ln = escapePdfText(lines.get(li));
-                content.append("(").append(ln).append(") Tj\n");
-                if (li < lines.size() - 1) content.append("0 -12 Td\n");
+        File target = out;
+        String subj = subject;
+        AsyncIo.onEdt(AsyncIo.withProgress(this, "Exporting explanations", false, progress -> {
+            QuizEvents.Export ev = new QuizEvents.Export();
+            ev.begin();
+            ev.kind = "explanations-pdf";
+            ev.subject = subj;
+            ev.pages = Math.max(1, (wrappedLines.size() + linesPerPage - 1) / linesPerPage);
+            long t0 = System.nanoTime();
+            try {
+                writePagedSimplePdf(target, wrappedLines, linesPerPage, progress);
+                Metrics.EXPORT_EXPLANATIONS_SECONDS.recordSince(t0);
+                ev.bytesWritten = target.length();
+                ev.success = true;
+            } finally {
+                ev.commit();
             }
-            content.append("ET\n");
-            byte[] cb = content.toString().getBytes(StandardCharsets.UTF_8);
-            contentBytesList.add(cb);
-        }
-
-        for (int p = 0; p < pageCount; p++) {
-            int pageObjNum = firstPageObjNum + (p * 2);
-            int contentObjNum = pageObjNum + 1;
-
-            xrefOffsets.add(baos.size());
-            String pageObj = pageObjNum + " 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 595 842] "
-                    + "/Resources << /Font << /F1 " + fontObjNum + " 0 R >> >> /Contents " + contentObjNum + " 0 R >>\nendobj\n";
-            w.write(pageObj);
-
-            xrefOffsets.add(baos.size());
-            byte[] cb = contentBytesList.get(p);
-            w.write(contentObjNum + " 0 obj\n<< /Length " + cb.length + " >>\nstream\n");
-            baos.write(cb);
-            w.write("\nendstream\nendobj\n");
-        }
-
-        int xrefStart = baos.size();
-        int totalObjects = fontObjNum;
-
-        Map<Integer, Integer> offsetsMap = new TreeMap<>();
-        int idx = 1;
-        offsetsMap.put(1, xrefOffsets.get(idx++));
-        offsetsMap.put(2, xrefOffsets.get(idx++));
-        offsetsMap.put(fontObjNum, xrefOffsets.get(idx++));
-        for (int p = 0; p < pageCount; p++) {
-            int pageObjNum = firstPageObjNum + (p * 2);
-            int contentObjNum = pageObjNum + 1;
-            offsetsMap.put(pageObjNum, xrefOffsets.get(idx++));
-            offsetsMap.put(contentObjNum, xrefOffsets.get(idx++));
-        }
-
-        w.write("xref\n0 " + (totalObjects + 1) + "\n");
-        w.write(String.format("%010d %05d f \n", 0, 65535));
-        for (int objNum = 1; objNum <= totalObjects; objNum++) {
-            Integer off = offsetsMap.get(objNum);
-            if (off == null) off = 0;
-            w.write(String.format("%010d %05d n \n", off, 0));
-        }
-
-        w.write("trailer\n<< /Size " + (totalObjects + 1) + " /Root 1 0 R >>\n");
-        w.write("startxref\n" + xrefStart + "\n%%EOF\n");
-
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            baos.writeTo(fos);
-        }
-    }
-
-    // Escape parentheses and backslashes for PDF text literal.
-    private String escapePdfText(String s) {
-        if (s == null) return "";
-        return s.replace("\\", "\\\\").replace("(", "\\(").replace(")", "\\)");
+            return target;
+        }), (f, ex) -> {
+            if (ex instanceof CancellationException) return;
+            if (ex == null) {
+                JOptionPane.showMessageDialog(this, "Explanations exported to:\n" + f.getAbsolutePath(), "Export Complete", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Failed to write PDF: " + ex.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 
-    // reuse the small helper writer
-    private static class RunnableWriter {
-        private final OutputStream out;
-        RunnableWriter(OutputStream out) { this.out = out; }
-        void write(String s) throws IOException { out.write(s.getBytes(StandardCharsets.UTF_8)); }
+    private void writePagedSimplePdf(File file, List<String> wrappedLines, int linesPerPage, AsyncIo.Progress progress) throws IOException {
+        SimplePdf.writePaged(file, wrappedLines, linesPerPage, progress);
     }
 
     // Main
     public static void main(String[] args) {
+        EdtWatchdog.startFromSystemProperties();
+        Metrics.startFromSystemProperties();
         SwingUtilities.invokeLater(() -> {
             SkillNestStudentQuiz s = new SkillNestStudentQuiz();
             s.setVisible(true);
@@ -0,0 +1,91 @@
+// StartupPipeline.java
+// Warms the question bank (and its search index), version map, user store, score index and item stats in parallel
+// while the login dialog is up.
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+class StartupPipeline {
+    private final long startedAt = System.nanoTime();
+    private final ExecutorService pool;
+    private final Map<String, Long> phaseMillis = new ConcurrentSkipListMap<>(); // finished phases, for logReady
+
+    final CompletableFuture<QuestionLoader.Result> questions;
+    final CompletableFuture<QuestionSearch> search;
+    final CompletableFuture<Map<String, String>> versions;
+    final CompletableFuture<Void> users;
+    final CompletableFuture<Void> scores;
+    final CompletableFuture<Void> itemStats;
+
+    StartupPipeline(Path questionsFile, Path versionsFile, UserStore userStore, ScoreStore scoreStore,
+                    ItemStats itemStatsStore) {
+        pool = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "skillnest-startup");
+            t.setDaemon(true);
+            return t;
+        });
+        questions = phase("questions", () -> {
+            try { return QuestionLoader.load(questionsFile); }
+            catch (Exception e) { throw new CompletionException(e); }
+        });
+        search = questions.thenApplyAsync(r -> {
+            long t0 = System.nanoTime();
+            QuestionSearch s = QuestionSearch.build(r.questions);
+            mark("search-index", t0);
+            return s;
+        }, pool);
+        versions = phase("versions", () -> SkillNestStudentQuiz.readVersionsFile(versionsFile));
+        users = phase("users", () -> { userStore.warm(); return null; });
+        // only fills the store's cache; the rows themselves are not kept here
+        scores = phase("scores", () -> { scoreStore.loadRows(); return null; });
+        itemStats = phase("itemstats", () -> {
+            try { itemStatsStore.load(); return null; }
+            catch (Exception e) { System.err.println("Item statistics not loaded: " + e); return null; }
+        });
+        CompletableFuture.allOf(questions, search, versions, users, scores, itemStats)
+                .whenComplete((v, ex) -> pool.shutdown());
+    }
+
+    private <T> CompletableFuture<T> phase(String name, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long t0 = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                mark(name, t0);
+            }
+        }, pool);
+    }
+
+    /** Records a phase timing, e.g. UI construction done on the EDT. */
+    void mark(String name, long startNanos) {
+        long ms = (System.nanoTime() - startNanos) / 1_000_000L;
+        phaseMillis.put(name, ms);
+        System.out.println("[startup] " + name + ": " + ms + " ms");
+    }
+
+    /** The preloaded value, or {@code fallback} if the phase failed. Blocks if it is still running. */
+    static <T> T joinOr(CompletableFuture<T> f, T fallback) {
+        try {
+            return f.join();
+        } catch (CompletionException | CancellationException e) {
+            return fallback;
+        }
+    }
+
+    /** Same, computing the fallback only when the phase failed. */
+    static <T> T joinOrElse(CompletableFuture<T> f, Supplier<T> fallback) {
+        try {
+            return f.join();
+        } catch (CompletionException | CancellationException e) {
+            return fallback.get();
+        }
+    }
+
+    void logReady(String what) {
+        System.out.println("[startup] " + what + " after " + (System.nanoTime() - startedAt) / 1_000_000L + " ms"
+                + (phaseMillis.isEmpty() ? "" : ", phases done " + phaseMillis + " ms"));
+    }
+}
@@ -2,15 +2,28 @@
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
 import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 class UserStore {
-    private final Path usersFile = Paths.get(System.getProperty("user.home"), ".skillnest_users");
+    private final Path usersFile;
 
-    boolean registerUser(String username, String password) throws IOException {
+    // parsed users file, reused while the file's mtime is unchanged
+    private Map<String,String> cached;
+    private FileTime cachedMtime;
+
+    UserStore() { this(Paths.get(System.getProperty("user.home"), ".skillnest_users")); }
+    UserStore(Path usersFile) { this.usersFile = usersFile; }
+
+    /** Loads the users file ahead of the first login attempt. */
+    void warm() {
+        try { loadAll(); } catch (IOException ignored) {}
+    }
+
+    synchronized boolean registerUser(String username, String password) throws IOException {
         if (username == null || username.trim().isEmpty()) throw new IllegalArgumentException("username");
         if (password == null || password.isEmpty()) throw new IllegalArgumentException("password");
         Map<String,String> map = loadAll();
@@ -18,20 +31,23 @@ class UserStore {
         String hash = hashPassword(password);
         String line = username + "," + hash + "\n";
         Files.write(usersFile, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        cached = null;
         return true;
     }
 
-    boolean authenticateUser(String username, String password) throws IOException {
+    synchronized boolean authenticateUser(String username, String password) throws IOException {
         Map<String,String> map = loadAll();
         String stored = map.get(username);
-        if (stored == null) return false;
-        String hash = hashPassword(password);
-        return stored.equals(hash);
+        boolean ok = stored != null && stored.equals(hashPassword(password));
+        (ok ? Metrics.LOGIN_SUCCESS : Metrics.LOGIN_FAILURE).inc();
+        return ok;
     }
 
-    private Map<String,String> loadAll() throws IOException {
+    private synchronized Map<String,String> loadAll() throws IOException {
         Map<String,String> m = new HashMap<>();
         if (Files.notExists(usersFile)) return m;
+        FileTime mtime = Files.getLastModifiedTime(usersFile);
+        if (cached != null && mtime.equals(cachedMtime)) return cached;
         List<String> lines = Files.readAllLines(usersFile, StandardCharsets.UTF_8);
         for (String ln : lines) {
             if (ln.trim().isEmpty()) continue;
@@ -41,6 +57,8 @@ class UserStore {
             String h = ln.substring(idx+1).trim();
             m.put(u, h);
         }
+        cached = m;
+        cachedMtime = mtime;
         return m;
     }
 
@@ -0,0 +1,111 @@
+// QuizBenchmarks.java
+// JMH runs of the QuizBench cases over 10^2..10^6 synthetic records; the score is the mean time of one run
+// (one login for the authenticate cases). Same inputs as QuizBench, so either tool's numbers can be compared.
+//
+//   mvn -B package
+//   java -jar benchmarks/target/benchmarks.jar                          all cases, every size
+//   java -jar benchmarks/target/benchmarks.jar scoring -p records=1000  one case, one size
+//   java -jar benchmarks/target/benchmarks.jar -rf csv -rff before.csv  keep the numbers for a before/after diff
+
+package skillnest.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class QuizBenchmarks {
+    // the quiz classes sit in the default package, which a named package cannot import: go through QuizBench.prepare
+    private static final Method PREPARE;
+
+    static {
+        try {
+            PREPARE = Class.forName("QuizBench").getMethod("prepare", String.class, int.class);
+            PREPARE.setAccessible(true);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** One prepared case; each subclass names the QuizBench case it runs, so only that input is built. */
+    @State(Scope.Benchmark)
+    public abstract static class Input {
+        @Param({"100", "1000", "10000", "100000", "1000000"})
+        public int records;
+
+        Callable<Long> run;
+
+        abstract String name();
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void prepare() throws Exception {
+            run = (Callable<Long>) PREPARE.invoke(null, name(), records);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Json extends Input {
+        String name() { return "loadQuestionsFromJsonSimple"; }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Csv extends Input {
+        String name() { return "csvTokenizer"; }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Hash extends Input {
+        String name() { return "computeQuestionHash"; }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pdf extends Input {
+        String name() { return "writePagedSimplePdf"; }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Users extends Input {
+        String name() { return "authenticateUser"; }
+    }
+
+    @State(Scope.Benchmark)
+    public static class UsersCold extends Input {
+        String name() { return "authenticateUserCold"; }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Answers extends Input {
+        String name() { return "scoring"; }
+    }
+
+    @Benchmark
+    public long loadQuestionsFromJsonSimple(Json in) throws Exception { return in.run.call(); }
+
+    @Benchmark
+    public long csvTokenizer(Csv in) throws Exception { return in.run.call(); }
+
+    @Benchmark
+    public long computeQuestionHash(Hash in) throws Exception { return in.run.call(); }
+
+    @Benchmark
+    public long writePagedSimplePdf(Pdf in) throws Exception { return in.run.call(); }
+
+    // each run is 1000 logins of users cycling through the file; the parsed file stays cached
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public long authenticateUser(Users in) throws Exception { return in.run.call(); }
+
+    // the users file is touched first, so every login re-reads and parses all records
+    @Benchmark
+    public long authenticateUserCold(UsersCold in) throws Exception { return in.run.call(); }
+
+    @Benchmark
+    public long scoring(Answers in) throws Exception { return in.run.call(); }
+}